@@ -0,0 +1,43 @@
+package com.java.chatting.benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the selected benchmarks once per thread count of {@code -Djmh.threads} (comma separated, default 1,4) and
+ * writes all results to one JSON file, {@code -Djmh.result} (default target/jmh-result.json). Every other
+ * argument is passed to JMH as on its command line; an explicit {@code -t} runs that thread count only.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        List<Integer> threadCounts = commandLine.getThreads().hasValue()
+                ? List.of(commandLine.getThreads().get())
+                : Arrays.stream(System.getProperty("jmh.threads", "1,4").split(","))
+                        .map(String::trim)
+                        .map(Integer::parseInt)
+                        .toList();
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : threadCounts) {
+            results.addAll(new Runner(new OptionsBuilder().parent(commandLine).threads(threads).build()).run());
+        }
+
+        File output = new File(System.getProperty("jmh.result", "target/jmh-result.json"));
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, output.getPath()).writeOut(results);
+        System.out.println("Results of " + results.size() + " runs written to " + output);
+    }
+}
@@ -0,0 +1,65 @@
+package com.java.chatting.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.constants.MessageType;
+import com.java.chatting.dto.response.ChatResponse;
+import com.java.chatting.dto.response.GenericApiResponse;
+import com.java.chatting.entities.Chat;
+import com.java.chatting.mappers.ChatMapper;
+import com.java.chatting.mappers.ChatMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turning a stored chat into what goes on the wire: the MapStruct mapping to {@link ChatResponse} and its JSON
+ * serialization, alone and wrapped in a {@link GenericApiResponse} as the REST endpoints return it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatResponseBenchmark {
+
+    @Param({"64", "1024", "8192"})
+    int messageBytes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final ChatMapper chatMapper = new ChatMapperImpl();
+    private Chat chat;
+    private ChatResponse response;
+
+    @Setup
+    public void setUp() {
+        String ciphertext = "x".repeat(messageBytes);
+        chat = Chat.builder()
+                .id(1)
+                .senderId(7)
+                .receiverId(42)
+                .messageEncryptForSender(ciphertext)
+                .messageEncryptForReceiver(ciphertext)
+                .isEncrypted(true)
+                .messageType(MessageType.TEXT)
+                .sentAt(LocalDateTime.now())
+                .build();
+        response = chatMapper.entityToResponse(chat);
+    }
+
+    @Benchmark
+    public ChatResponse entityToResponse() {
+        return chatMapper.entityToResponse(chat);
+    }
+
+    @Benchmark
+    public byte[] serializeChatResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeApiResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(GenericApiResponse.success(response));
+    }
+}
@@ -0,0 +1,100 @@
+package com.java.chatting.benchmarks;
+
+import com.java.chatting.configurations.crypto.CipherSuite;
+import com.java.chatting.configurations.crypto.CipherSuites;
+import com.java.chatting.configurations.crypto.CiphertextTag;
+import com.java.chatting.configurations.crypto.CryptoProperties;
+import com.java.chatting.configurations.crypto.RsaCipherSuite;
+import com.java.chatting.configurations.crypto.X25519CipherSuite;
+import com.java.chatting.entities.EncryptionKey;
+import com.java.chatting.repositories.EncryptionKeyRepository;
+import com.java.chatting.services.serviceIpml.EncryptionServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Direct-message encryption and decryption through {@link EncryptionServiceImpl}, per cipher suite. Decryption is
+ * measured both for key-tagged ciphertexts, which load one key, and for untagged ones, which are tried with the
+ * sender's key first and so pay for a failed decryption when the copy is the receiver's.
+ * <p>
+ * Message sizes stay within what RSA-2048 with PKCS#1 padding can encrypt (245 bytes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoBenchmark {
+
+    private static final int SENDER = 1;
+    private static final int RECEIVER = 2;
+
+    @Param({RsaCipherSuite.ID, X25519CipherSuite.ID})
+    String suite;
+
+    @Param({"32", "200"})
+    int messageBytes;
+
+    private EncryptionServiceImpl encryptionService;
+    private String message;
+    private String receiverPublicKey;
+    private String tagged;
+    private String untagged;
+
+    @Setup
+    public void setUp() throws Exception {
+        CryptoProperties properties = new CryptoProperties();
+        properties.setDefaultSuite(suite);
+        CipherSuites cipherSuites = new CipherSuites(List.of(new RsaCipherSuite(properties), new X25519CipherSuite()), properties);
+        CipherSuite cipherSuite = cipherSuites.defaultSuite();
+        EncryptionKey senderKey = key(1, SENDER, cipherSuite);
+        EncryptionKey receiverKey = key(2, RECEIVER, cipherSuite);
+
+        // Stub-only: no invocations are recorded, so the repository adds little to the measured time
+        EncryptionKeyRepository repository = mock(EncryptionKeyRepository.class, withSettings().stubOnly());
+        when(repository.findById(senderKey.getId())).thenReturn(Optional.of(senderKey));
+        when(repository.findById(receiverKey.getId())).thenReturn(Optional.of(receiverKey));
+        when(repository.findByUserId(SENDER)).thenReturn(Optional.of(senderKey));
+        when(repository.findByUserId(RECEIVER)).thenReturn(Optional.of(receiverKey));
+        encryptionService = new EncryptionServiceImpl(repository, null, null, null, null, cipherSuites, properties, null);
+
+        message = "x".repeat(messageBytes);
+        receiverPublicKey = receiverKey.getPublicKey();
+        untagged = cipherSuite.encrypt(message, receiverPublicKey);
+        tagged = CiphertextTag.tag(receiverKey.getId(), untagged);
+    }
+
+    @Benchmark
+    public String encryptMessage() throws Exception {
+        return encryptionService.encryptMessage(message, receiverPublicKey);
+    }
+
+    @Benchmark
+    public String decryptTagged() {
+        return encryptionService.decryptMessage(tagged, SENDER, RECEIVER);
+    }
+
+    @Benchmark
+    public String decryptUntagged() {
+        return encryptionService.decryptMessage(untagged, SENDER, RECEIVER);
+    }
+
+    private static EncryptionKey key(int id, int userId, CipherSuite suite) throws Exception {
+        KeyPair pair = suite.generateKeyPair();
+        EncryptionKey key = new EncryptionKey();
+        key.setId(id);
+        key.setUserId(userId);
+        key.setSuite(suite.id());
+        key.setPublicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+        key.setPrivateKey(Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()));
+        return key;
+    }
+}
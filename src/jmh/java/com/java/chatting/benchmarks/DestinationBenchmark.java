@@ -0,0 +1,39 @@
+package com.java.chatting.benchmarks;
+
+import com.java.chatting.constants.SocketDestination;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Destination names built for every outbound message: the legacy pair topic, formatted with
+ * {@link String#format} in {@link SocketDestination#legacyTopic}, next to plain concatenation as a baseline, and
+ * the per-session queue name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DestinationBenchmark {
+
+    private int senderId = 1207;
+    private int receiverId = 98;
+    private String sessionId = "k3j5v0xq";
+
+    @Benchmark
+    public String legacyTopic() {
+        return SocketDestination.CHAT.legacyTopic(Math.min(senderId, receiverId), Math.max(senderId, receiverId));
+    }
+
+    @Benchmark
+    public String concatenatedTopic() {
+        return "/topic/private-chat-" + Math.min(senderId, receiverId) + "-" + Math.max(senderId, receiverId);
+    }
+
+    @Benchmark
+    public String sessionQueue() {
+        return SocketDestination.ofSession(SocketDestination.CHAT.getUserQueue(), sessionId);
+    }
+}
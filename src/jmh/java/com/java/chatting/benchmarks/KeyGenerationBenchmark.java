@@ -0,0 +1,39 @@
+package com.java.chatting.benchmarks;
+
+import com.java.chatting.configurations.crypto.CipherSuite;
+import com.java.chatting.configurations.crypto.CryptoProperties;
+import com.java.chatting.configurations.crypto.RsaCipherSuite;
+import com.java.chatting.configurations.crypto.X25519CipherSuite;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPair;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key pair generation per cipher suite: the work the key pool moves off a user's first message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyGenerationBenchmark {
+
+    @Param({RsaCipherSuite.ID, X25519CipherSuite.ID})
+    String suite;
+
+    private CipherSuite cipherSuite;
+
+    @Setup
+    public void setUp() {
+        cipherSuite = RsaCipherSuite.ID.equals(suite)
+                ? new RsaCipherSuite(new CryptoProperties())
+                : new X25519CipherSuite();
+    }
+
+    @Benchmark
+    public KeyPair generateKeyPair() throws Exception {
+        return cipherSuite.generateKeyPair();
+    }
+}
@@ -0,0 +1,85 @@
+package com.java.chatting.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.constants.MessageType;
+import com.java.chatting.dto.response.ChatResponse;
+import com.java.chatting.utils.EncodedPayload;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of pushing one chat message to several destinations: converting the object on every send, as
+ * {@code convertAndSend} does, against serializing it once into an {@link EncodedPayload}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutboundPayloadBenchmark {
+
+    @Param({"1", "4", "16"})
+    int destinations;
+
+    @Param({"64", "1024", "8192"})
+    int messageBytes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private SimpMessagingTemplate template;
+    private ChatResponse chat;
+    private String[] destinationNames;
+    private long sink;
+
+    @Setup
+    public void setUp() {
+        MessageChannel channel = (message, timeout) -> {
+            sink += ((byte[]) message.getPayload()).length;
+            return true;
+        };
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        template = new SimpMessagingTemplate(channel);
+        template.setMessageConverter(converter);
+
+        String ciphertext = "x".repeat(messageBytes);
+        chat = ChatResponse.builder()
+                .id(1)
+                .senderId(7)
+                .receiverId(42)
+                .messageEncryptForSender(ciphertext)
+                .messageEncryptForReceiver(ciphertext)
+                .messageType(MessageType.TEXT)
+                .isEncrypted(true)
+                .sentAt(LocalDateTime.now())
+                .build();
+        destinationNames = new String[destinations];
+        for (int i = 0; i < destinations; i++) {
+            destinationNames[i] = "/queue/chat-user" + i;
+        }
+    }
+
+    @Benchmark
+    public long convertPerDestination() {
+        for (String destination : destinationNames) {
+            template.convertAndSend(destination, chat);
+        }
+        return sink;
+    }
+
+    @Benchmark
+    public long encodeOnce() throws Exception {
+        EncodedPayload encoded = EncodedPayload.of(objectMapper, chat);
+        for (String destination : destinationNames) {
+            Message<byte[]> message = encoded.toMessage();
+            template.send(destination, message);
+        }
+        return sink;
+    }
+}
@@ -1,6 +1,21 @@
 package com.java.chatting;
 
+import com.java.chatting.configurations.cluster.ClusterProperties;
+import com.java.chatting.configurations.crypto.CryptoProperties;
+import com.java.chatting.configurations.crypto.KeyPoolProperties;
+import com.java.chatting.configurations.feign.FeignResilienceProperties;
+import com.java.chatting.configurations.feign.FeignTransportProperties;
 import com.java.chatting.configurations.firebase.FirebaseProperties;
+import com.java.chatting.configurations.firebase.ThumbnailProperties;
+import com.java.chatting.configurations.firebase.UploadProperties;
+import com.java.chatting.configurations.group.GroupProperties;
+import com.java.chatting.configurations.room.RoomProperties;
+import com.java.chatting.configurations.security.AuthProperties;
+import com.java.chatting.configurations.security.JwtProperties;
+import com.java.chatting.configurations.socket.OutboxProperties;
+import com.java.chatting.configurations.socket.PresenceProperties;
+import com.java.chatting.configurations.socket.SocketProperties;
+import com.java.chatting.configurations.socket.TypingProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -10,7 +25,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
 @EnableFeignClients
-@EnableConfigurationProperties(FirebaseProperties.class)
+@EnableConfigurationProperties({FirebaseProperties.class, PresenceProperties.class, TypingProperties.class, ClusterProperties.class, SocketProperties.class, OutboxProperties.class, GroupProperties.class, RoomProperties.class, FeignResilienceProperties.class, FeignTransportProperties.class, AuthProperties.class, JwtProperties.class, KeyPoolProperties.class, CryptoProperties.class, UploadProperties.class, ThumbnailProperties.class})
 @EnableJpaRepositories
 public class ChattingApplication {
 
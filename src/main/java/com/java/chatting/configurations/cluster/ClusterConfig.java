@@ -0,0 +1,34 @@
+package com.java.chatting.configurations.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.configurations.socket.StompSessionRegistry;
+import com.java.chatting.services.ClusterBus;
+import com.java.chatting.services.serviceIpml.LocalClusterBus;
+import com.java.chatting.services.serviceIpml.TcpClusterBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+@Configuration
+public class ClusterConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "chatting.cluster", name = "mode", havingValue = "local", matchIfMissing = true)
+    public ClusterBus localClusterBus(SimpMessagingTemplate messagingTemplate,
+                                      ObjectMapper objectMapper,
+                                      StompSessionRegistry sessionRegistry) {
+        return new LocalClusterBus(messagingTemplate, objectMapper, sessionRegistry);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "chatting.cluster", name = "mode", havingValue = "tcp")
+    public ClusterBus tcpClusterBus(ClusterProperties properties,
+                                    SimpMessagingTemplate messagingTemplate,
+                                    ObjectMapper objectMapper,
+                                    StompSessionRegistry sessionRegistry,
+                                    MeterRegistry meterRegistry) {
+        return new TcpClusterBus(properties, messagingTemplate, objectMapper, sessionRegistry, meterRegistry);
+    }
+}
@@ -0,0 +1,27 @@
+package com.java.chatting.configurations.cluster;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.cluster")
+public class ClusterProperties {
+    // local: single node, tcp: peer-to-peer forwarding between the nodes listed in peers
+    private String mode = "local";
+    private String nodeId = "node-1";
+    // Address peers reach this node on, and the one it connects to them from: a private interface, never a public one
+    private String bindHost = "127.0.0.1";
+    private int port = 7400;
+    // Static peer list as nodeId@host:port, an entry for this node itself is ignored
+    private List<String> peers = new ArrayList<>();
+    // Shared by every node, peers prove they know it when connecting; required in tcp mode
+    private String secret;
+    private long handshakeTimeoutMillis = 5000;
+    private int outboundQueueCapacity = 10000;
+    private long reconnectDelayMillis = 1000;
+}
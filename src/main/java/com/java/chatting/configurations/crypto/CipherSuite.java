@@ -0,0 +1,43 @@
+package com.java.chatting.configurations.crypto;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+
+/**
+ * Key type and algorithms used for a user's key pair. The id is stored with every key and every message so that
+ * data written under an older suite keeps decrypting after the default changes; an id is never reused for
+ * different algorithms, a change gets a new one.
+ * <p>
+ * Keys are passed around as they are stored: Base64 of the X.509 public and PKCS#8 private encodings.
+ */
+public interface CipherSuite {
+
+    String id();
+
+    KeyPair generateKeyPair() throws GeneralSecurityException;
+
+    /**
+     * @return Base64 of the message encrypted for the owner of {@code publicKey}
+     */
+    String encrypt(String message, String publicKey) throws GeneralSecurityException;
+
+    /**
+     * Parses a stored private key once, for callers that decrypt several messages with it.
+     */
+    PrivateKey privateKey(String privateKey) throws GeneralSecurityException;
+
+    String decrypt(String ciphertext, PrivateKey privateKey) throws GeneralSecurityException;
+
+    default String decrypt(String ciphertext, String privateKey) throws GeneralSecurityException {
+        return decrypt(ciphertext, privateKey(privateKey));
+    }
+
+    /**
+     * Encrypts the content key of a message that is itself encrypted once for several recipients.
+     */
+    String wrapKey(SecretKey contentKey, String publicKey) throws GeneralSecurityException;
+
+    SecretKey unwrapKey(String wrappedKey, String privateKey) throws GeneralSecurityException;
+}
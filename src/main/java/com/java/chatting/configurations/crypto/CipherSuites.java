@@ -0,0 +1,54 @@
+package com.java.chatting.configurations.crypto;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The available {@link CipherSuite}s by id, and the one new keys are created with.
+ */
+@Component
+public class CipherSuites {
+
+    private final Map<String, CipherSuite> suites = new HashMap<>();
+    private final CipherSuite defaultSuite;
+
+    public CipherSuites(List<CipherSuite> suites, CryptoProperties properties) {
+        suites.forEach(suite -> this.suites.put(suite.id(), suite));
+        this.defaultSuite = this.suites.get(properties.getDefaultSuite());
+        if (defaultSuite == null) {
+            throw new IllegalStateException("Unknown chatting.crypto.default-suite " + properties.getDefaultSuite()
+                    + ", expected one of " + this.suites.keySet());
+        }
+    }
+
+    public CipherSuite defaultSuite() {
+        return defaultSuite;
+    }
+
+    /**
+     * @param id suite id stored with a key or message; {@code null} for data written before suites existed
+     */
+    public CipherSuite forId(String id) {
+        if (id == null) {
+            return suites.get(RsaCipherSuite.ID);
+        }
+        CipherSuite suite = suites.get(id);
+        if (suite == null) {
+            throw new IllegalArgumentException("Unknown cipher suite " + id);
+        }
+        return suite;
+    }
+
+    /**
+     * Suite of a bare public key, for callers that only have the key. The X.509 encodings of the two key types
+     * have very different, fixed lengths.
+     */
+    public CipherSuite forPublicKey(String publicKey) {
+        int length = Base64.getDecoder().decode(publicKey).length;
+        return forId(length == X25519CipherSuite.PUBLIC_KEY_BYTES ? X25519CipherSuite.ID : RsaCipherSuite.ID);
+    }
+}
@@ -0,0 +1,50 @@
+package com.java.chatting.configurations.crypto;
+
+/**
+ * Tag naming the key a ciphertext was encrypted for: {@code v1.<keyId>.<Base64 ciphertext>}. Decryption reads the
+ * key id and loads only that key, instead of trying the keys of both users of a message. Base64 has no dots, so
+ * tagged and untagged (older) ciphertexts can't be confused.
+ */
+public final class CiphertextTag {
+
+    private static final String PREFIX = "v1.";
+
+    private CiphertextTag() {
+    }
+
+    public static String tag(int keyId, String ciphertext) {
+        return PREFIX + keyId + '.' + ciphertext;
+    }
+
+    public static boolean isTagged(String ciphertext) {
+        return ciphertext != null && ciphertext.startsWith(PREFIX);
+    }
+
+    /**
+     * @return the key id of a tagged ciphertext, or -1 if it is untagged or malformed
+     */
+    public static int keyId(String ciphertext) {
+        if (!isTagged(ciphertext)) {
+            return -1;
+        }
+        int end = ciphertext.indexOf('.', PREFIX.length());
+        if (end < 0) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(ciphertext, PREFIX.length(), end, 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return the ciphertext without its tag; untagged ciphertexts are returned as they are
+     */
+    public static String body(String ciphertext) {
+        if (!isTagged(ciphertext)) {
+            return ciphertext;
+        }
+        return ciphertext.substring(ciphertext.indexOf('.', PREFIX.length()) + 1);
+    }
+}
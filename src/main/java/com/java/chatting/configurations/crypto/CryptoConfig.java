@@ -0,0 +1,30 @@
+package com.java.chatting.configurations.crypto;
+
+import com.java.chatting.configurations.security.AuthContextTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class CryptoConfig {
+
+    // Bounded pool for CPU-bound decryption; a full queue makes the submitting request thread run the task, which
+    // slows down the callers instead of queueing without limit
+    @Bean
+    public ThreadPoolTaskExecutor cryptoExecutor(CryptoProperties properties, AuthContextTaskDecorator taskDecorator) {
+        int threads = properties.getDecryptThreads() > 0
+                ? properties.getDecryptThreads()
+                : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(properties.getDecryptQueueCapacity());
+        executor.setThreadNamePrefix("crypto-");
+        executor.setDaemon(true);
+        executor.setTaskDecorator(taskDecorator);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
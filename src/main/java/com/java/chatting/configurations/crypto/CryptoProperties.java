@@ -0,0 +1,21 @@
+package com.java.chatting.configurations.crypto;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.crypto")
+public class CryptoProperties {
+    // Suite of the keys given to new users; existing keys keep theirs
+    private String defaultSuite = X25519CipherSuite.ID;
+    private int rsaKeyBits = 2048;
+    // Threads decrypting batches, 0 for one per core; when the queue is full the caller decrypts itself
+    private int decryptThreads = 0;
+    private int decryptQueueCapacity = 1000;
+    private int maxBatchSize = 200;
+    // Tags the ciphertexts written before key tags existed, in the background after startup
+    private boolean backfillTags = true;
+    private int backfillBatchSize = 500;
+}
@@ -0,0 +1,7 @@
+package com.java.chatting.configurations.crypto;
+
+/**
+ * Ciphertext with the id of the {@link CipherSuite} that produced it, which is stored next to it.
+ */
+public record Encrypted(String suite, String ciphertext) {
+}
@@ -0,0 +1,15 @@
+package com.java.chatting.configurations.crypto;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.key-pool")
+public class KeyPoolProperties {
+    private boolean enabled = true;
+    // The worker wakes up when the pool drops below the low watermark and refills it up to the high one
+    private int lowWatermark = 32;
+    private int highWatermark = 128;
+}
@@ -0,0 +1,88 @@
+package com.java.chatting.configurations.crypto;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * The scheme every key was created with before suites existed: RSA, PKCS#1 v1.5 for direct messages and
+ * OAEP-SHA256 for wrapped content keys. Keys and messages without a suite id belong to it.
+ */
+@Component
+@RequiredArgsConstructor
+public class RsaCipherSuite implements CipherSuite {
+
+    public static final String ID = "rsa-v1";
+
+    private static final String MESSAGE_TRANSFORMATION = "RSA/ECB/PKCS1Padding";
+    private static final String KEY_WRAP_TRANSFORMATION = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding";
+    private static final OAEPParameterSpec OAEP_SHA256 =
+            new OAEPParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT);
+
+    private final CryptoProperties properties;
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(properties.getRsaKeyBits());
+        return generator.generateKeyPair();
+    }
+
+    @Override
+    public String encrypt(String message, String publicKey) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(MESSAGE_TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey(publicKey));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(message.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public PrivateKey privateKey(String privateKey) throws GeneralSecurityException {
+        return KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey)));
+    }
+
+    @Override
+    public String decrypt(String ciphertext, PrivateKey privateKey) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(MESSAGE_TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, privateKey);
+        return new String(cipher.doFinal(Base64.getDecoder().decode(ciphertext)), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String wrapKey(SecretKey contentKey, String publicKey) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(KEY_WRAP_TRANSFORMATION);
+        cipher.init(Cipher.ENCRYPT_MODE, publicKey(publicKey), OAEP_SHA256);
+        return Base64.getEncoder().encodeToString(cipher.doFinal(contentKey.getEncoded()));
+    }
+
+    @Override
+    public SecretKey unwrapKey(String wrappedKey, String privateKey) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance(KEY_WRAP_TRANSFORMATION);
+        cipher.init(Cipher.DECRYPT_MODE, privateKey(privateKey), OAEP_SHA256);
+        return new SecretKeySpec(cipher.doFinal(Base64.getDecoder().decode(wrappedKey)), "AES");
+    }
+
+    private static PublicKey publicKey(String publicKey) throws GeneralSecurityException {
+        return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(publicKey)));
+    }
+}
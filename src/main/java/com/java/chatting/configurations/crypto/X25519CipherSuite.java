@@ -0,0 +1,135 @@
+package com.java.chatting.configurations.crypto;
+
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * ECIES over Curve25519: every encryption generates an ephemeral X25519 pair, agrees a secret with the
+ * recipient's key, derives an AES-256 key from it with HKDF-SHA256 and encrypts with AES-GCM. The output is
+ * {@code ephemeral public key (X.509) || iv || ciphertext with tag}.
+ * <p>
+ * Key generation and agreement take microseconds where RSA-2048 generation takes tens of milliseconds, and a
+ * stored key pair is about 120 Base64 characters instead of about 2000.
+ */
+@Component
+public class X25519CipherSuite implements CipherSuite {
+
+    public static final String ID = "x25519-v1";
+
+    private static final String ALGORITHM = "X25519";
+    // X.509 encoding of an X25519 public key: 12 bytes of algorithm header and the 32 byte key
+    static final int PUBLIC_KEY_BYTES = 44;
+    private static final int KEY_BYTES = 32;
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final byte[] INFO = ID.getBytes(StandardCharsets.US_ASCII);
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public KeyPair generateKeyPair() throws GeneralSecurityException {
+        return KeyPairGenerator.getInstance(ALGORITHM).generateKeyPair();
+    }
+
+    @Override
+    public String encrypt(String message, String publicKey) throws GeneralSecurityException {
+        return Base64.getEncoder().encodeToString(seal(message.getBytes(StandardCharsets.UTF_8), publicKey));
+    }
+
+    @Override
+    public PrivateKey privateKey(String privateKey) throws GeneralSecurityException {
+        return KeyFactory.getInstance(ALGORITHM).generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateKey)));
+    }
+
+    @Override
+    public String decrypt(String ciphertext, PrivateKey privateKey) throws GeneralSecurityException {
+        return new String(open(Base64.getDecoder().decode(ciphertext), privateKey), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String wrapKey(SecretKey contentKey, String publicKey) throws GeneralSecurityException {
+        return Base64.getEncoder().encodeToString(seal(contentKey.getEncoded(), publicKey));
+    }
+
+    @Override
+    public SecretKey unwrapKey(String wrappedKey, String privateKey) throws GeneralSecurityException {
+        return new SecretKeySpec(open(Base64.getDecoder().decode(wrappedKey), privateKey(privateKey)), "AES");
+    }
+
+    private static byte[] seal(byte[] plaintext, String publicKey) throws GeneralSecurityException {
+        KeyPair ephemeral = KeyPairGenerator.getInstance(ALGORITHM).generateKeyPair();
+        byte[] ephemeralPublic = ephemeral.getPublic().getEncoded();
+        SecretKey key = deriveKey(ephemeral.getPrivate(), publicKey(Base64.getDecoder().decode(publicKey)), ephemeralPublic);
+
+        byte[] iv = new byte[IV_BYTES];
+        SECURE_RANDOM.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+        byte[] encrypted = cipher.doFinal(plaintext);
+
+        byte[] output = new byte[PUBLIC_KEY_BYTES + IV_BYTES + encrypted.length];
+        System.arraycopy(ephemeralPublic, 0, output, 0, PUBLIC_KEY_BYTES);
+        System.arraycopy(iv, 0, output, PUBLIC_KEY_BYTES, IV_BYTES);
+        System.arraycopy(encrypted, 0, output, PUBLIC_KEY_BYTES + IV_BYTES, encrypted.length);
+        return output;
+    }
+
+    private static byte[] open(byte[] input, PrivateKey own) throws GeneralSecurityException {
+        if (input.length < PUBLIC_KEY_BYTES + IV_BYTES + TAG_BITS / 8) {
+            throw new GeneralSecurityException("Ciphertext too short");
+        }
+        byte[] ephemeralPublic = Arrays.copyOf(input, PUBLIC_KEY_BYTES);
+        SecretKey key = deriveKey(own, publicKey(ephemeralPublic), ephemeralPublic);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, input, PUBLIC_KEY_BYTES, IV_BYTES));
+        return cipher.doFinal(input, PUBLIC_KEY_BYTES + IV_BYTES, input.length - PUBLIC_KEY_BYTES - IV_BYTES);
+    }
+
+    // The ephemeral public key is the HKDF salt, binding the derived key to this exchange
+    private static SecretKey deriveKey(PrivateKey own, PublicKey other, byte[] ephemeralPublic) throws GeneralSecurityException {
+        KeyAgreement agreement = KeyAgreement.getInstance(ALGORITHM);
+        agreement.init(own);
+        agreement.doPhase(other, true);
+        byte[] shared = agreement.generateSecret();
+
+        return new SecretKeySpec(hkdf(ephemeralPublic, shared, INFO, KEY_BYTES), "AES");
+    }
+
+    // RFC 5869 with HMAC-SHA256; a single expand block is enough for one AES-256 key
+    private static byte[] hkdf(byte[] salt, byte[] inputKeyMaterial, byte[] info, int length) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(salt, "HmacSHA256"));
+        byte[] pseudoRandomKey = mac.doFinal(inputKeyMaterial);
+        mac.init(new SecretKeySpec(pseudoRandomKey, "HmacSHA256"));
+        mac.update(info);
+        mac.update((byte) 1);
+        return Arrays.copyOf(mac.doFinal(), length);
+    }
+
+    private static PublicKey publicKey(byte[] encoded) throws GeneralSecurityException {
+        return KeyFactory.getInstance(ALGORITHM).generatePublic(new X509EncodedKeySpec(encoded));
+    }
+}
@@ -0,0 +1,55 @@
+package com.java.chatting.configurations.feign;
+
+import feign.Client;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class FeignResilienceConfig {
+
+    // Breaker state, failure rate and call counts are published as resilience4j.circuitbreaker.* meters
+    @Bean
+    public CircuitBreakerRegistry feignCircuitBreakers(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public BulkheadRegistry feignBulkheads(MeterRegistry meterRegistry) {
+        BulkheadRegistry registry = BulkheadRegistry.ofDefaults();
+        TaggedBulkheadMetrics.ofBulkheadRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    // Shared by UserClient and RoomClient; timeouts come per request from Feign
+    @Bean
+    public OkHttpClient feignOkHttpClient(FeignTransportProperties properties) {
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(properties.getMaxIdleConnections(),
+                        properties.getKeepAliveSeconds(), TimeUnit.SECONDS))
+                .pingInterval(properties.getPingIntervalSeconds(), TimeUnit.SECONDS)
+                .build();
+    }
+
+    // Picked up by every @FeignClient in place of the default transport
+    @Bean
+    public Client feignClient(FeignResilienceProperties properties,
+                              FeignTransportProperties transportProperties,
+                              OkHttpClient feignOkHttpClient,
+                              CircuitBreakerRegistry feignCircuitBreakers,
+                              BulkheadRegistry feignBulkheads,
+                              MeterRegistry meterRegistry) {
+        return new ResilientFeignClient(new PooledFeignTransport(feignOkHttpClient, transportProperties, meterRegistry),
+                properties, feignCircuitBreakers, feignBulkheads, meterRegistry);
+    }
+}
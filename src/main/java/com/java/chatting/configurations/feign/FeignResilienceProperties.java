@@ -0,0 +1,45 @@
+package com.java.chatting.configurations.feign;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.feign")
+public class FeignResilienceProperties {
+    // Keyed by Feign client name (user, marketing). Clients not listed use the defaults, listed ones start from
+    // the built-in values below rather than from the defaults
+    private Map<String, ClientPolicy> clients = new HashMap<>();
+    private ClientPolicy defaults = new ClientPolicy();
+    // Last good user profiles, served while the user service fails or its breaker is open
+    private long profileFallbackTtlSeconds = 3600;
+    private long profileFallbackSize = 20000;
+
+    public ClientPolicy forClient(String name) {
+        return clients.getOrDefault(name, defaults);
+    }
+
+    @Getter
+    @Setter
+    public static class ClientPolicy {
+        // Calls in flight at once; further callers are rejected instead of queueing behind a slow service
+        private int maxConcurrentCalls = 20;
+        // The breaker opens when this percentage of the last sliding-window-size calls failed
+        private float failureRateThreshold = 50;
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 10;
+        private long openStateMillis = 10000;
+        private int halfOpenCalls = 3;
+        // Read timeout = percentile of recent latencies * multiplier, between min-timeout-millis and the
+        // spring.cloud.openfeign read timeout, which also applies until min-latency-samples calls were seen
+        private double timeoutPercentile = 0.99;
+        private double timeoutMultiplier = 3;
+        private long minTimeoutMillis = 250;
+        private int latencySamples = 200;
+        private int minLatencySamples = 20;
+    }
+}
@@ -0,0 +1,22 @@
+package com.java.chatting.configurations.feign;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.feign.transport")
+public class FeignTransportProperties {
+    // One pool shared by every Feign client; idle connections are kept this long before being closed
+    private int maxIdleConnections = 32;
+    private long keepAliveSeconds = 300;
+    // Feign client names whose service speaks cleartext HTTP/2 (h2c with prior knowledge). The others use
+    // HTTP/1.1 keep-alive, or h2 negotiated through ALPN when the URL is https
+    private List<String> h2cClients = new ArrayList<>();
+    // HTTP/2 ping interval, 0 disables pings
+    private long pingIntervalSeconds = 0;
+}
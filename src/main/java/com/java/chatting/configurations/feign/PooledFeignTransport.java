@@ -0,0 +1,126 @@
+package com.java.chatting.configurations.feign;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feign transport over one shared OkHttp connection pool. Every Feign client gets its own view of the shared
+ * client (same pool and dispatcher) whose event listener records, under the client name:
+ * <ul>
+ *     <li>{@code chatting.feign.connect}: TCP plus TLS setup of new connections</li>
+ *     <li>{@code chatting.feign.ttfb}: request headers sent until response headers received</li>
+ *     <li>{@code chatting.feign.connections}: connections acquired, tagged {@code reused} true or false</li>
+ *     <li>{@code chatting.feign.pool.in_use}: connections the client currently holds</li>
+ * </ul>
+ * plus {@code chatting.feign.pool.connections} for the idle and active connections of the whole pool.
+ */
+public class PooledFeignTransport implements Client {
+
+    private final OkHttpClient shared;
+    private final FeignTransportProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+
+    public PooledFeignTransport(OkHttpClient shared, FeignTransportProperties properties, MeterRegistry meterRegistry) {
+        this.shared = shared;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        ConnectionPool pool = shared.connectionPool();
+        Gauge.builder("chatting.feign.pool.connections", pool, ConnectionPool::idleConnectionCount)
+                .tag("state", "idle")
+                .register(meterRegistry);
+        Gauge.builder("chatting.feign.pool.connections", pool, p -> p.connectionCount() - p.idleConnectionCount())
+                .tag("state", "active")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        return clients.computeIfAbsent(ResilientFeignClient.clientName(request), this::newClient).execute(request, options);
+    }
+
+    private Client newClient(String name) {
+        Meters meters = new Meters(
+                Timer.builder("chatting.feign.connect").tag("client", name).register(meterRegistry),
+                Timer.builder("chatting.feign.ttfb").tag("client", name).register(meterRegistry),
+                Counter.builder("chatting.feign.connections").tag("client", name).tag("reused", "false").register(meterRegistry),
+                Counter.builder("chatting.feign.connections").tag("client", name).tag("reused", "true").register(meterRegistry),
+                new AtomicInteger());
+        Gauge.builder("chatting.feign.pool.in_use", meters.inUse, AtomicInteger::get)
+                .tag("client", name)
+                .register(meterRegistry);
+        OkHttpClient.Builder builder = shared.newBuilder().eventListenerFactory(call -> new MeteredListener(meters));
+        if (properties.getH2cClients().contains(name)) {
+            builder.protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        }
+        // feign-okhttp derives a client per call only when the options differ, sharing this one's pool
+        return new feign.okhttp.OkHttpClient(builder.build());
+    }
+
+    private record Meters(Timer connect, Timer timeToFirstByte, Counter newConnections, Counter reusedConnections,
+                          AtomicInteger inUse) {
+    }
+
+    // One instance per call, OkHttp invokes it from the calling thread
+    private static final class MeteredListener extends EventListener {
+
+        private final Meters meters;
+        private long connectStart = -1;
+        private long requestStart;
+
+        MeteredListener(Meters meters) {
+            this.meters = meters;
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+            connectStart = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress address, Proxy proxy, Protocol protocol) {
+            meters.connect.record(System.nanoTime() - connectStart, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            (connectStart < 0 ? meters.reusedConnections : meters.newConnections).increment();
+            meters.inUse.incrementAndGet();
+        }
+
+        @Override
+        public void connectionReleased(Call call, Connection connection) {
+            meters.inUse.decrementAndGet();
+        }
+
+        @Override
+        public void requestHeadersStart(Call call) {
+            requestStart = System.nanoTime();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            meters.timeToFirstByte.record(System.nanoTime() - requestStart, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.java.chatting.configurations.feign;
+
+import com.java.chatting.exception.DownstreamUnavailableException;
+import com.java.chatting.utils.LatencyWindow;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Feign transport that guards every client (by {@code @FeignClient} name) with a semaphore bulkhead, a circuit
+ * breaker and a read timeout derived from the latencies it recently observed. Rejected calls fail with
+ * {@link DownstreamUnavailableException} without touching the network, so a slow user service costs callers
+ * milliseconds instead of the full configured timeout.
+ * <p>
+ * 5xx responses and I/O errors, timeouts included, count as breaker failures; 4xx responses are successes.
+ * Timed out calls are recorded as latency samples too, which lets the timeout grow back when the service has
+ * legitimately become slower.
+ */
+@Slf4j
+public class ResilientFeignClient implements Client {
+
+    private final Client delegate;
+    private final FeignResilienceProperties properties;
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    public ResilientFeignClient(Client delegate,
+                                FeignResilienceProperties properties,
+                                CircuitBreakerRegistry circuitBreakers,
+                                BulkheadRegistry bulkheads,
+                                MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.properties = properties;
+        this.circuitBreakers = circuitBreakers;
+        this.bulkheads = bulkheads;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String name = clientName(request);
+        Guard guard = guards.computeIfAbsent(name, this::newGuard);
+        if (!guard.bulkhead.tryAcquirePermission()) {
+            guard.bulkheadFull.increment();
+            throw new DownstreamUnavailableException(name, "too many concurrent calls");
+        }
+        try {
+            if (!guard.circuitBreaker.tryAcquirePermission()) {
+                guard.circuitOpen.increment();
+                throw new DownstreamUnavailableException(name, "circuit breaker " + guard.circuitBreaker.getState());
+            }
+            long start = System.nanoTime();
+            try {
+                Response response = delegate.execute(request, guard.options(options));
+                long elapsed = System.nanoTime() - start;
+                guard.latencies.record(elapsed);
+                if (response.status() >= 500) {
+                    guard.circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS,
+                            new IOException(name + " answered " + response.status()));
+                    guard.serverErrors.record(elapsed, TimeUnit.NANOSECONDS);
+                } else {
+                    guard.circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+                    guard.successes.record(elapsed, TimeUnit.NANOSECONDS);
+                }
+                return response;
+            } catch (IOException | RuntimeException e) {
+                long elapsed = System.nanoTime() - start;
+                guard.latencies.record(elapsed);
+                guard.circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, e);
+                guard.failures.record(elapsed, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        } finally {
+            guard.bulkhead.onComplete();
+        }
+    }
+
+    /**
+     * @return the read timeout currently applied to the client, in milliseconds, or -1 before its first call
+     */
+    public long currentTimeoutMillis(String client) {
+        Guard guard = guards.get(client);
+        return guard == null ? -1 : guard.timeoutMillis.get();
+    }
+
+    static String clientName(Request request) {
+        if (request.requestTemplate() != null && request.requestTemplate().feignTarget() != null) {
+            return request.requestTemplate().feignTarget().name();
+        }
+        return URI.create(request.url()).getHost();
+    }
+
+    private Guard newGuard(String name) {
+        FeignResilienceProperties.ClientPolicy policy = properties.forClient(name);
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(name, CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(policy.getSlidingWindowSize())
+                .minimumNumberOfCalls(policy.getMinimumNumberOfCalls())
+                .failureRateThreshold(policy.getFailureRateThreshold())
+                .waitDurationInOpenState(Duration.ofMillis(policy.getOpenStateMillis()))
+                .permittedNumberOfCallsInHalfOpenState(policy.getHalfOpenCalls())
+                .build());
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Circuit breaker of {} went {}", name, event.getStateTransition()));
+        Bulkhead bulkhead = bulkheads.bulkhead(name, BulkheadConfig.custom()
+                .maxConcurrentCalls(policy.getMaxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        return new Guard(name, policy, circuitBreaker, bulkhead);
+    }
+
+    private final class Guard {
+
+        final FeignResilienceProperties.ClientPolicy policy;
+        final CircuitBreaker circuitBreaker;
+        final Bulkhead bulkhead;
+        final LatencyWindow latencies;
+        final AtomicLong timeoutMillis = new AtomicLong(-1);
+        final Timer successes;
+        final Timer serverErrors;
+        final Timer failures;
+        final Counter circuitOpen;
+        final Counter bulkheadFull;
+
+        Guard(String name, FeignResilienceProperties.ClientPolicy policy, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+            this.policy = policy;
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+            this.latencies = new LatencyWindow(policy.getLatencySamples(), policy.getTimeoutPercentile(), policy.getMinLatencySamples());
+            this.successes = calls(name, "success");
+            this.serverErrors = calls(name, "server_error");
+            this.failures = calls(name, "io_error");
+            this.circuitOpen = rejected(name, "circuit_open");
+            this.bulkheadFull = rejected(name, "bulkhead_full");
+            Gauge.builder("chatting.feign.timeout", timeoutMillis, AtomicLong::get)
+                    .baseUnit("milliseconds")
+                    .tag("client", name)
+                    .register(meterRegistry);
+        }
+
+        Request.Options options(Request.Options configured) {
+            long ceiling = configured.readTimeoutMillis();
+            long percentile = latencies.percentileNanos();
+            long timeout = ceiling;
+            if (percentile >= 0) {
+                long adaptive = (long) (TimeUnit.NANOSECONDS.toMillis(percentile) * policy.getTimeoutMultiplier());
+                timeout = Math.min(ceiling, Math.max(policy.getMinTimeoutMillis(), adaptive));
+            }
+            timeoutMillis.set(timeout);
+            return new Request.Options(configured.connectTimeoutMillis(), TimeUnit.MILLISECONDS,
+                    timeout, TimeUnit.MILLISECONDS, configured.isFollowRedirects());
+        }
+
+        private Timer calls(String name, String outcome) {
+            return Timer.builder("chatting.feign.calls").tag("client", name).tag("outcome", outcome).register(meterRegistry);
+        }
+
+        private Counter rejected(String name, String reason) {
+            return Counter.builder("chatting.feign.rejected").tag("client", name).tag("reason", reason).register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.java.chatting.configurations.firebase;
+
+import com.google.firebase.cloud.StorageClient;
+import com.java.chatting.services.AttachmentStore;
+import com.java.chatting.services.serviceIpml.FirebaseAttachmentStore;
+import com.java.chatting.services.serviceIpml.FirebaseStorageClient;
+import com.java.chatting.services.serviceIpml.LocalAttachmentStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executor;
+
+@Configuration
+public class AttachmentStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "chatting.upload", name = "store", havingValue = "firebase", matchIfMissing = true)
+    public FirebaseStorageClient firebaseStorageClient(StorageClient storageClient, UploadProperties properties,
+                                                       @Qualifier("uploadExecutor") Executor uploadExecutor,
+                                                       MeterRegistry meterRegistry) {
+        return new FirebaseStorageClient(storageClient, properties, uploadExecutor, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "chatting.upload", name = "store", havingValue = "firebase", matchIfMissing = true)
+    public AttachmentStore firebaseAttachmentStore(FirebaseStorageClient firebaseStorageClient,
+                                                   FirebaseProperties firebaseProperties) {
+        return new FirebaseAttachmentStore(firebaseStorageClient, firebaseProperties.getStorage().getBucket());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "chatting.upload", name = "store", havingValue = "local")
+    public LocalAttachmentStore localAttachmentStore(UploadProperties properties,
+                                                     @Qualifier("uploadExecutor") Executor uploadExecutor) {
+        return new LocalAttachmentStore(properties, uploadExecutor);
+    }
+}
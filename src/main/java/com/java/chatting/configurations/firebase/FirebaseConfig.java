@@ -5,6 +5,7 @@ import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import com.google.firebase.cloud.StorageClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -12,7 +13,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
+// Only Cloud Storage attachments need Firebase; a local attachment store runs without any cloud credentials
 @Configuration
+@ConditionalOnProperty(prefix = "chatting.upload", name = "store", havingValue = "firebase", matchIfMissing = true)
 public class FirebaseConfig {
     private final FirebaseProperties firebaseProperties;
 
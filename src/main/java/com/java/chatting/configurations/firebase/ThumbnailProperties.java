@@ -0,0 +1,22 @@
+package com.java.chatting.configurations.firebase;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.thumbnail")
+public class ThumbnailProperties {
+    private boolean enabled = true;
+    // Longest edge of each thumbnail, in pixels; sizes at least as large as the image itself are left out
+    private List<Integer> sizes = List.of(160, 480, 1080);
+    private float jpegQuality = 0.8f;
+    // Larger images are not decoded at all
+    private long maxPixels = 50_000_000L;
+    // Threads rendering thumbnails, 0 for one per core; when the queue is full the uploading request renders itself
+    private int threads = 0;
+    private int queueCapacity = 50;
+}
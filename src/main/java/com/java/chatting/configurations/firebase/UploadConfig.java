@@ -0,0 +1,43 @@
+package com.java.chatting.configurations.firebase;
+
+import com.java.chatting.configurations.security.AuthContextTaskDecorator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class UploadConfig {
+
+    // Bounded pool for uploads to storage; a full queue makes the request thread upload the file itself
+    @Bean
+    public ThreadPoolTaskExecutor uploadExecutor(UploadProperties properties, AuthContextTaskDecorator taskDecorator) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getIoThreads());
+        executor.setMaxPoolSize(properties.getIoThreads());
+        executor.setQueueCapacity(properties.getIoQueueCapacity());
+        executor.setThreadNamePrefix("upload-");
+        executor.setDaemon(true);
+        executor.setTaskDecorator(taskDecorator);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Bounded pool for CPU-bound thumbnail rendering; a full queue makes the uploading request thread render the
+    // image itself, which holds back uploaders instead of piling up decoded images
+    @Bean
+    public ThreadPoolTaskExecutor thumbnailExecutor(ThumbnailProperties properties) {
+        int threads = properties.getThreads() > 0
+                ? properties.getThreads()
+                : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(properties.getQueueCapacity());
+        executor.setThreadNamePrefix("thumbnail-");
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,43 @@
+package com.java.chatting.configurations.firebase;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.upload")
+public class UploadProperties {
+    // firebase: the Cloud Storage bucket of firebase.storage; local: a directory served by this service
+    private String store = "firebase";
+    // Size of each resumable upload request to Cloud Storage; rounded up to a multiple of 256 KB by the client
+    private DataSize chunkSize = DataSize.ofMegabytes(2);
+    // Read buffer between the multipart stream and the upload channel
+    private DataSize bufferSize = DataSize.ofKilobytes(64);
+    // Files of one request are uploaded concurrently; threads mostly wait on the network, so more than cores
+    private int maxFilesPerRequest = 10;
+    private int ioThreads = 16;
+    private int ioQueueCapacity = 100;
+    // Identical content is stored once; files no message refers to are deleted this long after their last upload
+    private boolean deduplicate = true;
+    private Duration orphanTtl = Duration.ofHours(24);
+    private Duration sweepInterval = Duration.ofHours(1);
+    private int sweepBatchSize = 200;
+    private Local local = new Local();
+
+    /**
+     * Files on the local disk, for self-hosted deployments and tests.
+     */
+    @Getter
+    @Setter
+    public static class Local {
+        private String root = "./data/attachments";
+        // URL the files are downloaded from: this service's download endpoint, or a proxy in front of it
+        private String publicUrl = "/chatting/api/v1/attachments/files";
+        // File names are unique and never rewritten, so clients and proxies may cache them for long
+        private Duration cacheMaxAge = Duration.ofDays(365);
+    }
+}
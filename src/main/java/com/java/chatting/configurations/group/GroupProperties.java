@@ -0,0 +1,15 @@
+package com.java.chatting.configurations.group;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.group")
+public class GroupProperties {
+    private int maxMembers = 256;
+    // Member lists are cached per group; changes made through this node invalidate them right away
+    private long membershipCacheTtlSeconds = 300;
+    private long membershipCacheSize = 10000;
+}
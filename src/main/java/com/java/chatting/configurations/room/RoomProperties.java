@@ -0,0 +1,14 @@
+package com.java.chatting.configurations.room;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.room")
+public class RoomProperties {
+    // Room post owners rarely change, listing pages resolve the same posts over and over
+    private long ownerCacheTtlSeconds = 600;
+    private long ownerCacheSize = 50000;
+}
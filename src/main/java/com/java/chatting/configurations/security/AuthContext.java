@@ -0,0 +1,108 @@
+package com.java.chatting.configurations.security;
+
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Credentials of the caller a piece of work runs for. Feign calls read it instead of the servlet request, so calls
+ * made from STOMP handler threads and executors are authenticated too.
+ * <p>
+ * It is opened at HTTP entry by {@link AuthContextFilter} and for every inbound STOMP message by
+ * {@link AuthContextChannelInterceptor}. Executors carry it over through {@link AuthContextTaskDecorator}, or
+ * {@link #wrap(Runnable)} for hand-made ones. Background jobs that act on behalf of no user open
+ * {@link #service()}, which calls out with the configured service token.
+ */
+public final class AuthContext {
+
+    private static final ThreadLocal<AuthContext> CURRENT = new ThreadLocal<>();
+    private static final AuthContext SERVICE = new AuthContext(null);
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    // Raw token without the Bearer prefix, null for the service context
+    private final String token;
+
+    private AuthContext(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @param authorization an Authorization header value, with or without the Bearer prefix
+     * @return the context of that token, or null if there is none
+     */
+    public static AuthContext ofAuthorization(String authorization) {
+        if (!StringUtils.hasText(authorization)) {
+            return null;
+        }
+        String token = authorization.trim();
+        if (token.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            token = token.substring(BEARER_PREFIX.length()).trim();
+        }
+        return token.isEmpty() ? null : new AuthContext(token);
+    }
+
+    public static AuthContext service() {
+        return SERVICE;
+    }
+
+    public boolean isService() {
+        return this == SERVICE;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * @return the context of the current thread, or null outside of any request, message or job
+     */
+    public static AuthContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Makes {@code context} current until the returned scope is closed, which restores the previous one.
+     */
+    public static Scope open(AuthContext context) {
+        AuthContext previous = CURRENT.get();
+        set(context);
+        return () -> set(previous);
+    }
+
+    public static Runnable wrap(Runnable task) {
+        AuthContext captured = current();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = open(captured)) {
+                task.run();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        AuthContext captured = current();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = open(captured)) {
+                return task.call();
+            }
+        };
+    }
+
+    static void set(AuthContext context) {
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
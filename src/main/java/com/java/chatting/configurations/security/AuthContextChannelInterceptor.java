@@ -0,0 +1,50 @@
+package com.java.chatting.configurations.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Keeps the Authorization header of the STOMP CONNECT frame in the session attributes and opens it as the
+ * {@link AuthContext} on the inbound channel thread while each message of the session is handled.
+ */
+@Component
+public class AuthContextChannelInterceptor implements ExecutorChannelInterceptor {
+
+    static final String AUTH_CONTEXT_ATTRIBUTE = AuthContext.class.getName();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.CONNECT) {
+            Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+            AuthContext context = AuthContext.ofAuthorization(
+                    StompHeaderAccessor.wrap(message).getFirstNativeHeader(HttpHeaders.AUTHORIZATION));
+            if (attributes != null && context != null) {
+                attributes.put(AUTH_CONTEXT_ATTRIBUTE, context);
+            }
+        }
+        return message;
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        if (attributes != null && attributes.get(AUTH_CONTEXT_ATTRIBUTE) instanceof AuthContext context) {
+            AuthContext.set(context);
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        AuthContext.set(null);
+    }
+}
@@ -0,0 +1,31 @@
+package com.java.chatting.configurations.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Opens the {@link AuthContext} of the Authorization header for the duration of an HTTP request.
+ */
+@Component
+public class AuthContextFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AuthContext context = AuthContext.ofAuthorization(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (context == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (AuthContext.Scope ignored = AuthContext.open(context)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.java.chatting.configurations.security;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs tasks with the {@link AuthContext} of the thread that submitted them. Spring Boot applies it to the task
+ * executors it builds; executors created by hand should be given it, or use {@link AuthContext#wrap(Runnable)}.
+ */
+@Component
+public class AuthContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return AuthContext.wrap(runnable);
+    }
+}
@@ -0,0 +1,13 @@
+package com.java.chatting.configurations.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.auth")
+public class AuthProperties {
+    // Bearer token sent by calls made under AuthContext.service(), i.e. by jobs acting for no user
+    private String serviceToken = "";
+}
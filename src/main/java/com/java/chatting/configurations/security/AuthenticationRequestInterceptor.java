@@ -2,48 +2,42 @@ package com.java.chatting.configurations.security;
 
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.StringUtils;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
 /**
- * AuthenticationRequestInterceptor is a Feign RequestInterceptor that retrieves
- * the current request's Authorization header and passes it along in the Feign request.
- * This ensures the token-based authentication is propagated in downstream requests.
+ * AuthenticationRequestInterceptor is a Feign RequestInterceptor that authenticates downstream requests
+ * with the {@link AuthContext} of the current thread: the caller's token for HTTP requests, STOMP messages
+ * and tasks they submitted, the service token for jobs running under {@link AuthContext#service()}.
  */
 @Slf4j
+@RequiredArgsConstructor
 public class AuthenticationRequestInterceptor implements RequestInterceptor {
 
+    private final AuthProperties authProperties;
+
     /**
-     * Intercepts the Feign request to inject the Authorization header from the current HTTP request.
+     * Adds the Authorization header of the current auth context, unless the request already carries one.
      *
      * @param requestTemplate The Feign request template to which the Authorization header will be added.
      */
     @Override
     public void apply(RequestTemplate requestTemplate) {
-        // Retrieve current request attributes
-        ServletRequestAttributes servletRequestAttributes =
-                (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-
-        // Ensure the servletRequestAttributes is not null
-        if (servletRequestAttributes != null) {
-            String authHeader = servletRequestAttributes.getRequest().getHeader("Authorization");
-
-            // Log the extracted header for debugging purposes
-            log.info("Authorization Header: {}", authHeader);
-
-            if (StringUtils.hasText(authHeader)) {
-                // Strip 'Bearer ' prefix if it exists
-                if (authHeader.startsWith("Bearer ")) {
-                    authHeader = authHeader.substring(7);
-                    log.info("Authorization Header final: {}", authHeader);
-
-                }
-
-                // Add 'Bearer ' prefix to the token before sending it in the Feign request
-                requestTemplate.header("Authorization", "Bearer " + authHeader);
-            }
+        if (requestTemplate.headers().containsKey(HttpHeaders.AUTHORIZATION)) {
+            return;
+        }
+        AuthContext context = AuthContext.current();
+        if (context == null) {
+            log.debug("No auth context for {} {}, calling unauthenticated", requestTemplate.method(), requestTemplate.url());
+            return;
+        }
+        String token = context.isService() ? authProperties.getServiceToken() : context.getToken();
+        if (!StringUtils.hasText(token)) {
+            log.warn("No service token configured (chatting.auth.service-token), calling {} unauthenticated", requestTemplate.url());
+            return;
         }
+        requestTemplate.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
     }
 }
@@ -1,47 +1,208 @@
 package com.java.chatting.configurations.security;
 
-import com.java.chatting.exception.AppException;
-import com.java.chatting.exception.ErrorCode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jose.crypto.factories.DefaultJWSVerifierFactory;
+import com.nimbusds.jose.jwk.AsymmetricJWK;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetSequenceKey;
+import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
-
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * CustomJwtDecoder is a custom implementation of the JwtDecoder interface.
- * It is responsible for parsing and decoding JWT tokens and extracting their claims.
+ * It verifies the signature of JWT tokens against the configured keys (chatting.jwt) and extracts their claims.
+ * <p>
+ * Verified tokens are cached by the SHA-256 of the token until they expire, so a client sending the same token
+ * on every request pays for parsing and verification once. Parse and verify times are published as
+ * {@code chatting.jwt.decode} (stage parse or verify), cache hits and misses as {@code chatting.jwt.cache}.
  */
+@Slf4j
 @Component
 public class CustomJwtDecoder implements JwtDecoder {
 
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private final JWSVerifier macVerifier;
+    private final JWKSet jwkSet;
+    private final Duration clockSkew;
+    private final DefaultJWSVerifierFactory verifierFactory = new DefaultJWSVerifierFactory();
+    private final Cache<String, Jwt> verified;
+    private final Timer parseTimer;
+    private final Timer verifyTimer;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public CustomJwtDecoder(JwtProperties properties, ResourceLoader resourceLoader, MeterRegistry meterRegistry)
+            throws IOException, ParseException, JOSEException {
+        if (StringUtils.hasText(properties.getSignerKey())) {
+            byte[] secret = properties.getSignerKey().getBytes(StandardCharsets.UTF_8);
+            if (secret.length < MIN_SECRET_BYTES) {
+                throw new IllegalStateException("chatting.jwt.signer-key must be at least 256 bits (32 bytes) for HS256, got "
+                        + secret.length * 8 + " bits");
+            }
+            this.macVerifier = new MACVerifier(secret);
+        } else {
+            this.macVerifier = null;
+        }
+        if (StringUtils.hasText(properties.getJwksLocation())) {
+            try (InputStream in = resourceLoader.getResource(properties.getJwksLocation()).getInputStream()) {
+                this.jwkSet = JWKSet.load(in);
+            }
+        } else {
+            this.jwkSet = null;
+        }
+        if (macVerifier == null && jwkSet == null) {
+            throw new IllegalStateException("No JWT verification key, set chatting.jwt.signer-key or chatting.jwt.jwks-location");
+        }
+        this.clockSkew = Duration.ofSeconds(properties.getClockSkewSeconds());
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String key, Jwt jwt, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), jwt.getExpiresAt().plus(clockSkew)).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.parseTimer = Timer.builder("chatting.jwt.decode").tag("stage", "parse").register(meterRegistry);
+        this.verifyTimer = Timer.builder("chatting.jwt.decode").tag("stage", "verify").register(meterRegistry);
+        this.cacheHits = Counter.builder("chatting.jwt.cache").tag("result", "hit").register(meterRegistry);
+        this.cacheMisses = Counter.builder("chatting.jwt.cache").tag("result", "miss").register(meterRegistry);
+    }
+
     /**
-     * Decodes a JWT token by parsing it into a SignedJWT and extracting claims from it.
+     * Decodes a JWT token, verifying its signature and expiry unless the same token was verified before.
      *
      * @param token the JWT token as a string
      * @return Jwt a decoded Jwt object containing the token's claims and metadata
-     * @throws JwtException if the token is invalid or cannot be parsed
+     * @throws JwtException if the token is invalid, badly signed or expired
      */
     @Override
     public Jwt decode(String token) throws JwtException {
+        String key = hash(token);
+        Jwt cached = verified.getIfPresent(key);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+
+        long start = System.nanoTime();
+        SignedJWT signedJWT;
+        JWTClaimsSet claims;
         try {
             // Parse the token into a SignedJWT object to extract claims
-            SignedJWT signedJWT = SignedJWT.parse(token);
-
-            // Return a Jwt object containing the token, issue time, expiration time, header, and claims
-            return new Jwt(
-                    token,
-                    signedJWT.getJWTClaimsSet().getIssueTime().toInstant(),
-                    signedJWT.getJWTClaimsSet().getExpirationTime().toInstant(),
-                    signedJWT.getHeader().toJSONObject(),
-                    signedJWT.getJWTClaimsSet().getClaims()
-            );
+            signedJWT = SignedJWT.parse(token);
+            claims = signedJWT.getJWTClaimsSet();
         } catch (ParseException e) {
-            // Throw a JwtException if the token is invalid or cannot be parsed
-            throw new AppException(ErrorCode.INVALID_TOKEN);
+            throw new BadJwtException("Malformed token", e);
+        } finally {
+            parseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        start = System.nanoTime();
+        try {
+            if (!verifySignature(signedJWT)) {
+                throw new BadJwtException("Invalid token signature");
+            }
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        Instant now = Instant.now();
+        if (claims.getExpirationTime() == null || claims.getExpirationTime().toInstant().plus(clockSkew).isBefore(now)) {
+            throw new BadJwtException("Token has expired");
+        }
+        if (claims.getNotBeforeTime() != null && claims.getNotBeforeTime().toInstant().minus(clockSkew).isAfter(now)) {
+            throw new BadJwtException("Token is not valid yet");
+        }
+
+        // Return a Jwt object containing the token, issue time, expiration time, header, and claims
+        Jwt jwt = new Jwt(
+                token,
+                claims.getIssueTime() == null ? null : claims.getIssueTime().toInstant(),
+                claims.getExpirationTime().toInstant(),
+                signedJWT.getHeader().toJSONObject(),
+                claims.getClaims()
+        );
+        verified.put(key, jwt);
+        return jwt;
+    }
+
+    private boolean verifySignature(SignedJWT signedJWT) {
+        JWSHeader header = signedJWT.getHeader();
+        try {
+            if (macVerifier != null && macVerifier.supportedJWSAlgorithms().contains(header.getAlgorithm())) {
+                return signedJWT.verify(macVerifier);
+            }
+            if (jwkSet == null) {
+                return false;
+            }
+            List<JWK> candidates = new JWKSelector(JWKMatcher.forJWSHeader(header)).select(jwkSet);
+            for (JWK jwk : candidates) {
+                Key verificationKey = jwk instanceof AsymmetricJWK asymmetric
+                        ? asymmetric.toPublicKey()
+                        : ((OctetSequenceKey) jwk).toSecretKey();
+                if (signedJWT.verify(verifierFactory.createJWSVerifier(header, verificationKey))) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (JOSEException | ClassCastException e) {
+            log.debug("Could not verify token signed with {}: {}", header.getAlgorithm(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
         }
     }
 }
@@ -1,38 +1,16 @@
 package com.java.chatting.configurations.security;
 
 import com.java.chatting.exception.CustomErrorDecoder;
-import feign.RequestInterceptor;
 import feign.codec.ErrorDecoder;
-import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.context.request.RequestContextHolder;
-import org.springframework.web.context.request.ServletRequestAttributes;
 
+// The Authorization header is added per client by AuthenticationRequestInterceptor, from the AuthContext
 @Configuration
 public class FeignClientConfig {
 
-    @Bean
-    public RequestInterceptor requestInterceptor() {
-        return requestTemplate -> {
-            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-            if (attributes != null) {
-                HttpServletRequest request = attributes.getRequest();
-                // Get Authorization header from current request
-                String token = request.getHeader("Authorization");
-                if (token != null) {
-                    // Add token to Feign request
-                    requestTemplate.header("Authorization", token);
-                }
-            }
-        };
-    }
-
     @Bean
     public ErrorDecoder errorDecoder() {
         return new CustomErrorDecoder();
     }
 }
-
-
-
@@ -0,0 +1,22 @@
+package com.java.chatting.configurations.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.jwt")
+public class JwtProperties {
+    // HMAC secret shared with the identity service (HS256/384/512), and/or a JWKS file (file: or classpath:)
+    // with its public keys. At least one is required
+    private String signerKey = "";
+    private String jwksLocation = "";
+    // Verified tokens are cached until they expire
+    private long cacheSize = 50000;
+    private long clockSkewSeconds = 30;
+    // Claims read into the STOMP principal; when the user id claim is missing a numeric sub is used, otherwise
+    // the user service is asked once per connection
+    private String userIdClaim = "userId";
+    private String rolesClaim = "scope";
+}
@@ -26,9 +26,12 @@ public class SecurityConfig {
     // Array of public endpoints that can be accessed without authentication
     private static final String[] PUBLIC_ENDPOINTS = {
             "/ws/**",
+            "/ws-native/**",
             "/users/get-by-id/**",
             "/swagger-ui/**",
             "/api-docs/**",
+            // attachments of the local store, public like Cloud Storage download URLs
+            "/api/v1/attachments/files/**",
     };
 
     // Custom JWT decoder for handling token validation and extraction
@@ -60,7 +63,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.POST, PUBLIC_ENDPOINTS).permitAll()
                         .requestMatchers(HttpMethod.PUT, PUBLIC_ENDPOINTS).permitAll()
                         .requestMatchers(HttpMethod.DELETE, PUBLIC_ENDPOINTS).permitAll()
-                        .requestMatchers("/ws/**").permitAll()
+                        .requestMatchers("/ws/**", "/ws-native/**").permitAll()
                         // Require authentication for all other requests
                         .anyRequest().authenticated())
                 // Configures OAuth2 JWT-based authentication
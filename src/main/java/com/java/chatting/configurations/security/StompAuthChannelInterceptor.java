@@ -0,0 +1,132 @@
+package com.java.chatting.configurations.security;
+
+import com.java.chatting.configurations.socket.SocketProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Authenticates a STOMP session once, on its CONNECT frame, and attaches a {@link StompPrincipal} that Spring
+ * hands to every later frame of the session. SEND and SUBSCRIBE are then authorized from that principal alone:
+ * <ul>
+ *     <li>SEND only to application destinations ({@code /app/...}), never straight to the broker</li>
+ *     <li>SUBSCRIBE to {@code /user/...}; to a broker queue only if it belongs to this session; to the legacy
+ *     conversation topics only when the user is one of the pair, to the legacy per-user topics (presence, message
+ *     status) only when they are the user's own; every other topic is refused</li>
+ * </ul>
+ * With {@code chatting.socket.require-authentication} off, sessions without a token are still accepted, for
+ * clients that predate it, but a token that is sent has to be valid.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private static final String APPLICATION_PREFIX = "/app/";
+    private static final Pattern PAIR_TOPIC = Pattern.compile("^/topic/(?:private-chat|typing)-(\\d+)-(\\d+)$");
+    private static final Pattern OWNER_TOPIC = Pattern.compile("^/topic/(?:message-status|presence)-(\\d+)$");
+
+    private final JwtDecoder jwtDecoder;
+    private final SocketProperties socketProperties;
+    private final UserPrincipalResolver principalResolver;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getMessageType() == null) {
+            return message;
+        }
+        switch (accessor.getMessageType()) {
+            case CONNECT -> connect(accessor);
+            case MESSAGE -> authorizeSend(accessor);
+            case SUBSCRIBE -> authorizeSubscribe(accessor);
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private void connect(StompHeaderAccessor accessor) {
+        AuthContext context = AuthContext.ofAuthorization(accessor.getFirstNativeHeader(HttpHeaders.AUTHORIZATION));
+        if (context == null) {
+            if (socketProperties.isRequireAuthentication()) {
+                throw new AccessDeniedException("CONNECT without a bearer token");
+            }
+            return;
+        }
+        Jwt jwt;
+        try {
+            jwt = jwtDecoder.decode(context.getToken());
+        } catch (JwtException e) {
+            throw new AccessDeniedException("Invalid token", e);
+        }
+        StompPrincipal principal = principalResolver.resolve(jwt, context);
+        accessor.setUser(principal);
+        log.debug("STOMP session {} authenticated as {}", accessor.getSessionId(), principal);
+    }
+
+    private void authorizeSend(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(APPLICATION_PREFIX)) {
+            throw new AccessDeniedException("SEND is only allowed to " + APPLICATION_PREFIX + "...");
+        }
+        principalOf(accessor);
+    }
+
+    private void authorizeSubscribe(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            throw new AccessDeniedException("SUBSCRIBE without destination");
+        }
+        if (destination.startsWith("/queue/")) {
+            // Translated user queues end with -user<sessionId>; only the owning session may read them
+            if (!destination.endsWith("-user" + accessor.getSessionId())) {
+                throw new AccessDeniedException("Queue " + destination + " belongs to another session");
+            }
+            return;
+        }
+        if (!destination.startsWith("/topic/")) {
+            return;
+        }
+        StompPrincipal principal = principalOf(accessor);
+        Matcher pair = PAIR_TOPIC.matcher(destination);
+        Matcher owner = OWNER_TOPIC.matcher(destination);
+        if (!pair.matches() && !owner.matches()) {
+            throw new AccessDeniedException("Unknown topic " + destination);
+        }
+        if (principal == null) {
+            return;
+        }
+        String userId = String.valueOf(principal.getUserId());
+        if (pair.matches() && !userId.equals(pair.group(1)) && !userId.equals(pair.group(2))) {
+            throw new AccessDeniedException("Not a participant of " + destination);
+        }
+        if (owner.matches() && !userId.equals(owner.group(1))) {
+            throw new AccessDeniedException("Topic " + destination + " belongs to another user");
+        }
+    }
+
+    // Null only for anonymous sessions, which exist when authentication is not required
+    private StompPrincipal principalOf(StompHeaderAccessor accessor) {
+        if (accessor.getUser() instanceof StompPrincipal principal) {
+            return principal;
+        }
+        if (socketProperties.isRequireAuthentication()) {
+            throw new AccessDeniedException("Session is not authenticated");
+        }
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.java.chatting.configurations.security;
+
+import java.security.Principal;
+import java.util.Set;
+
+/**
+ * User of a STOMP session, resolved once from the token of its CONNECT frame and attached to every later frame
+ * of the session by Spring. Immutable, so it can be read from any thread without further checks.
+ */
+public final class StompPrincipal implements Principal {
+
+    private final int userId;
+    private final Set<String> roles;
+
+    public StompPrincipal(int userId, Set<String> roles) {
+        this.userId = userId;
+        this.roles = Set.copyOf(roles);
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    /**
+     * @return the user of an authenticated STOMP session, or {@code claimed} (taken from the payload) for anonymous
+     * sessions, which exist only while authentication is not required. REST variants of the socket endpoints pass
+     * the principal {@link UserPrincipalResolver#of} resolves from their token.
+     */
+    public static int userIdOr(Principal principal, int claimed) {
+        return principal instanceof StompPrincipal stompPrincipal ? stompPrincipal.userId : claimed;
+    }
+
+    @Override
+    public String getName() {
+        return String.valueOf(userId);
+    }
+
+    @Override
+    public String toString() {
+        return "StompPrincipal{userId=" + userId + ", roles=" + roles + "}";
+    }
+}
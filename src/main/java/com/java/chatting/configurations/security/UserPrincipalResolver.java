@@ -0,0 +1,93 @@
+package com.java.chatting.configurations.security;
+
+import com.java.chatting.repositories.UserRepository;
+import com.java.chatting.repositories.clients.dto.response.UserResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Turns a verified token into the {@link StompPrincipal} of its user, for STOMP sessions on CONNECT and for the REST
+ * variants of the socket endpoints, so both take the sender from the token and never from the payload.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserPrincipalResolver {
+
+    private final JwtProperties jwtProperties;
+    private final UserRepository userRepository;
+
+    public StompPrincipal resolve(Jwt jwt, AuthContext context) {
+        return new StompPrincipal(userIdOf(jwt, context), rolesOf(jwt));
+    }
+
+    /**
+     * @return the principal of an authenticated STOMP session or HTTP request
+     * @throws AccessDeniedException for anything else
+     */
+    public StompPrincipal of(Principal principal) {
+        if (principal instanceof StompPrincipal stompPrincipal) {
+            return stompPrincipal;
+        }
+        if (principal instanceof JwtAuthenticationToken authentication) {
+            Jwt jwt = authentication.getToken();
+            return resolve(jwt, AuthContext.ofAuthorization(jwt.getTokenValue()));
+        }
+        throw new AccessDeniedException("Not authenticated");
+    }
+
+    private int userIdOf(Jwt jwt, AuthContext context) {
+        Integer userId = numeric(jwt.getClaims().get(jwtProperties.getUserIdClaim()));
+        if (userId == null) {
+            userId = numeric(jwt.getSubject());
+        }
+        if (userId != null) {
+            return userId;
+        }
+        // Tokens that identify the user by email only: ask the user service, once per connection or REST call
+        try (AuthContext.Scope ignored = AuthContext.open(context)) {
+            UserResponse me = userRepository.getMyInfo();
+            if (me == null) {
+                throw new AccessDeniedException("Unknown user");
+            }
+            return me.getId();
+        }
+    }
+
+    private Set<String> rolesOf(Jwt jwt) {
+        Object claim = jwt.getClaims().get(jwtProperties.getRolesClaim());
+        Set<String> roles = new HashSet<>();
+        if (claim instanceof String value) {
+            for (String role : value.split(" ")) {
+                if (StringUtils.hasText(role)) {
+                    roles.add(role);
+                }
+            }
+        } else if (claim instanceof Collection<?> values) {
+            values.forEach(role -> roles.add(String.valueOf(role)));
+        }
+        return roles;
+    }
+
+    private static Integer numeric(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Integer.parseInt(text.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
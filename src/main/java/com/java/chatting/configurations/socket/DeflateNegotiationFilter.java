@@ -0,0 +1,82 @@
+package com.java.chatting.configurations.socket;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Applies the permessage-deflate settings of the native endpoint. Tomcat negotiates the extension from the
+ * client's {@code Sec-WebSocket-Extensions} offer on its own, so the offer is rewritten before the upgrade:
+ * dropped when deflate is off, otherwise extended with the configured context takeover parameters.
+ */
+public class DeflateNegotiationFilter extends OncePerRequestFilter {
+
+    static final String EXTENSIONS_HEADER = "Sec-WebSocket-Extensions";
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final SocketProperties.NativeEndpoint properties;
+
+    public DeflateNegotiationFilter(SocketProperties.NativeEndpoint properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Enumeration<String> offers = request.getHeaders(EXTENSIONS_HEADER);
+        if (offers == null || !offers.hasMoreElements()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        List<String> rewritten = new ArrayList<>();
+        while (offers.hasMoreElements()) {
+            for (String offer : offers.nextElement().split(",")) {
+                String extension = rewrite(offer.trim());
+                if (extension != null) {
+                    rewritten.add(extension);
+                }
+            }
+        }
+        filterChain.doFilter(new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+                return EXTENSIONS_HEADER.equalsIgnoreCase(name)
+                        ? (rewritten.isEmpty() ? null : String.join(", ", rewritten))
+                        : super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                return EXTENSIONS_HEADER.equalsIgnoreCase(name)
+                        ? Collections.enumeration(rewritten)
+                        : super.getHeaders(name);
+            }
+        }, response);
+    }
+
+    private String rewrite(String offer) {
+        if (!offer.regionMatches(true, 0, PERMESSAGE_DEFLATE, 0, PERMESSAGE_DEFLATE.length())) {
+            return offer;
+        }
+        if (!properties.isDeflate()) {
+            return null;
+        }
+        StringBuilder extension = new StringBuilder(offer);
+        if (properties.isServerNoContextTakeover() && !offer.contains("server_no_context_takeover")) {
+            extension.append("; server_no_context_takeover");
+        }
+        if (properties.isClientNoContextTakeover() && !offer.contains("client_no_context_takeover")) {
+            extension.append("; client_no_context_takeover");
+        }
+        return extension.toString();
+    }
+}
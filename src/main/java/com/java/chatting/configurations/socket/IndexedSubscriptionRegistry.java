@@ -0,0 +1,120 @@
+package com.java.chatting.configurations.socket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.util.*;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Subscription registry for the simple broker that resolves literal destinations, including the per-session
+ * user queues ({@code /queue/chat-user{sessionId}}), with one hash lookup. The default registry matches
+ * every destination that misses its small cache against all subscriptions with an {@link AntPathMatcher};
+ * here path matching only happens if a client really subscribed with a pattern.
+ * <p>
+ * Lookups are lock-free reads of immutable snapshots, changes to subscriptions are serialized.
+ * Selector headers are not supported.
+ */
+public class IndexedSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final MultiValueMap<String, String> NO_SUBSCRIPTIONS =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+    // destination -> (session id -> subscription ids)
+    private final Map<String, MultiValueMap<String, String>> subscribersByDestination = new ConcurrentHashMap<>();
+    // session id -> (subscription id -> destination), used for unsubscribe and disconnect
+    private final Map<String, Map<String, String>> destinationsBySession = new ConcurrentHashMap<>();
+    private final List<PatternSubscription> patternSubscriptions = new CopyOnWriteArrayList<>();
+
+    @Override
+    protected synchronized void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        String previous = destinationsBySession.computeIfAbsent(sessionId, id -> new HashMap<>()).put(subscriptionId, destination);
+        if (previous != null) {
+            remove(sessionId, subscriptionId, previous);
+        }
+        if (pathMatcher.isPattern(destination)) {
+            patternSubscriptions.add(new PatternSubscription(sessionId, subscriptionId, destination));
+            return;
+        }
+        MultiValueMap<String, String> updated = copy(subscribersByDestination.get(destination));
+        updated.add(sessionId, subscriptionId);
+        subscribersByDestination.put(destination, CollectionUtils.unmodifiableMultiValueMap(updated));
+    }
+
+    @Override
+    protected synchronized void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = destinationsBySession.get(sessionId);
+        if (subscriptions == null) {
+            return;
+        }
+        String destination = subscriptions.remove(subscriptionId);
+        if (subscriptions.isEmpty()) {
+            destinationsBySession.remove(sessionId);
+        }
+        if (destination != null) {
+            remove(sessionId, subscriptionId, destination);
+        }
+    }
+
+    @Override
+    public synchronized void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = destinationsBySession.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) -> remove(sessionId, subscriptionId, destination));
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        MultiValueMap<String, String> exact = subscribersByDestination.get(destination);
+        if (patternSubscriptions.isEmpty()) {
+            return exact != null ? exact : NO_SUBSCRIPTIONS;
+        }
+        MultiValueMap<String, String> result = copy(exact);
+        for (PatternSubscription subscription : patternSubscriptions) {
+            if (pathMatcher.match(subscription.pattern(), destination)) {
+                result.add(subscription.sessionId(), subscription.subscriptionId());
+            }
+        }
+        return result;
+    }
+
+    private void remove(String sessionId, String subscriptionId, String destination) {
+        if (pathMatcher.isPattern(destination)) {
+            patternSubscriptions.removeIf(subscription ->
+                    subscription.sessionId().equals(sessionId) && subscription.subscriptionId().equals(subscriptionId));
+            return;
+        }
+        MultiValueMap<String, String> current = subscribersByDestination.get(destination);
+        if (current == null) {
+            return;
+        }
+        MultiValueMap<String, String> updated = copy(current);
+        List<String> ids = updated.get(sessionId);
+        if (ids != null) {
+            ids.remove(subscriptionId);
+            if (ids.isEmpty()) {
+                updated.remove(sessionId);
+            }
+        }
+        if (updated.isEmpty()) {
+            subscribersByDestination.remove(destination);
+        } else {
+            subscribersByDestination.put(destination, CollectionUtils.unmodifiableMultiValueMap(updated));
+        }
+    }
+
+    private static MultiValueMap<String, String> copy(MultiValueMap<String, String> source) {
+        LinkedMultiValueMap<String, String> copy = new LinkedMultiValueMap<>();
+        if (source != null) {
+            source.forEach((sessionId, ids) -> copy.put(sessionId, new ArrayList<>(ids)));
+        }
+        return copy;
+    }
+
+    private record PatternSubscription(String sessionId, String subscriptionId, String pattern) {
+    }
+}
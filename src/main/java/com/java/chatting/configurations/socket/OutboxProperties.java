@@ -0,0 +1,16 @@
+package com.java.chatting.configurations.socket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.outbox")
+public class OutboxProperties {
+    private boolean enabled = true;
+    // Oldest events are dropped beyond this many per user
+    private int maxEventsPerUser = 1000;
+    // Events per replay frame, the next batch follows the acknowledgement of the previous one
+    private int replayBatchSize = 200;
+}
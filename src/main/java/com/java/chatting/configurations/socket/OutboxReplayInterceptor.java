@@ -0,0 +1,77 @@
+package com.java.chatting.configurations.socket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.constants.SocketDestination;
+import com.java.chatting.dto.response.OutboxBatchResponse;
+import com.java.chatting.services.OutboxService;
+import com.java.chatting.utils.EncodedPayload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.user.UserDestinationMessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Replays the outbox of a user in one frame as soon as one of its sessions subscribes to
+ * {@code /user/queue/outbox}.
+ * <p>
+ * {@code SessionSubscribeEvent} is published while the SUBSCRIBE frame is still queued on the inbound
+ * channel, so a replay sent from there can reach the broker before the subscription does. This hooks the
+ * point where the user destination handler has registered the subscription instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxReplayInterceptor implements ExecutorChannelInterceptor {
+
+    private static final String OUTBOX_SUBSCRIPTION = "/user" + SocketDestination.OUTBOX.getUserQueue();
+
+    private final OutboxService outboxService;
+    private final OutboxProperties properties;
+    private final StompSessionRegistry sessionRegistry;
+    private final ObjectMapper objectMapper;
+    // Resolved lazily, the template is built from the broker configuration this interceptor is part of
+    private final ObjectProvider<SimpMessageSendingOperations> messagingTemplate;
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null || !properties.isEnabled() || !(handler instanceof UserDestinationMessageHandler)) {
+            return;
+        }
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.SUBSCRIBE
+                || !OUTBOX_SUBSCRIPTION.equals(SimpMessageHeaderAccessor.getDestination(message.getHeaders()))) {
+            return;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        int userId = sessionRegistry.userOf(sessionId);
+        if (userId >= 0) {
+            replay(sessionId, userId);
+        }
+    }
+
+    /**
+     * Sends the next batch of pending events to one session.
+     */
+    public void replay(String sessionId, int userId) {
+        try {
+            OutboxBatchResponse batch = outboxService.pending(userId);
+            if (batch.getEvents().isEmpty()) {
+                return;
+            }
+            EncodedPayload payload = EncodedPayload.of(objectMapper, batch);
+            messagingTemplate.getObject().send(SocketDestination.ofSession(SocketDestination.OUTBOX.getUserQueue(), sessionId), payload.toMessage());
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize outbox of user {}", userId, e);
+        } catch (Exception e) {
+            log.error("Failed to replay outbox of user {}", userId, e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.java.chatting.configurations.socket;
+
+import com.java.chatting.configurations.security.StompPrincipal;
+import com.java.chatting.services.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Treats every inbound frame of a bound session, STOMP heartbeats included, as a presence heartbeat. Sessions are
+ * bound to the user of their {@link StompPrincipal} on CONNECT.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceChannelInterceptor implements ChannelInterceptor {
+
+    static final String USER_ID_HEADER = "userId";
+
+    private final StompSessionRegistry sessionRegistry;
+    private final PresenceService presenceService;
+    private final SocketProperties socketProperties;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId == null) {
+            return message;
+        }
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        if (type == SimpMessageType.CONNECT) {
+            if (SimpMessageHeaderAccessor.getUser(message.getHeaders()) instanceof StompPrincipal principal) {
+                bind(sessionId, principal.getUserId());
+                return message;
+            }
+            // Sessions without a token only exist while authentication is not required
+            String userId = StompHeaderAccessor.wrap(message).getFirstNativeHeader(USER_ID_HEADER);
+            if (!socketProperties.isRequireAuthentication() && StringUtils.hasText(userId)) {
+                try {
+                    bind(sessionId, Integer.parseInt(userId.trim()));
+                } catch (NumberFormatException ignored) {
+                    // Unbound sessions simply don't report presence
+                }
+            }
+        } else if (type == SimpMessageType.DISCONNECT) {
+            int userId = sessionRegistry.unbind(sessionId);
+            if (userId >= 0 && !sessionRegistry.isConnected(userId)) {
+                presenceService.disconnected(userId);
+            }
+        } else {
+            int userId = sessionRegistry.userOf(sessionId);
+            if (userId >= 0) {
+                presenceService.heartbeat(userId);
+            }
+        }
+        return message;
+    }
+
+    public void bind(String sessionId, int userId) {
+        sessionRegistry.bind(sessionId, userId);
+        presenceService.heartbeat(userId);
+    }
+}
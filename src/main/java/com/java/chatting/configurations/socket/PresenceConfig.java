@@ -0,0 +1,36 @@
+package com.java.chatting.configurations.socket;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class PresenceConfig {
+
+    // Single thread that advances the presence timing wheel and runs the other periodic presence jobs
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService presenceScheduler() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("presence-");
+        threadFactory.setDaemon(true);
+        return Executors.newSingleThreadScheduledExecutor(threadFactory);
+    }
+
+    // Bounded pool for the conversation history queries of connecting users, kept off the inbound channel threads;
+    // only a full queue makes the connecting thread query itself
+    @Bean
+    public ThreadPoolTaskExecutor presenceLoadExecutor(PresenceProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getInterestLoadThreads());
+        executor.setMaxPoolSize(properties.getInterestLoadThreads());
+        executor.setQueueCapacity(properties.getInterestLoadQueueCapacity());
+        executor.setThreadNamePrefix("presence-load-");
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+}
@@ -0,0 +1,25 @@
+package com.java.chatting.configurations.socket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.presence")
+public class PresenceProperties {
+    // Resolution of the timing wheel, expirations are processed once per tick
+    private long tickMillis = 1000;
+    // A user without any heartbeat for this long is considered offline
+    private long timeoutMillis = 30000;
+    private int wheelSize = 512;
+    // Presence changes are coalesced over this window before being fanned out to watchers
+    private long fanoutWindowMillis = 250;
+    // Conversation partners of a connecting user are loaded on this pool, and cached for reconnects
+    private int interestLoadThreads = 4;
+    private int interestLoadQueueCapacity = 10000;
+    private long interestCacheTtlSeconds = 600;
+    private long interestCacheSize = 50000;
+    // STOMP heartbeat interval negotiated by the broker (server send, client send)
+    private long[] stompHeartbeat = {10000, 10000};
+}
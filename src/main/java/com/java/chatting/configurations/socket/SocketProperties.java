@@ -0,0 +1,31 @@
+package com.java.chatting.configurations.socket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.socket")
+public class SocketProperties {
+    // Also publish to the old public topics until every client subscribes to /user/queue/...
+    private boolean legacyTopics = true;
+    // Reject STOMP CONNECT frames without a valid bearer token; off only while old clients are migrated
+    private boolean requireAuthentication = true;
+    private NativeEndpoint nativeEndpoint = new NativeEndpoint();
+
+    /**
+     * Plain WebSocket STOMP endpoint next to the SockJS one.
+     */
+    @Getter
+    @Setter
+    public static class NativeEndpoint {
+        private boolean enabled = true;
+        private String path = "/ws-native";
+        // Negotiate permessage-deflate when the client offers it
+        private boolean deflate = true;
+        // Reset the compressor after every message: less memory per session, worse ratio on similar messages
+        private boolean serverNoContextTakeover = false;
+        private boolean clientNoContextTakeover = false;
+    }
+}
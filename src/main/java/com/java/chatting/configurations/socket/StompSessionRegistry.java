@@ -0,0 +1,117 @@
+package com.java.chatting.configurations.socket;
+
+import com.java.chatting.events.UserConnectionEvent;
+import com.java.chatting.utils.IntObjectHashMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps track of which user owns each STOMP session on this node. The user side is a primitive int map
+ * of session id arrays, so resolving the sessions of a recipient on the delivery path is one lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class StompSessionRegistry {
+
+    private static final String[] NO_SESSIONS = new String[0];
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, Integer> userBySession = new ConcurrentHashMap<>();
+    private final IntObjectHashMap<String[]> sessionsByUser = new IntObjectHashMap<>(1024);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void bind(String sessionId, int userId) {
+        Integer previous = userBySession.putIfAbsent(sessionId, userId);
+        if (previous != null) {
+            return;
+        }
+        boolean first;
+        lock.writeLock().lock();
+        try {
+            String[] sessions = sessionsByUser.get(userId);
+            first = sessions == null;
+            String[] updated = first ? new String[1] : Arrays.copyOf(sessions, sessions.length + 1);
+            updated[updated.length - 1] = sessionId;
+            sessionsByUser.put(userId, updated);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (first) {
+            eventPublisher.publishEvent(new UserConnectionEvent(userId, true));
+        }
+    }
+
+    /**
+     * @return the user that owned the session, or -1 if it was never bound
+     */
+    public int unbind(String sessionId) {
+        Integer userId = userBySession.remove(sessionId);
+        if (userId == null) {
+            return -1;
+        }
+        boolean last = false;
+        lock.writeLock().lock();
+        try {
+            String[] sessions = sessionsByUser.get(userId);
+            if (sessions != null) {
+                String[] updated = Arrays.stream(sessions).filter(id -> !id.equals(sessionId)).toArray(String[]::new);
+                last = updated.length == 0;
+                if (last) {
+                    sessionsByUser.remove(userId);
+                } else {
+                    sessionsByUser.put(userId, updated);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (last) {
+            eventPublisher.publishEvent(new UserConnectionEvent(userId, false));
+        }
+        return userId;
+    }
+
+    public int userOf(String sessionId) {
+        Integer userId = sessionId == null ? null : userBySession.get(sessionId);
+        return userId == null ? -1 : userId;
+    }
+
+    public boolean isConnected(int userId) {
+        lock.readLock().lock();
+        try {
+            return sessionsByUser.containsKey(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the session ids of {@code userId}; the array is shared and must not be modified
+     */
+    public String[] sessionsOf(int userId) {
+        lock.readLock().lock();
+        try {
+            String[] sessions = sessionsByUser.get(userId);
+            return sessions == null ? NO_SESSIONS : sessions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<Integer> connectedUsers() {
+        Set<Integer> users = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            sessionsByUser.forEachKey(users::add);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return users;
+    }
+}
@@ -0,0 +1,144 @@
+package com.java.chatting.configurations.socket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Session and traffic metrics of the STOMP endpoints, tagged by transport: {@code websocket} for the native
+ * endpoint, {@code sockjs-<transport>} (websocket, xhr_streaming, xhr, ...) for SockJS. Byte counts are
+ * STOMP frame sizes before SockJS framing and compression.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransportMetrics implements WebSocketHandlerDecoratorFactory {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AtomicInteger> openSessions = new ConcurrentHashMap<>();
+    private final Map<String, Meters> metersByTransport = new ConcurrentHashMap<>();
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new MeteredHandler(handler);
+    }
+
+    static String transportOf(WebSocketSession session) {
+        if (!(session instanceof SockJsSession)) {
+            return "websocket";
+        }
+        URI uri = session.getUri();
+        String path = uri == null ? "" : uri.getPath();
+        return "sockjs-" + path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    static String compressionOf(WebSocketSession session) {
+        try {
+            for (WebSocketExtension extension : session.getExtensions()) {
+                if (DeflateNegotiationFilter.PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName())) {
+                    return "deflate";
+                }
+            }
+        } catch (IllegalStateException e) {
+            // HTTP based SockJS sessions have no WebSocket extensions
+        }
+        return "none";
+    }
+
+    private Meters meters(String transport) {
+        return metersByTransport.computeIfAbsent(transport, key -> new Meters(
+                DistributionSummary.builder("chatting.socket.outbound.bytes").baseUnit("bytes").tag("transport", key).register(meterRegistry),
+                DistributionSummary.builder("chatting.socket.inbound.bytes").baseUnit("bytes").tag("transport", key).register(meterRegistry)));
+    }
+
+    private AtomicInteger openSessions(String transport) {
+        return openSessions.computeIfAbsent(transport, key -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder("chatting.socket.sessions", count, AtomicInteger::get).tag("transport", key).register(meterRegistry);
+            return count;
+        });
+    }
+
+    private record Meters(DistributionSummary outbound, DistributionSummary inbound) {
+    }
+
+    private final class MeteredHandler extends WebSocketHandlerDecorator {
+
+        private final Map<String, MeteredSession> sessions = new ConcurrentHashMap<>();
+
+        MeteredHandler(WebSocketHandler delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            String transport = transportOf(session);
+            MeteredSession metered = new MeteredSession(session, transport, meters(transport));
+            sessions.put(session.getId(), metered);
+            openSessions(transport).incrementAndGet();
+            Counter.builder("chatting.socket.connections")
+                    .tag("transport", transport)
+                    .tag("compression", compressionOf(session))
+                    .register(meterRegistry)
+                    .increment();
+            super.afterConnectionEstablished(metered);
+        }
+
+        @Override
+        public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+            MeteredSession metered = sessions.get(session.getId());
+            if (metered == null) {
+                super.handleMessage(session, message);
+                return;
+            }
+            metered.meters.inbound().record(message.getPayloadLength());
+            super.handleMessage(metered, message);
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+            MeteredSession metered = sessions.get(session.getId());
+            super.handleTransportError(metered != null ? metered : session, exception);
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+            MeteredSession metered = sessions.remove(session.getId());
+            if (metered != null) {
+                openSessions(metered.transport).decrementAndGet();
+            }
+            super.afterConnectionClosed(metered != null ? metered : session, closeStatus);
+        }
+    }
+
+    private static final class MeteredSession extends WebSocketSessionDecorator {
+
+        private final String transport;
+        private final Meters meters;
+
+        MeteredSession(WebSocketSession delegate, String transport, Meters meters) {
+            super(delegate);
+            this.transport = transport;
+            this.meters = meters;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            meters.outbound().record(message.getPayloadLength());
+            super.sendMessage(message);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.java.chatting.configurations.socket;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "chatting.typing")
+public class TypingProperties {
+    // At most one "typing started" is forwarded per pair within this interval
+    private long forwardIntervalMillis = 3000;
+    // A pair without typing frames for this long gets a synthesized "typing stopped"
+    private long stopTimeoutMillis = 5000;
+    private long sweepMillis = 500;
+    private int stripes = 16;
+}
@@ -1,30 +1,92 @@
 package com.java.chatting.configurations.socket;
 
+import com.java.chatting.configurations.security.AuthContextChannelInterceptor;
+import com.java.chatting.configurations.security.StompAuthChannelInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String ALLOWED_ORIGIN = "http://ec2-54-252-160-78.ap-southeast-2.compute.amazonaws.com:3000";
+
+    private final PresenceProperties presenceProperties;
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final AuthContextChannelInterceptor authContextChannelInterceptor;
+    private final PresenceChannelInterceptor presenceChannelInterceptor;
+    private final OutboxReplayInterceptor outboxReplayInterceptor;
+    private final SocketProperties socketProperties;
+    private final TransportMetrics transportMetrics;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/user");
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(presenceProperties.getStompHeartbeat())
+                .setTaskScheduler(sockJsScheduler());
         config.setApplicationDestinationPrefixes("/app");
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(stompAuthChannelInterceptor, authContextChannelInterceptor, presenceChannelInterceptor, outboxReplayInterceptor);
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(transportMetrics);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
-                .setAllowedOriginPatterns("http://ec2-54-252-160-78.ap-southeast-2.compute.amazonaws.com:3000")
+                .setAllowedOriginPatterns(ALLOWED_ORIGIN)
                 .withSockJS();
+        if (socketProperties.getNativeEndpoint().isEnabled()) {
+            // Plain WebSocket for clients that don't need the SockJS fallbacks
+            registry.addEndpoint(socketProperties.getNativeEndpoint().getPath())
+                    .setAllowedOriginPatterns(ALLOWED_ORIGIN);
+        }
     }
+
+    @Bean
+    public FilterRegistrationBean<DeflateNegotiationFilter> deflateNegotiationFilter() {
+        String path = socketProperties.getNativeEndpoint().getPath();
+        FilterRegistrationBean<DeflateNegotiationFilter> registration =
+                new FilterRegistrationBean<>(new DeflateNegotiationFilter(socketProperties.getNativeEndpoint()));
+        registration.addUrlPatterns(path, path + "/*");
+        return registration;
+    }
+
+    /**
+     * Replaces the simple broker's pattern matching registry with {@link IndexedSubscriptionRegistry}.
+     */
+    @Bean
+    public static BeanPostProcessor subscriptionRegistryPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof SimpleBrokerMessageHandler handler) {
+                    handler.setSubscriptionRegistry(new IndexedSubscriptionRegistry());
+                }
+                return bean;
+            }
+        };
+    }
+
     @Bean
     public ThreadPoolTaskScheduler sockJsScheduler() {
         ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
@@ -32,4 +94,5 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         scheduler.setThreadNamePrefix("SockJsScheduler-");
         return scheduler;
     }
+
 }
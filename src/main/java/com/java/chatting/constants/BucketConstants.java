@@ -13,6 +13,7 @@ public enum BucketConstants {
     REAL_ESTATE_EXPERIENCE_FOLDER("exp/"),
     INCENTIVE_FOLDER("incentive/"),
     CATEGORY_FOLDER("category/"),
+    CHAT_FOLDER("chat/"),
     URL_FIREBASE_API("https://firebasestorage.googleapis.com/v0/b/%s/o/%s?alt=media");
     private final String value;
 
@@ -0,0 +1,5 @@
+package com.java.chatting.constants;
+
+public enum PreviewStatus {
+    PENDING, READY, FAILED
+}
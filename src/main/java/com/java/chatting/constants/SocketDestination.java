@@ -0,0 +1,36 @@
+package com.java.chatting.constants;
+
+import lombok.Getter;
+
+/**
+ * Per-user queues (subscribed as {@code /user/queue/...}) and the public topics they replace.
+ */
+@Getter
+public enum SocketDestination {
+    CHAT("/queue/chat", "/topic/private-chat-%d-%d"),
+    TYPING("/queue/typing", "/topic/typing-%d-%d"),
+    MESSAGE_STATUS("/queue/message-status", "/topic/message-status-%d"),
+    PRESENCE("/queue/presence", "/topic/presence-%d"),
+    GROUP_CHAT("/queue/group", null),
+    // No public topic ever existed for these
+    OUTBOX("/queue/outbox", null);
+
+    private final String userQueue;
+    private final String legacyTopic;
+
+    SocketDestination(String userQueue, String legacyTopic) {
+        this.userQueue = userQueue;
+        this.legacyTopic = legacyTopic;
+    }
+
+    public String legacyTopic(Object... ids) {
+        return String.format(legacyTopic, ids);
+    }
+
+    /**
+     * Broker destination a {@code /user} subscription of one session is translated to.
+     */
+    public static String ofSession(String userQueue, String sessionId) {
+        return userQueue + "-user" + sessionId;
+    }
+}
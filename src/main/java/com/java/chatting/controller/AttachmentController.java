@@ -0,0 +1,50 @@
+package com.java.chatting.controller;
+
+import com.java.chatting.configurations.security.UserPrincipalResolver;
+import com.java.chatting.dto.request.AttachmentLookupRequest;
+import com.java.chatting.dto.response.AttachmentResponse;
+import com.java.chatting.dto.response.GenericApiResponse;
+import com.java.chatting.services.AttachmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.security.Principal;
+import java.util.List;
+
+@Tag(name = "Attachment Controller", description = "API tải lên tệp đính kèm của tin nhắn")
+@RestController
+@RequestMapping("/api/v1/attachments")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class AttachmentController {
+
+    AttachmentService attachmentService;
+    UserPrincipalResolver principalResolver;
+
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload attachments",
+            description = "Tải lên đồng thời nhiều tệp đính kèm và trả về các URL theo đúng thứ tự gửi lên. "
+                    + "Với ảnh, trả thêm kích thước và các ảnh thu nhỏ đang được tạo ở nền.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<List<AttachmentResponse>> upload(@RequestParam("files") List<MultipartFile> files,
+                                                               Principal principal) {
+        return GenericApiResponse.success(attachmentService.upload(files, principalResolver.of(principal).getUserId()));
+    }
+
+    @PostMapping("/lookup")
+    @Operation(summary = "Lookup attachments by content hash",
+            description = "Tìm các tệp đã được lưu theo mã băm SHA-256 của nội dung, trong số tệp người dùng đã tải lên, gửi hoặc nhận; "
+                    + "tệp đã có thì gửi lại URL mà không cần tải lên.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<List<AttachmentResponse>> lookup(@RequestBody AttachmentLookupRequest request,
+                                                               Principal principal) {
+        return GenericApiResponse.success(attachmentService.lookup(request.getSha256(), principalResolver.of(principal).getUserId()));
+    }
+}
@@ -1,7 +1,13 @@
 package com.java.chatting.controller;
 
+import com.java.chatting.configurations.crypto.Encrypted;
+import com.java.chatting.configurations.security.StompPrincipal;
+import com.java.chatting.configurations.security.UserPrincipalResolver;
 import com.java.chatting.constants.MessageStatus;
 import com.java.chatting.controller.helper.ChatHelper;
+import com.java.chatting.controller.helper.PresenceFanout;
+import com.java.chatting.controller.helper.SocketNotifier;
+import com.java.chatting.controller.helper.TypingThrottle;
 import com.java.chatting.dto.request.ChatRequest;
 import com.java.chatting.dto.request.TypingRequest;
 import com.java.chatting.dto.response.*;
@@ -16,7 +22,6 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
@@ -31,31 +36,30 @@ import java.util.List;
 public class ChatController {
 
     ChatFacade chatFacade;
-    SimpMessagingTemplate messagingTemplate;
+    SocketNotifier socketNotifier;
     ChatHelper chatHelper;
+    PresenceFanout presenceFanout;
+    TypingThrottle typingThrottle;
+    UserPrincipalResolver principalResolver;
 
     @MessageMapping("/chat.sendMessage")
     @Operation(summary = "Send a message",
             description = "Gửi tin nhắn từ người gửi đến người nhận qua WebSocket."
        )
     public GenericApiResponse<Void> sendMessage(@Payload ChatRequest messageReq, Principal principal) throws Exception {
+        messageReq.setSenderId(StompPrincipal.userIdOr(principal, messageReq.getSenderId()));
         if (messageReq.getMessage() == null || messageReq.getMessage().trim().isEmpty()) {
             return GenericApiResponse.error("Message content is required");
         }
 
-        String senderPublicKey = chatHelper.retrievePublicKey(messageReq.getSenderId());
-        String receiverPublicKey = chatHelper.retrievePublicKey(messageReq.getReceiverId());
-
-        String encryptedMessageForReceiver = chatHelper.encryptMessage(messageReq.getMessage(), receiverPublicKey, true);
-        String encryptedMessageForSender = chatHelper.encryptMessage(messageReq.getMessage(), senderPublicKey, false);
+        Encrypted encryptedMessageForReceiver = chatHelper.encryptFor(messageReq.getMessage(), messageReq.getReceiverId());
+        Encrypted encryptedMessageForSender = chatHelper.encryptFor(messageReq.getMessage(), messageReq.getSenderId());
 
         ChatResponse chat = chatFacade.saveChat(messageReq, encryptedMessageForReceiver, encryptedMessageForSender);
 
-        String chatTopic = String.format("/topic/private-chat-%d-%d",
-                Math.min(messageReq.getSenderId(), messageReq.getReceiverId()),
-                Math.max(messageReq.getSenderId(), messageReq.getReceiverId()));
-
-        messagingTemplate.convertAndSend(chatTopic, chat);
+        socketNotifier.sendChat(messageReq.getSenderId(), messageReq.getReceiverId(), chat);
+        presenceFanout.link(messageReq.getSenderId(), messageReq.getReceiverId());
+        typingThrottle.onMessageSent(messageReq.getSenderId(), messageReq.getReceiverId());
         return GenericApiResponse.success(null);
     }
 
@@ -63,9 +67,9 @@ public class ChatController {
     @Operation(summary = "Handle typing status",
             description = "Gửi trạng thái 'đang gõ' từ người gửi đến người nhận qua WebSocket."
     )
-    public GenericApiResponse<Void> handleTyping(@Payload TypingRequest typingRequest) {
-        String typingTopic = String.format("/topic/typing-%d-%d", typingRequest.getReceiverId(), typingRequest.getSenderId());
-        messagingTemplate.convertAndSend(typingTopic, typingRequest);
+    public GenericApiResponse<Void> handleTyping(@Payload TypingRequest typingRequest, Principal principal) {
+        typingRequest.setSenderId(StompPrincipal.userIdOr(principal, typingRequest.getSenderId()));
+        typingThrottle.onTyping(typingRequest);
         return GenericApiResponse.success(null);
     }
 
@@ -74,15 +78,15 @@ public class ChatController {
             description = "API REST để gửi tin nhắn, chuyển tin nhắn này tới WebSocket."
           )
     public GenericApiResponse<Void> restSendMessage(@RequestBody ChatRequest messageReq, Principal principal) throws Exception {
-        return sendMessage(messageReq, principal);
+        return sendMessage(messageReq, principalResolver.of(principal));
     }
 
     @PostMapping("/typing")
     @Operation(summary = "Typing status via REST to WebSocket",
             description = "API REST để gửi trạng thái 'đang gõ', chuyển trạng thái này tới WebSocket."
          )
-    public GenericApiResponse<Void> restHandleTyping(@RequestBody TypingRequest typingRequest) {
-        return handleTyping(typingRequest);
+    public GenericApiResponse<Void> restHandleTyping(@RequestBody TypingRequest typingRequest, Principal principal) {
+        return handleTyping(typingRequest, principalResolver.of(principal));
     }
 
     @GetMapping("/history")
@@ -101,7 +105,7 @@ public class ChatController {
             security = {@SecurityRequirement(name = "bearerAuth")})
     public GenericApiResponse<ChatResponse> updateMessageStatus(@PathVariable int chatId, @RequestParam MessageStatus status) {
         ChatResponse updatedChat = chatFacade.updateMessageStatus(chatId, status);
-        chatHelper.notifyMessageStatusUpdate(updatedChat.getId(), status);
+        chatHelper.notifyMessageStatusUpdate(updatedChat.getId(), status, updatedChat.getSenderId(), updatedChat.getReceiverId());
         return GenericApiResponse.success(updatedChat);
     }
 
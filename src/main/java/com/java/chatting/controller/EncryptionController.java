@@ -1,5 +1,8 @@
 package com.java.chatting.controller;
 
+import com.java.chatting.dto.request.BatchDecryptionRequest;
+import com.java.chatting.dto.request.DecryptionItemRequest;
+import com.java.chatting.dto.response.DecryptionResultResponse;
 import com.java.chatting.dto.response.EncryptionKeyResponse;
 import com.java.chatting.dto.response.GenericApiResponse;
 import com.java.chatting.dto.response.MessageResponse;
@@ -13,6 +16,7 @@ import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Optional;
 
 @Tag(name = "Encryption Controller", description = "API cho các thao tác mã hóa và quản lý khóa mã hóa.")
@@ -75,4 +79,13 @@ public class EncryptionController {
         var decryptedMessages = encryptionFacade.decryptMessage(message.getMessages(), senderId, receiverId);
         return GenericApiResponse.success(decryptedMessages);
     }
+
+    @PostMapping("/decrypt/batch")
+    @Operation(summary = "Decrypt a page of messages",
+            description = "Giải mã nhiều tin nhắn trong một lần gọi. Kết quả theo đúng thứ tự gửi lên; tin nhắn không giải mã được có lỗi riêng.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<List<DecryptionResultResponse>> decryptBatch(@RequestBody BatchDecryptionRequest request) {
+        List<DecryptionItemRequest> items = request.getItems() == null ? List.of() : request.getItems();
+        return GenericApiResponse.success(encryptionFacade.decryptBatch(items));
+    }
 }
@@ -0,0 +1,125 @@
+package com.java.chatting.controller;
+
+import com.java.chatting.configurations.security.StompPrincipal;
+import com.java.chatting.configurations.security.UserPrincipalResolver;
+import com.java.chatting.controller.helper.SocketNotifier;
+import com.java.chatting.dto.request.GroupCreateRequest;
+import com.java.chatting.dto.request.GroupMessageRequest;
+import com.java.chatting.dto.response.GenericApiResponse;
+import com.java.chatting.dto.response.GroupMessageResponse;
+import com.java.chatting.dto.response.GroupResponse;
+import com.java.chatting.dto.response.PageResponse;
+import com.java.chatting.facades.GroupFacade;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+import java.util.List;
+
+@Tag(name = "Group Controller", description = "API cho cuộc trò chuyện nhóm")
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/groups")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class GroupController {
+
+    GroupFacade groupFacade;
+    SocketNotifier socketNotifier;
+    UserPrincipalResolver principalResolver;
+
+    @MessageMapping("/group.sendMessage")
+    @Operation(summary = "Send a group message",
+            description = "Gửi tin nhắn tới mọi thành viên của nhóm qua WebSocket, nội dung chỉ được mã hóa một lần.")
+    public GenericApiResponse<Void> sendMessage(@Payload GroupMessageRequest request, Principal principal) throws Exception {
+        request.setSenderId(StompPrincipal.userIdOr(principal, request.getSenderId()));
+        if (request.getMessage() == null || request.getMessage().trim().isEmpty()) {
+            return GenericApiResponse.error("Message content is required");
+        }
+        socketNotifier.sendGroupMessage(groupFacade.sendMessage(request));
+        return GenericApiResponse.success(null);
+    }
+
+    @PostMapping("/send-message")
+    @Operation(summary = "Send a group message via REST",
+            description = "API REST để gửi tin nhắn nhóm, chuyển tin nhắn này tới WebSocket.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<Void> restSendMessage(@RequestBody GroupMessageRequest request, Principal principal) throws Exception {
+        return sendMessage(request, principalResolver.of(principal));
+    }
+
+    @PostMapping
+    @Operation(summary = "Create a group",
+            description = "Tạo nhóm mới, người tạo (lấy từ token) luôn là thành viên.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<GroupResponse> createGroup(@RequestBody GroupCreateRequest request, Principal principal) {
+        return GenericApiResponse.success(groupFacade.createGroup(request, callerOf(principal)));
+    }
+
+    @GetMapping("/{groupId}")
+    @Operation(summary = "Get a group",
+            description = "Lấy thông tin nhóm và danh sách thành viên.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<GroupResponse> getGroup(@PathVariable int groupId) {
+        return GenericApiResponse.success(groupFacade.getGroup(groupId));
+    }
+
+    @GetMapping
+    @Operation(summary = "Get groups of a user",
+            description = "Lấy danh sách nhóm mà người dùng hiện tại tham gia.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<List<GroupResponse>> getGroupsOfUser(Principal principal) {
+        return GenericApiResponse.success(groupFacade.getGroupsOfUser(callerOf(principal)));
+    }
+
+    @PostMapping("/{groupId}/members")
+    @Operation(summary = "Add a member",
+            description = "Người tạo hoặc thành viên nhóm thêm thành viên mới; thành viên mới chỉ đọc được tin nhắn gửi sau khi tham gia.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<GroupResponse> addMember(@PathVariable int groupId, @RequestParam int userId,
+                                                       Principal principal) {
+        return GenericApiResponse.success(groupFacade.addMember(groupId, userId, callerOf(principal)));
+    }
+
+    @DeleteMapping("/{groupId}/members/{userId}")
+    @Operation(summary = "Remove a member",
+            description = "Người tạo hoặc thành viên nhóm xóa một thành viên; ai cũng có thể tự rời nhóm.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<Void> removeMember(@PathVariable int groupId, @PathVariable int userId,
+                                                 Principal principal) {
+        groupFacade.removeMember(groupId, userId, callerOf(principal));
+        return GenericApiResponse.success(null);
+    }
+
+    @GetMapping("/{groupId}/messages")
+    @Operation(summary = "Get group messages",
+            description = "Lấy tin nhắn của nhóm kèm khóa nội dung đã mã hóa cho người dùng hiện tại, mới nhất trước; chỉ dành cho thành viên.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<PageResponse<GroupMessageResponse>> getMessages(
+            @PathVariable int groupId,
+            @RequestParam(value = "page", required = false, defaultValue = "1") int page,
+            @RequestParam(value = "size", required = false, defaultValue = "20") int size,
+            Principal principal) {
+        return GenericApiResponse.success(groupFacade.getMessages(groupId, callerOf(principal), page, size));
+    }
+
+    @GetMapping("/messages/{messageId}/decrypt")
+    @Operation(summary = "Decrypt a group message",
+            description = "Giải mã tin nhắn nhóm bằng khóa riêng của người dùng hiện tại; chỉ dành cho thành viên.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<String> decryptMessage(@PathVariable int messageId, Principal principal) {
+        return GenericApiResponse.success(groupFacade.decryptMessage(messageId, callerOf(principal)));
+    }
+
+    private int callerOf(Principal principal) {
+        return principalResolver.of(principal).getUserId();
+    }
+}
@@ -0,0 +1,73 @@
+package com.java.chatting.controller;
+
+import com.java.chatting.configurations.security.UserPrincipalResolver;
+import com.java.chatting.configurations.socket.OutboxReplayInterceptor;
+import com.java.chatting.configurations.socket.StompSessionRegistry;
+import com.java.chatting.dto.request.OutboxAckRequest;
+import com.java.chatting.dto.response.GenericApiResponse;
+import com.java.chatting.dto.response.OutboxBatchResponse;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.services.OutboxService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+
+@Tag(name = "Outbox Controller", description = "API cho các sự kiện gửi tới người dùng khi họ ngoại tuyến")
+@RestController
+@RequestMapping("/api/v1/outbox")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class OutboxController {
+
+    OutboxService outboxService;
+    OutboxReplayInterceptor outboxReplayInterceptor;
+    StompSessionRegistry sessionRegistry;
+    UserPrincipalResolver principalResolver;
+
+    @MessageMapping("/outbox.ack")
+    @Operation(summary = "Acknowledge outbox events",
+            description = "Xác nhận đã nhận các sự kiện tới số thứ tự seq qua WebSocket; lô tiếp theo (nếu có) được gửi ngay.")
+    public void acknowledge(@Payload OutboxAckRequest ack, SimpMessageHeaderAccessor headerAccessor) {
+        int userId = sessionRegistry.userOf(headerAccessor.getSessionId());
+        if (userId < 0) {
+            return;
+        }
+        outboxService.acknowledge(userId, ack.getSeq());
+        outboxReplayInterceptor.replay(headerAccessor.getSessionId(), userId);
+    }
+
+    @GetMapping("/{userId}")
+    @Operation(summary = "Get pending outbox events",
+            description = "Lấy lô sự kiện đang chờ của người dùng cho client không dùng WebSocket.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<OutboxBatchResponse> pending(@PathVariable int userId, Principal principal) {
+        return GenericApiResponse.success(outboxService.pending(callerOf(principal, userId)));
+    }
+
+    @PostMapping("/ack")
+    @Operation(summary = "Acknowledge outbox events via REST",
+            description = "Xác nhận đã nhận các sự kiện của người dùng tới số thứ tự seq.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<Integer> acknowledgeRest(@RequestBody OutboxAckRequest ack, Principal principal) {
+        return GenericApiResponse.success(outboxService.acknowledge(callerOf(principal, ack.getUserId()), ack.getSeq()));
+    }
+
+    // The outbox of the token's user only; a claimed user id (0 when left out) has to be that user
+    private int callerOf(Principal principal, int claimedUserId) {
+        int userId = principalResolver.of(principal).getUserId();
+        if (claimedUserId != 0 && claimedUserId != userId) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,48 @@
+package com.java.chatting.controller;
+
+import com.java.chatting.configurations.security.StompPrincipal;
+import com.java.chatting.configurations.security.UserPrincipalResolver;
+import com.java.chatting.configurations.socket.PresenceChannelInterceptor;
+import com.java.chatting.dto.request.HeartbeatRequest;
+import com.java.chatting.dto.response.GenericApiResponse;
+import com.java.chatting.services.PresenceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.web.bind.annotation.*;
+
+import java.security.Principal;
+
+@Tag(name = "Presence Controller", description = "API cho trạng thái trực tuyến của người dùng")
+@RestController
+@RequestMapping("/api/v1/presence")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class PresenceController {
+
+    PresenceService presenceService;
+    PresenceChannelInterceptor presenceChannelInterceptor;
+    UserPrincipalResolver principalResolver;
+
+    @MessageMapping("/presence.ping")
+    @Operation(summary = "Presence heartbeat",
+            description = "Ping giữ trạng thái trực tuyến qua WebSocket, gắn phiên với người dùng nếu chưa gắn.")
+    public void ping(@Payload HeartbeatRequest heartbeat, SimpMessageHeaderAccessor headerAccessor, Principal principal) {
+        presenceChannelInterceptor.bind(headerAccessor.getSessionId(), StompPrincipal.userIdOr(principal, heartbeat.getUserId()));
+    }
+
+    @PostMapping("/heartbeat")
+    @Operation(summary = "Presence heartbeat via REST",
+            description = "Ping giữ trạng thái trực tuyến cho client không dùng WebSocket.",
+            security = {@SecurityRequirement(name = "bearerAuth")})
+    public GenericApiResponse<Void> heartbeat(@RequestBody HeartbeatRequest heartbeat, Principal principal) {
+        presenceService.heartbeat(StompPrincipal.userIdOr(principalResolver.of(principal), heartbeat.getUserId()));
+        return GenericApiResponse.success(null);
+    }
+}
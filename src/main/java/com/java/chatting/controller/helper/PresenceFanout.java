@@ -0,0 +1,199 @@
+package com.java.chatting.controller.helper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.java.chatting.configurations.socket.PresenceProperties;
+import com.java.chatting.configurations.socket.StompSessionRegistry;
+import com.java.chatting.dto.response.UserStatusResponse;
+import com.java.chatting.entities.UserStatus;
+import com.java.chatting.events.PresenceChangedEvent;
+import com.java.chatting.events.UserConnectionEvent;
+import com.java.chatting.repositories.ChatRepository;
+import com.java.chatting.services.ClusterBus;
+import com.java.chatting.services.PresenceService;
+import com.java.chatting.utils.PresenceInterestIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends presence changes only to the connected users that have a conversation with the changed user.
+ * Changes are coalesced per user over a short window and each watcher receives one diff per window.
+ * The interest index and the pending changes are only touched from the presence thread.
+ * Changes detected on this node are also broadcast to the other nodes, whose watchers may be interested.
+ * <p>
+ * The conversation partners of a connecting user come from a history query, run on the presence load pool rather
+ * than the inbound channel thread that delivers CONNECT, and cached so that a reconnect storm does not repeat it.
+ */
+@Slf4j
+@Component
+public class PresenceFanout {
+
+    private static final String PRESENCE_CHANNEL = "presence";
+
+    private final ChatRepository chatRepository;
+    private final PresenceService presenceService;
+    private final ClusterBus clusterBus;
+    private final SocketNotifier socketNotifier;
+    private final ScheduledExecutorService presenceScheduler;
+    private final Executor presenceLoadExecutor;
+    private final StompSessionRegistry sessionRegistry;
+    private final PresenceProperties properties;
+    private final PresenceInterestIndex interestIndex = new PresenceInterestIndex();
+    private final Map<Integer, UserStatusResponse> pending = new LinkedHashMap<>();
+    // Immutable lists, replaced as a whole when a partner is added
+    private final Cache<Integer, List<Integer>> partnersByUser;
+
+    public PresenceFanout(ChatRepository chatRepository,
+                          PresenceService presenceService,
+                          ClusterBus clusterBus,
+                          SocketNotifier socketNotifier,
+                          @Qualifier("presenceScheduler") ScheduledExecutorService presenceScheduler,
+                          @Qualifier("presenceLoadExecutor") Executor presenceLoadExecutor,
+                          StompSessionRegistry sessionRegistry,
+                          PresenceProperties properties) {
+        this.chatRepository = chatRepository;
+        this.presenceService = presenceService;
+        this.clusterBus = clusterBus;
+        this.socketNotifier = socketNotifier;
+        this.presenceScheduler = presenceScheduler;
+        this.presenceLoadExecutor = presenceLoadExecutor;
+        this.sessionRegistry = sessionRegistry;
+        this.properties = properties;
+        this.partnersByUser = Caffeine.newBuilder()
+                .maximumSize(properties.getInterestCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getInterestCacheTtlSeconds()))
+                .build();
+    }
+
+    @PostConstruct
+    void start() {
+        long window = properties.getFanoutWindowMillis();
+        presenceScheduler.scheduleWithFixedDelay(this::flush, window, window, TimeUnit.MILLISECONDS);
+        clusterBus.subscribe(PRESENCE_CHANNEL, UserStatusResponse[].class, changes -> enqueue(List.of(changes)));
+    }
+
+    @EventListener
+    public void onUserConnection(UserConnectionEvent event) {
+        int watcher = event.getUserId();
+        if (!event.isConnected()) {
+            presenceScheduler.execute(() -> interestIndex.unregister(watcher));
+            return;
+        }
+        List<Integer> cached = partnersByUser.getIfPresent(watcher);
+        if (cached != null) {
+            presenceScheduler.execute(() -> register(watcher, cached));
+            return;
+        }
+        presenceLoadExecutor.execute(() -> {
+            List<Integer> partners;
+            try {
+                partners = loadPartners(watcher);
+            } catch (RuntimeException e) {
+                log.warn("Could not load the conversation partners of user {}", watcher, e);
+                return;
+            }
+            partnersByUser.put(watcher, partners);
+            presenceScheduler.execute(() -> register(watcher, partners));
+        });
+    }
+
+    @EventListener
+    public void onPresenceChanged(PresenceChangedEvent event) {
+        enqueue(event.getChanges());
+        clusterBus.broadcast(PRESENCE_CHANNEL, event.getChanges());
+    }
+
+    private void enqueue(List<UserStatusResponse> changes) {
+        presenceScheduler.execute(() -> {
+            for (UserStatusResponse change : changes) {
+                pending.put(change.getUserId(), change);
+            }
+        });
+    }
+
+    /**
+     * Makes two users watch each other, e.g. after their first message.
+     */
+    public void link(int userId, int otherUserId) {
+        addCachedPartner(userId, otherUserId);
+        addCachedPartner(otherUserId, userId);
+        presenceScheduler.execute(() -> {
+            interestIndex.addInterest(userId, otherUserId);
+            interestIndex.addInterest(otherUserId, userId);
+        });
+    }
+
+    private List<Integer> loadPartners(int watcher) {
+        List<Integer> partners = new ArrayList<>();
+        for (Object[] row : chatRepository.findChatHistoryUserIds(watcher)) {
+            partners.add(((Number) row[0]).intValue());
+        }
+        return List.copyOf(partners);
+    }
+
+    private void addCachedPartner(int userId, int partner) {
+        partnersByUser.asMap().computeIfPresent(userId, (id, partners) -> {
+            if (partners.contains(partner)) {
+                return partners;
+            }
+            List<Integer> updated = new ArrayList<>(partners);
+            updated.add(partner);
+            return List.copyOf(updated);
+        });
+    }
+
+    // On the presence thread; the user may have disconnected while the partners were loading
+    private void register(int watcher, List<Integer> partners) {
+        if (!sessionRegistry.isConnected(watcher)) {
+            return;
+        }
+        interestIndex.register(watcher, partners);
+        sendSnapshot(watcher);
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            Map<Integer, List<UserStatusResponse>> diffs = new HashMap<>();
+            for (UserStatusResponse change : pending.values()) {
+                for (Integer watcher : interestIndex.watchersOf(change.getUserId())) {
+                    diffs.computeIfAbsent(watcher, id -> new ArrayList<>()).add(change);
+                }
+            }
+            pending.clear();
+            diffs.forEach(this::sendDiff);
+        } catch (Exception e) {
+            log.error("Presence fan-out failed", e);
+        }
+    }
+
+    private void sendSnapshot(int watcher) {
+        List<UserStatusResponse> online = new ArrayList<>();
+        for (Integer userId : interestIndex.interestsOf(watcher)) {
+            if (presenceService.isOnline(userId)) {
+                online.add(UserStatusResponse.builder()
+                        .userId(userId)
+                        .status(UserStatus.Status.ONLINE)
+                        .build());
+            }
+        }
+        if (!online.isEmpty()) {
+            sendDiff(watcher, online);
+        }
+    }
+
+    private void sendDiff(int watcher, List<UserStatusResponse> changes) {
+        socketNotifier.sendPresence(watcher, changes);
+    }
+}
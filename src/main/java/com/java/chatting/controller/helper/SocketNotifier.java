@@ -0,0 +1,125 @@
+package com.java.chatting.controller.helper;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.configurations.socket.OutboxProperties;
+import com.java.chatting.configurations.socket.SocketProperties;
+import com.java.chatting.constants.SocketDestination;
+import com.java.chatting.dto.request.StatusRequest;
+import com.java.chatting.dto.request.TypingRequest;
+import com.java.chatting.dto.response.ChatResponse;
+import com.java.chatting.dto.response.GroupMessageResponse;
+import com.java.chatting.dto.response.UserStatusResponse;
+import com.java.chatting.services.ClusterBus;
+import com.java.chatting.services.OutboxService;
+import com.java.chatting.utils.EncodedPayload;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Pushes chat events to the user queues of their participants, and to the old public topics while
+ * {@code chatting.socket.legacy-topics} is on. Every event is serialized once for all of its destinations.
+ * Messages and status updates for users without any session go to their outbox; typing and presence
+ * are only meaningful live and are dropped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SocketNotifier {
+
+    ClusterBus clusterBus;
+    SocketProperties properties;
+    OutboxService outboxService;
+    OutboxProperties outboxProperties;
+    ObjectMapper objectMapper;
+
+    public void sendChat(int senderId, int receiverId, ChatResponse response) {
+        EncodedPayload chat = encode(response);
+        if (chat == null) {
+            return;
+        }
+        deliver(receiverId, SocketDestination.CHAT, chat, null);
+        if (senderId != receiverId) {
+            deliver(senderId, SocketDestination.CHAT, chat, null);
+        }
+        if (properties.isLegacyTopics()) {
+            String topic = SocketDestination.CHAT.legacyTopic(Math.min(senderId, receiverId), Math.max(senderId, receiverId));
+            clusterBus.publish(topic, chat, senderId, receiverId);
+        }
+    }
+
+    /**
+     * Group messages share their ciphertext but every member gets its own wrapped content key, so each
+     * member's frame is encoded separately.
+     */
+    public void sendGroupMessage(List<GroupMessageResponse> perMember) {
+        for (GroupMessageResponse message : perMember) {
+            EncodedPayload payload = encode(message);
+            if (payload != null) {
+                deliver(message.getRecipientId(), SocketDestination.GROUP_CHAT, payload, null);
+            }
+        }
+    }
+
+    public void sendTyping(TypingRequest typing) {
+        EncodedPayload payload = encode(typing);
+        if (payload == null) {
+            return;
+        }
+        clusterBus.sendToUser(typing.getReceiverId(), SocketDestination.TYPING.getUserQueue(), payload);
+        if (properties.isLegacyTopics()) {
+            String topic = SocketDestination.TYPING.legacyTopic(typing.getReceiverId(), typing.getSenderId());
+            clusterBus.publish(topic, payload, typing.getReceiverId());
+        }
+    }
+
+    public void sendMessageStatus(StatusRequest status, int... participants) {
+        EncodedPayload payload = encode(status);
+        if (payload == null) {
+            return;
+        }
+        for (int userId : participants) {
+            // Only the latest status of a message matters to a user who comes back
+            deliver(userId, SocketDestination.MESSAGE_STATUS, payload, "message-status-" + status.getId());
+        }
+        if (properties.isLegacyTopics()) {
+            clusterBus.publish(SocketDestination.MESSAGE_STATUS.legacyTopic(status.getId()), payload, participants);
+        }
+    }
+
+    public void sendPresence(int watcher, List<UserStatusResponse> changes) {
+        EncodedPayload payload = encode(changes);
+        if (payload == null) {
+            return;
+        }
+        clusterBus.sendToUser(watcher, SocketDestination.PRESENCE.getUserQueue(), payload);
+        if (properties.isLegacyTopics()) {
+            clusterBus.publish(SocketDestination.PRESENCE.legacyTopic(watcher), payload, watcher);
+        }
+    }
+
+    private void deliver(int userId, SocketDestination destination, EncodedPayload payload, String compactionKey) {
+        if (!clusterBus.sendToUser(userId, destination.getUserQueue(), payload) && outboxProperties.isEnabled()) {
+            try {
+                outboxService.store(userId, destination, payload, compactionKey);
+            } catch (Exception e) {
+                log.error("Failed to store outbox event for user {}", userId, e);
+            }
+        }
+    }
+
+    private EncodedPayload encode(Object payload) {
+        try {
+            return EncodedPayload.of(objectMapper, payload);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize socket event {}", payload.getClass().getSimpleName(), e);
+            return null;
+        }
+    }
+}
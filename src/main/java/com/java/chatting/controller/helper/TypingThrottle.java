@@ -0,0 +1,75 @@
+package com.java.chatting.controller.helper;
+
+import com.java.chatting.configurations.socket.TypingProperties;
+import com.java.chatting.dto.request.TypingRequest;
+import com.java.chatting.utils.PairStateTable;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server side throttling of typing indicators. Clients send a frame per keystroke; receivers only get
+ * one "typing started" per pair and interval, and a "typing stopped" either when the sender says so
+ * or after the pair has been quiet for the stop timeout.
+ */
+@Slf4j
+@Component
+public class TypingThrottle {
+
+    private final SocketNotifier socketNotifier;
+    private final ScheduledExecutorService presenceScheduler;
+    private final TypingProperties properties;
+    private final PairStateTable typingPairs;
+
+    public TypingThrottle(SocketNotifier socketNotifier,
+                          @Qualifier("presenceScheduler") ScheduledExecutorService presenceScheduler,
+                          TypingProperties properties) {
+        this.socketNotifier = socketNotifier;
+        this.presenceScheduler = presenceScheduler;
+        this.properties = properties;
+        this.typingPairs = new PairStateTable(properties.getStripes(), 64);
+    }
+
+    @PostConstruct
+    void start() {
+        presenceScheduler.scheduleWithFixedDelay(this::sweep, properties.getSweepMillis(), properties.getSweepMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void onTyping(TypingRequest typingRequest) {
+        long pair = PairStateTable.pack(typingRequest.getSenderId(), typingRequest.getReceiverId());
+        if (Boolean.FALSE.equals(typingRequest.getTyping())) {
+            // A stop for a pair we never forwarded a start for is redundant
+            if (typingPairs.remove(pair)) {
+                forward(typingRequest.getSenderId(), typingRequest.getReceiverId(), false);
+            }
+            return;
+        }
+        if (typingPairs.touch(pair, System.currentTimeMillis(), properties.getForwardIntervalMillis()) == PairStateTable.FORWARD) {
+            forward(typingRequest.getSenderId(), typingRequest.getReceiverId(), true);
+        }
+    }
+
+    /**
+     * Clears the typing state of a pair once its message has been sent; the message itself tells the receiver.
+     */
+    public void onMessageSent(int senderId, int receiverId) {
+        typingPairs.remove(PairStateTable.pack(senderId, receiverId));
+    }
+
+    void sweep() {
+        try {
+            typingPairs.expire(System.currentTimeMillis(), properties.getStopTimeoutMillis(),
+                    pair -> forward(PairStateTable.high(pair), PairStateTable.low(pair), false));
+        } catch (Exception e) {
+            log.error("Typing sweep failed", e);
+        }
+    }
+
+    private void forward(int senderId, int receiverId, boolean typing) {
+        socketNotifier.sendTyping(new TypingRequest(senderId, receiverId, typing));
+    }
+}
@@ -0,0 +1,14 @@
+package com.java.chatting.dto.request;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+public class AttachmentLookupRequest {
+    // Hex SHA-256 of each file the client is about to upload
+    private List<String> sha256;
+}
@@ -0,0 +1,17 @@
+package com.java.chatting.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BatchDecryptionRequest {
+    @NotEmpty
+    List<DecryptionItemRequest> items;
+}
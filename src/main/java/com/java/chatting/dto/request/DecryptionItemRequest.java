@@ -0,0 +1,19 @@
+package com.java.chatting.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DecryptionItemRequest {
+    // Message id, returned with the result
+    int id;
+    @NotNull
+    String ciphertext;
+    int senderId;
+    int receiverId;
+}
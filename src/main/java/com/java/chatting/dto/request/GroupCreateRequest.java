@@ -0,0 +1,17 @@
+package com.java.chatting.dto.request;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class GroupCreateRequest {
+     String name;
+     // The creator, taken from the token, is always added and does not need to be listed
+     List<Integer> memberIds;
+}
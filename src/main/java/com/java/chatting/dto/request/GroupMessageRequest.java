@@ -0,0 +1,16 @@
+package com.java.chatting.dto.request;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class GroupMessageRequest {
+     int groupId;
+     int senderId;
+     String message;
+     String messageType;
+}
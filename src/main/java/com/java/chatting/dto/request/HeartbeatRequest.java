@@ -0,0 +1,13 @@
+package com.java.chatting.dto.request;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class HeartbeatRequest {
+     int userId;
+}
@@ -0,0 +1,15 @@
+package com.java.chatting.dto.request;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OutboxAckRequest {
+     int userId;
+     // Every event up to and including this sequence number has been processed
+     long seq;
+}
@@ -11,4 +11,6 @@ import lombok.experimental.FieldDefaults;
 public class TypingRequest {
      int senderId;
      int receiverId;
+     // null is treated as "typing" for clients that only send keystroke frames
+     Boolean typing;
 }
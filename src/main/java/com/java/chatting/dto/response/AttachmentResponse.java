@@ -0,0 +1,24 @@
+package com.java.chatting.dto.response;
+
+import com.java.chatting.constants.PreviewStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class AttachmentResponse {
+    private String fileUrl;
+    private String contentType;
+    private long size;
+    private String sha256;
+    // Images only; thumbnails are listed from the largest and may still be rendering while PENDING
+    private Integer width;
+    private Integer height;
+    private PreviewStatus previewStatus;
+    private List<ThumbnailResponse> thumbnails;
+}
@@ -1,8 +1,11 @@
 package com.java.chatting.dto.response;
 
+import com.java.chatting.constants.PreviewStatus;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @Builder
@@ -10,4 +13,9 @@ import lombok.experimental.FieldDefaults;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class ChatAttachmentResponse {
     private String fileUrl;
+    // Images only; thumbnails are listed from the largest and may still be rendering while PENDING
+    private Integer width;
+    private Integer height;
+    private PreviewStatus previewStatus;
+    private List<ThumbnailResponse> thumbnails;
 }
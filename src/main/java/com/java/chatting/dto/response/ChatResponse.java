@@ -21,6 +21,7 @@ public class ChatResponse {
     private MessageType messageType;
     private boolean isEncrypted;
     private LocalDateTime sentAt;
+    private Integer conversationId;
     private ChatStatusResponse chatStatus;
     private ChatAttachmentResponse chatAttachment;
 
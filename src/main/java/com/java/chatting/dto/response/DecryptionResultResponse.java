@@ -0,0 +1,16 @@
+package com.java.chatting.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DecryptionResultResponse {
+    int id;
+    // Exactly one of message and error is set
+    String message;
+    String error;
+}
@@ -15,6 +15,7 @@ public class EncryptionKeyResponse {
      int userId;
      String publicKey;
      String privateKey;
+     String suite;
      LocalDateTime createdAt;
      LocalDateTime updatedAt;
 }
@@ -0,0 +1,32 @@
+package com.java.chatting.dto.response;
+
+import com.java.chatting.constants.MessageType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class GroupMessageResponse {
+
+    private int id;
+
+    private int groupId;
+
+    private int senderId;
+
+    private String ciphertext; // Nội dung mã hóa AES-GCM bằng khóa nội dung, giống nhau cho mọi thành viên
+
+    private int recipientId; // Thành viên nhận bản này
+
+    private String wrappedKey; // Khóa nội dung được mã hóa bằng khóa công khai của recipientId
+
+    private MessageType messageType;
+
+    private LocalDateTime sentAt;
+}
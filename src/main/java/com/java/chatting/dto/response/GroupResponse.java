@@ -0,0 +1,26 @@
+package com.java.chatting.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupResponse {
+
+    private int id;
+
+    private String name;
+
+    private int createdBy;
+
+    private LocalDateTime createdAt;
+
+    private List<Integer> memberIds;
+}
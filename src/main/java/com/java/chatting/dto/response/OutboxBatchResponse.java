@@ -0,0 +1,19 @@
+package com.java.chatting.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxBatchResponse {
+
+    private List<OutboxEventResponse> events; // Các sự kiện theo thứ tự gửi
+
+    private boolean hasMore; // Còn sự kiện, lô tiếp theo được gửi sau khi xác nhận lô này
+}
@@ -0,0 +1,25 @@
+package com.java.chatting.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEventResponse {
+
+    private long seq; // Số thứ tự dùng để xác nhận đã nhận
+
+    private String destination; // Đích mà sự kiện lẽ ra được gửi tới, ví dụ /user/queue/chat
+
+    @JsonRawValue
+    private String payload; // Nội dung JSON gốc của sự kiện
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,15 @@
+package com.java.chatting.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@Builder
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ThumbnailResponse {
+    private String url;
+    private int width;
+    private int height;
+}
@@ -0,0 +1,61 @@
+package com.java.chatting.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * One stored attachment per distinct content. Uploads of content that is already stored get this file's URL
+ * instead of a new object; {@code refCount} counts the messages sending it. Once the sweeper has deleted the file
+ * the entry stays behind with {@code deletedAt} set, so that a message sending its URL can tell it is gone.
+ */
+@Entity
+@Table(name = "attachment_blobs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AttachmentBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    // Hex SHA-256 of the content, cleared when the file is deleted so the content can be stored again
+    @Column(name = "sha256", length = 64, unique = true)
+    private String sha256;
+
+    @Column(name = "file_url", length = 255, nullable = false, unique = true)
+    private String fileUrl;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Last upload or lookup of the content; unreferenced files are kept for a while after it
+    @Column(name = "last_uploaded_at", nullable = false)
+    private LocalDateTime lastUploadedAt;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // Users who uploaded the content; a lookup by hash only answers them and the users it was sent to
+    @ElementCollection
+    @CollectionTable(name = "attachment_blob_uploaders", joinColumns = @JoinColumn(name = "blob_id"),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"blob_id", "user_id"}))
+    @Column(name = "user_id")
+    @Builder.Default
+    private Set<Integer> uploaderIds = new HashSet<>();
+}
@@ -5,7 +5,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import java.time.LocalDateTime;
 @Entity
-@Table(name = "chats")
+@Table(name = "chats", indexes = @Index(name = "idx_chat_sender_receiver", columnList = "sender_id, receiver_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,6 +28,12 @@ public class Chat {
     @Column(name = "message_encrypt_for_receiver", columnDefinition = "TEXT", nullable = false)
     private String messageEncryptForReceiver;
 
+    // Cipher suites of the two copies, which follow the keys of sender and receiver; null means RSA
+    @Column(name = "sender_suite", length = 16)
+    private String senderSuite;
+    @Column(name = "receiver_suite", length = 16)
+    private String receiverSuite;
+
     @Column(name = "is_encrypted", nullable = false)
     private boolean isEncrypted = false;
 
@@ -38,6 +44,10 @@ public class Chat {
     @Column(name = "sent_at", nullable = false)
     private LocalDateTime sentAt;
 
+    // Set on the chat that opened a room post conversation
+    @Column(name = "conversation_id")
+    private Integer conversationId;
+
     // Quan hệ với ChatStatus
     @OneToOne(mappedBy = "chat", cascade = CascadeType.ALL)
     private ChatStatus chatStatus;
@@ -22,4 +22,9 @@ public class ChatAttachment {
 
     @Column(name = "file_url", length = 255)
     private String fileUrl;
+
+    // Set when the file is an image uploaded through the attachment API
+    @ManyToOne(fetch = FetchType.EAGER)
+    @JoinColumn(name = "preview_id")
+    private ImagePreview preview;
 }
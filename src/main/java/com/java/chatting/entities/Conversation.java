@@ -0,0 +1,37 @@
+package com.java.chatting.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Conversation started by a tenant from one room post of a landlord.
+ */
+@Entity
+@Table(name = "conversations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_conversation_post",
+                columnNames = {"tenant_id", "landlord_id", "room_post_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Conversation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(name = "tenant_id", nullable = false)
+    private int tenantId;
+
+    @Column(name = "landlord_id", nullable = false)
+    private int landlordId;
+
+    @Column(name = "room_post_id", nullable = false)
+    private int roomPostId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -25,6 +25,10 @@ public class EncryptionKey {
     @Column(name = "private_key", nullable = false, columnDefinition = "TEXT")
     private String privateKey;
 
+    // Cipher suite of the key pair; null for keys created before suites existed, which are RSA
+    @Column(name = "suite", length = 16)
+    private String suite;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -0,0 +1,41 @@
+package com.java.chatting.entities;
+
+import com.java.chatting.constants.MessageType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Group message stored once: the body is encrypted with a per-message content key, and that key is
+ * wrapped for each member in {@link GroupMessageKey}.
+ */
+@Entity
+@Table(name = "group_messages", indexes = @Index(name = "idx_group_message_group", columnList = "group_id, id"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(name = "group_id", nullable = false)
+    private int groupId;
+
+    @Column(name = "sender_id", nullable = false)
+    private int senderId;
+
+    @Column(name = "ciphertext", columnDefinition = "TEXT", nullable = false)
+    private String ciphertext;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", nullable = false, length = 20)
+    private MessageType messageType;
+
+    @Column(name = "sent_at", nullable = false)
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,33 @@
+package com.java.chatting.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "group_message_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_group_message_key", columnNames = {"message_id", "user_id"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupMessageKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(name = "message_id", nullable = false)
+    private int messageId;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    // Content key of the message encrypted with the member's public key
+    @Column(name = "wrapped_key", columnDefinition = "TEXT", nullable = false)
+    private String wrappedKey;
+
+    // Cipher suite of the member's key that wrapped it; null means RSA
+    @Column(name = "suite", length = 16)
+    private String suite;
+}
@@ -0,0 +1,45 @@
+package com.java.chatting.entities;
+
+import com.java.chatting.constants.PreviewStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dimensions and thumbnails of an uploaded image, written when the image is uploaded. The thumbnails are listed
+ * from the largest, with their final URLs and sizes, while they are still being rendered ({@code PENDING}).
+ */
+@Entity
+@Table(name = "image_previews")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImagePreview {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private int id;
+
+    @Column(name = "file_url", length = 255, nullable = false, unique = true)
+    private String fileUrl;
+
+    @Column(name = "width", nullable = false)
+    private int width;
+
+    @Column(name = "height", nullable = false)
+    private int height;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private PreviewStatus status;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "image_preview_thumbnails", joinColumns = @JoinColumn(name = "preview_id"))
+    @OrderColumn(name = "position")
+    @Builder.Default
+    private List<ImageThumbnail> thumbnails = new ArrayList<>();
+}
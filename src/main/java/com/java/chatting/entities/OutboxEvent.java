@@ -0,0 +1,45 @@
+package com.java.chatting.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Socket event that could not be delivered because the user had no session, kept until the user acknowledges it.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_user", columnList = "user_id, id"),
+        @Index(name = "idx_outbox_compaction", columnList = "user_id, compaction_key")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "user_id", nullable = false)
+    private int userId;
+
+    // User queue the event was meant for, e.g. /queue/chat
+    @Column(nullable = false, length = 100)
+    private String destination;
+
+    // Events sharing a key replace each other, e.g. the status of one message
+    @Column(name = "compaction_key", length = 100)
+    private String compactionKey;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,16 @@
+package com.java.chatting.events;
+
+import com.java.chatting.dto.response.UserStatusResponse;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Batch of presence transitions produced by one presence tick.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PresenceChangedEvent {
+    private final List<UserStatusResponse> changes;
+}
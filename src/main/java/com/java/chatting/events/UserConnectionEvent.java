@@ -0,0 +1,14 @@
+package com.java.chatting.events;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published when a user opens their first or closes their last STOMP session on this node.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserConnectionEvent {
+    private final int userId;
+    private final boolean connected;
+}
@@ -0,0 +1,21 @@
+package com.java.chatting.exception;
+
+import feign.FeignException;
+import feign.RetryableException;
+
+// Thrown without calling the remote service when its circuit breaker is open or its bulkhead is full
+public class DownstreamUnavailableException extends RuntimeException {
+    public DownstreamUnavailableException(String client, String reason) {
+        super("Service " + client + " unavailable: " + reason);
+    }
+
+    /**
+     * @return whether a Feign call failed because the remote service is down, slow or rejected by its breaker,
+     * as opposed to answering with a client error
+     */
+    public static boolean isUnavailable(Throwable e) {
+        return e instanceof DownstreamUnavailableException
+                || e instanceof RetryableException
+                || e instanceof FeignException.FeignServerException;
+    }
+}
@@ -96,6 +96,12 @@ public enum ErrorCode {
     IMAGE_NOT_FOUND(8001, "Image not found", HttpStatus.NOT_FOUND),
     FILE_UPLOAD_FAILED(8002, "File upload failed", HttpStatus.BAD_REQUEST),
     CHAT_NOT_FOUND(8003, "Chat not found", HttpStatus.NOT_FOUND),
+    GROUP_NOT_FOUND(8004, "Group not found", HttpStatus.NOT_FOUND),
+    NOT_GROUP_MEMBER(8005, "User is not a member of this group", HttpStatus.FORBIDDEN),
+    GROUP_FULL(8006, "Group has reached its member limit", HttpStatus.BAD_REQUEST),
+    SERVICE_UNAVAILABLE(8007, "A dependent service is unavailable, please retry shortly", HttpStatus.SERVICE_UNAVAILABLE),
+    BATCH_TOO_LARGE(8008, "Too many items in one batch", HttpStatus.BAD_REQUEST),
+    ATTACHMENT_NOT_FOUND(8009, "Attachment no longer exists, upload it again", HttpStatus.NOT_FOUND),
     // user
     MISSING_PATH_VARIABLE(9001, "Required path variable is missing", HttpStatus.BAD_REQUEST),
     ENCRYPTION_KEY_ALREADY_EXISTS(9002, "Encryption key already exists", HttpStatus.BAD_REQUEST),
@@ -1,5 +1,6 @@
 package com.java.chatting.facades;
 
+import com.java.chatting.configurations.crypto.Encrypted;
 import com.java.chatting.constants.MessageStatus;
 import com.java.chatting.dto.request.ChatRequest;
 import com.java.chatting.dto.response.ChatHistory;
@@ -22,7 +23,7 @@ import java.util.List;
 public class ChatFacade {
     ChatService chatService;
 
-    public ChatResponse saveChat(ChatRequest request, String encryptedMessageForReceiver, String encryptedMessageForSender) {
+    public ChatResponse saveChat(ChatRequest request, Encrypted encryptedMessageForReceiver, Encrypted encryptedMessageForSender) {
         return chatService.saveChat(request, encryptedMessageForReceiver, encryptedMessageForSender);
     }
 
@@ -1,7 +1,10 @@
 package com.java.chatting.facades;
 
+import com.java.chatting.configurations.crypto.Encrypted;
 import com.java.chatting.dto.request.ChatRequest;
+import com.java.chatting.dto.request.DecryptionItemRequest;
 import com.java.chatting.dto.response.DecryptedMessageResponse;
+import com.java.chatting.dto.response.DecryptionResultResponse;
 import com.java.chatting.dto.response.EncryptionKeyResponse;
 import com.java.chatting.services.EncryptionService;
 import lombok.AccessLevel;
@@ -44,7 +47,15 @@ public class EncryptionFacade {
         return encryptionService.encryptMessage(message, publicKey);
     }
 
+    public Encrypted encryptForUser(String message, int userId) throws Exception {
+        return encryptionService.encryptForUser(message, userId);
+    }
+
     public String decryptMessage(String messages, int senderId, int receiverId) throws Exception {
         return encryptionService.decryptMessage(messages, senderId, receiverId);
     }
+
+    public List<DecryptionResultResponse> decryptBatch(List<DecryptionItemRequest> items) {
+        return encryptionService.decryptBatch(items);
+    }
 }
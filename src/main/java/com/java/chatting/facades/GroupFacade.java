@@ -0,0 +1,53 @@
+package com.java.chatting.facades;
+
+import com.java.chatting.dto.request.GroupCreateRequest;
+import com.java.chatting.dto.request.GroupMessageRequest;
+import com.java.chatting.dto.response.GroupMessageResponse;
+import com.java.chatting.dto.response.GroupResponse;
+import com.java.chatting.dto.response.PageResponse;
+import com.java.chatting.services.GroupService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class GroupFacade {
+    GroupService groupService;
+
+    public GroupResponse createGroup(GroupCreateRequest request, int creatorId) {
+        return groupService.createGroup(request, creatorId);
+    }
+
+    public GroupResponse getGroup(int groupId) {
+        return groupService.getGroup(groupId);
+    }
+
+    public List<GroupResponse> getGroupsOfUser(int userId) {
+        return groupService.getGroupsOfUser(userId);
+    }
+
+    public GroupResponse addMember(int groupId, int userId, int callerId) {
+        return groupService.addMember(groupId, userId, callerId);
+    }
+
+    public void removeMember(int groupId, int userId, int callerId) {
+        groupService.removeMember(groupId, userId, callerId);
+    }
+
+    public List<GroupMessageResponse> sendMessage(GroupMessageRequest request) throws Exception {
+        return groupService.sendMessage(request);
+    }
+
+    public PageResponse<GroupMessageResponse> getMessages(int groupId, int userId, int page, int size) {
+        return groupService.getMessages(groupId, userId, page, size);
+    }
+
+    public String decryptMessage(int messageId, int userId) {
+        return groupService.decryptMessage(messageId, userId);
+    }
+}
@@ -1,11 +1,31 @@
 package com.java.chatting.mappers;
 import com.java.chatting.dto.request.ChatRequest;
+import com.java.chatting.dto.response.ChatAttachmentResponse;
 import com.java.chatting.dto.response.ChatResponse;
+import com.java.chatting.dto.response.ThumbnailResponse;
 import com.java.chatting.entities.Chat;
+import com.java.chatting.entities.ChatAttachment;
+import com.java.chatting.entities.ImageThumbnail;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public interface ChatMapper {
+    // Set by the service: the suite of the keys it encrypts with and the conversation of the pair
+    @Mapping(target = "senderSuite", ignore = true)
+    @Mapping(target = "receiverSuite", ignore = true)
+    @Mapping(target = "conversationId", ignore = true)
     Chat requestToEntity(ChatRequest chatRequest);
 
     ChatResponse entityToResponse(Chat chat);
+
+    @Mapping(target = "width", source = "preview.width")
+    @Mapping(target = "height", source = "preview.height")
+    @Mapping(target = "previewStatus", source = "preview.status")
+    @Mapping(target = "thumbnails", source = "preview.thumbnails")
+    ChatAttachmentResponse attachmentToResponse(ChatAttachment chatAttachment);
+
+    List<ThumbnailResponse> thumbnailsToResponse(List<ImageThumbnail> thumbnails);
 }
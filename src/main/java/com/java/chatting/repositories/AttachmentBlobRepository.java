@@ -0,0 +1,55 @@
+package com.java.chatting.repositories;
+
+import com.java.chatting.entities.AttachmentBlob;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, Integer> {
+
+    Optional<AttachmentBlob> findBySha256(String sha256);
+
+    // Stored files among the hashes that the user uploaded, sent or received
+    @Query("SELECT b FROM AttachmentBlob b WHERE b.sha256 IN :sha256 AND (:userId MEMBER OF b.uploaderIds"
+            + " OR EXISTS (SELECT a.id FROM ChatAttachment a WHERE a.fileUrl = b.fileUrl"
+            + " AND (a.chat.senderId = :userId OR a.chat.receiverId = :userId)))")
+    List<AttachmentBlob> findVisibleTo(@Param("sha256") Collection<String> sha256, @Param("userId") int userId);
+
+    boolean existsByFileUrl(String fileUrl);
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO attachment_blob_uploaders (blob_id, user_id) VALUES (:blobId, :userId)", nativeQuery = true)
+    int addUploader(@Param("blobId") int blobId, @Param("userId") int userId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.lastUploadedAt = :now WHERE b.id IN :ids")
+    int touch(@Param("ids") Collection<Integer> ids, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.refCount = b.refCount + 1 WHERE b.fileUrl = :fileUrl AND b.deletedAt IS NULL")
+    int addReference(@Param("fileUrl") String fileUrl);
+
+    @Query("SELECT b FROM AttachmentBlob b WHERE b.refCount = 0 AND b.lastUploadedAt < :cutoff AND b.deletedAt IS NULL ORDER BY b.id")
+    List<AttachmentBlob> findUnreferenced(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Re-checks the conditions, so a file that was referenced or uploaded again since it was listed is kept. The row
+    // lock taken by addReference orders the two: a reference either lands first or finds the entry deleted
+    @Transactional
+    @Modifying
+    @Query("UPDATE AttachmentBlob b SET b.sha256 = NULL, b.deletedAt = :now"
+            + " WHERE b.id = :id AND b.refCount = 0 AND b.lastUploadedAt < :cutoff AND b.deletedAt IS NULL")
+    int markDeletedIfUnreferenced(@Param("id") int id, @Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+}
@@ -5,6 +5,7 @@ import com.java.chatting.entities.Chat;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,8 +13,23 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 @Repository
 public interface ChatRepository extends JpaRepository<Chat, Integer> {
+    @Query("""
+            SELECT c.id, c.senderId, c.receiverId, c.messageEncryptForSender, c.messageEncryptForReceiver
+            FROM Chat c
+            WHERE c.id > :afterId
+              AND (c.messageEncryptForSender NOT LIKE 'v1.%' OR c.messageEncryptForReceiver NOT LIKE 'v1.%')
+            ORDER BY c.id
+            """)
+    List<Object[]> findUntaggedCiphertexts(@Param("afterId") int afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Chat c SET c.messageEncryptForSender = :forSender, c.messageEncryptForReceiver = :forReceiver WHERE c.id = :id")
+    int updateCiphertexts(@Param("id") int id, @Param("forSender") String forSender, @Param("forReceiver") String forReceiver);
+
     List<Chat> findBySenderIdAndReceiverIdOrderBySentAtAsc(int senderId, int receiverId);
 
+    boolean existsBySenderIdAndReceiverId(int senderId, int receiverId);
+
 
     @Query("""
             SELECT DISTINCT userId, MAX(lastMessageTime) as lastMessageTime
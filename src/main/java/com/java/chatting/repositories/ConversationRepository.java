@@ -0,0 +1,15 @@
+package com.java.chatting.repositories;
+
+import com.java.chatting.entities.Conversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ConversationRepository extends JpaRepository<Conversation, Integer> {
+    // Served by the unique (tenant_id, landlord_id, room_post_id) index
+    boolean existsByTenantIdAndLandlordIdAndRoomPostId(int tenantId, int landlordId, int roomPostId);
+
+    Optional<Conversation> findByTenantIdAndLandlordIdAndRoomPostId(int tenantId, int landlordId, int roomPostId);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +18,5 @@ public interface EncryptionKeyRepository extends JpaRepository<EncryptionKey,Int
     @Query("SELECT e FROM EncryptionKey e WHERE e.userId = :userId")
     Optional<EncryptionKey> findByUserIdWithLock(int userId);
     List<EncryptionKey> findAllByUserId(int userId);
+    List<EncryptionKey> findAllByUserIdIn(Collection<Integer> userIds);
 }
@@ -0,0 +1,13 @@
+package com.java.chatting.repositories;
+
+import com.java.chatting.entities.GroupConversation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GroupConversationRepository extends JpaRepository<GroupConversation, Integer> {
+    List<GroupConversation> findAllByIdIn(Collection<Integer> ids);
+}
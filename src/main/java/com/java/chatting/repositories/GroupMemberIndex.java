@@ -0,0 +1,69 @@
+package com.java.chatting.repositories;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.java.chatting.configurations.group.GroupProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cached member lists per group, kept as sorted int arrays so fan-out iterates primitives and membership
+ * checks are a binary search. Membership changes invalidate the group's entry; the TTL bounds staleness
+ * for changes made on other nodes.
+ */
+@Slf4j
+@Repository
+public class GroupMemberIndex {
+
+    private final LoadingCache<Integer, int[]> membersByGroup;
+
+    public GroupMemberIndex(GroupMemberRepository groupMemberRepository, GroupProperties properties) {
+        this.membersByGroup = Caffeine.newBuilder()
+                .maximumSize(properties.getMembershipCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getMembershipCacheTtlSeconds()))
+                .build(groupId -> toSortedArray(groupMemberRepository.findUserIdsByGroupId(groupId)));
+    }
+
+    /**
+     * @return the members of the group in ascending order; shared, must not be modified
+     */
+    public int[] members(int groupId) {
+        return membersByGroup.get(groupId);
+    }
+
+    public boolean isMember(int groupId, int userId) {
+        return Arrays.binarySearch(members(groupId), userId) >= 0;
+    }
+
+    /**
+     * Drops the cached members of the group once the current transaction commits, so the next read
+     * cannot reload the old member list in between.
+     */
+    public void invalidate(int groupId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    membersByGroup.invalidate(groupId);
+                }
+            });
+        } else {
+            membersByGroup.invalidate(groupId);
+        }
+    }
+
+    private static int[] toSortedArray(List<Integer> userIds) {
+        int[] members = new int[userIds.size()];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = userIds.get(i);
+        }
+        Arrays.sort(members);
+        return members;
+    }
+}
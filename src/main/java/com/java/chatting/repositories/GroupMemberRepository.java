@@ -0,0 +1,27 @@
+package com.java.chatting.repositories;
+
+import com.java.chatting.entities.GroupMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GroupMemberRepository extends JpaRepository<GroupMember, Integer> {
+    @Query("SELECT m.userId FROM GroupMember m WHERE m.groupId = :groupId")
+    List<Integer> findUserIdsByGroupId(@Param("groupId") int groupId);
+
+    @Query("SELECT m.groupId FROM GroupMember m WHERE m.userId = :userId")
+    List<Integer> findGroupIdsByUserId(@Param("userId") int userId);
+
+    boolean existsByGroupIdAndUserId(int groupId, int userId);
+
+    int countByGroupId(int groupId);
+
+    @Modifying
+    @Query("DELETE FROM GroupMember m WHERE m.groupId = :groupId AND m.userId = :userId")
+    int deleteMember(@Param("groupId") int groupId, @Param("userId") int userId);
+}
@@ -0,0 +1,16 @@
+package com.java.chatting.repositories;
+
+import com.java.chatting.entities.GroupMessageKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GroupMessageKeyRepository extends JpaRepository<GroupMessageKey, Integer> {
+    Optional<GroupMessageKey> findByMessageIdAndUserId(int messageId, int userId);
+
+    List<GroupMessageKey> findAllByUserIdAndMessageIdIn(int userId, Collection<Integer> messageIds);
+}
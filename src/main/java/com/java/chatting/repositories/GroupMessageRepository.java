@@ -0,0 +1,12 @@
+package com.java.chatting.repositories;
+
+import com.java.chatting.entities.GroupMessage;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GroupMessageRepository extends JpaRepository<GroupMessage, Integer> {
+    Page<GroupMessage> findByGroupIdOrderByIdDesc(int groupId, Pageable pageable);
+}
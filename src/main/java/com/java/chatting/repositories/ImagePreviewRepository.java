@@ -0,0 +1,13 @@
+package com.java.chatting.repositories;
+
+import com.java.chatting.entities.ImagePreview;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImagePreviewRepository extends JpaRepository<ImagePreview, Integer> {
+
+    Optional<ImagePreview> findByFileUrl(String fileUrl);
+}
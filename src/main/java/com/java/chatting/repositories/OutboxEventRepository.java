@@ -0,0 +1,29 @@
+package com.java.chatting.repositories;
+
+import com.java.chatting.entities.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    List<OutboxEvent> findByUserIdOrderByIdAsc(int userId, Pageable pageable);
+
+    long countByUserId(int userId);
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.userId = :userId ORDER BY e.id DESC")
+    List<Long> findIdsNewestFirst(@Param("userId") int userId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.userId = :userId AND e.id <= :upToId")
+    int deleteUpTo(@Param("userId") int userId, @Param("upToId") long upToId);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.userId = :userId AND e.compactionKey = :compactionKey")
+    int deleteByCompactionKey(@Param("userId") int userId, @Param("compactionKey") String compactionKey);
+}
@@ -1,29 +1,76 @@
 package com.java.chatting.repositories;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.java.chatting.configurations.room.RoomProperties;
 import com.java.chatting.dto.response.GenericApiResponse;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.DownstreamUnavailableException;
+import com.java.chatting.exception.ErrorCode;
 import com.java.chatting.repositories.clients.RoomClient;
 import com.java.chatting.repositories.clients.dto.response.RoomSalePostResponse;
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+
 @Slf4j
 @Repository
-@RequiredArgsConstructor(onConstructor = @__(@Autowired))
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class RoomRepository {
     RoomClient roomClient;
+    // Room post id -> owner user id. Concurrent misses for the same post share one call to the marketing service.
+    LoadingCache<Integer, Integer> ownerByRoomPost;
+
+    public RoomRepository(RoomClient roomClient, RoomProperties properties) {
+        this.roomClient = roomClient;
+        this.ownerByRoomPost = Caffeine.newBuilder()
+                .maximumSize(properties.getOwnerCacheSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getOwnerCacheTtlSeconds()))
+                .build(this::loadOwnerId);
+    }
 
     public RoomSalePostResponse getRoomById(int id) {
         RoomSalePostResponse result = null;
         GenericApiResponse<RoomSalePostResponse> clientResponse = roomClient.getRoomById(id);
         if (ObjectUtils.isNotEmpty(clientResponse)) {
             result = clientResponse.getData();
+            if (result != null) {
+                ownerByRoomPost.put(id, result.getUserId());
+            }
         }
         return result;
     }
+
+    /**
+     * @return the user id of the owner of the room post, cached
+     * @throws AppException ROOM_NOT_FOUND if the post does not exist; misses are not cached
+     * @throws AppException SERVICE_UNAVAILABLE if the post is not cached and the marketing service is unavailable
+     */
+    public int getOwnerId(int roomPostId) {
+        Integer ownerId;
+        try {
+            ownerId = ownerByRoomPost.get(roomPostId);
+        } catch (RuntimeException e) {
+            if (DownstreamUnavailableException.isUnavailable(e)) {
+                throw new AppException(ErrorCode.SERVICE_UNAVAILABLE);
+            }
+            throw e;
+        }
+        if (ownerId == null) {
+            throw new AppException(ErrorCode.ROOM_NOT_FOUND);
+        }
+        return ownerId;
+    }
+
+    private Integer loadOwnerId(Integer roomPostId) {
+        GenericApiResponse<RoomSalePostResponse> clientResponse = roomClient.getRoomById(roomPostId);
+        if (ObjectUtils.isEmpty(clientResponse) || clientResponse.getData() == null) {
+            return null;
+        }
+        return clientResponse.getData().getUserId();
+    }
 }
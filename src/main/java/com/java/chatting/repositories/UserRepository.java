@@ -1,37 +1,90 @@
 package com.java.chatting.repositories;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.java.chatting.configurations.feign.FeignResilienceProperties;
 import com.java.chatting.dto.response.GenericApiResponse;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.DownstreamUnavailableException;
+import com.java.chatting.exception.ErrorCode;
 import com.java.chatting.repositories.clients.UserClient;
 import com.java.chatting.repositories.clients.dto.response.UserProfileResponse;
 import com.java.chatting.repositories.clients.dto.response.UserResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.time.Duration;
+
 @Slf4j
 @Repository
-@RequiredArgsConstructor(onConstructor = @__(@Autowired))
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class UserRepository {
     UserClient userClient;
+    // Last good profile per user, served when the user service is down, too slow or behind an open breaker
+    Cache<Integer, UserProfileResponse> lastKnownProfiles;
+    Counter fallbackHits;
+    Counter fallbackMisses;
+
+    public UserRepository(UserClient userClient, FeignResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.userClient = userClient;
+        this.lastKnownProfiles = Caffeine.newBuilder()
+                .maximumSize(properties.getProfileFallbackSize())
+                .expireAfterWrite(Duration.ofSeconds(properties.getProfileFallbackTtlSeconds()))
+                .build();
+        this.fallbackHits = Counter.builder("chatting.feign.fallbacks")
+                .tag("client", "user").tag("result", "cached").register(meterRegistry);
+        this.fallbackMisses = Counter.builder("chatting.feign.fallbacks")
+                .tag("client", "user").tag("result", "none").register(meterRegistry);
+    }
 
+    /**
+     * @return the profile, or the last one fetched successfully while the user service is unavailable
+     * @throws AppException SERVICE_UNAVAILABLE if the service is unavailable and no profile was cached
+     */
     public UserProfileResponse getUserProfile(int userId) {
         UserProfileResponse result = null;
-        GenericApiResponse<UserProfileResponse> clientResponse = userClient.getProfile(userId);
+        GenericApiResponse<UserProfileResponse> clientResponse;
+        try {
+            clientResponse = userClient.getProfile(userId);
+        } catch (RuntimeException e) {
+            if (!DownstreamUnavailableException.isUnavailable(e)) {
+                throw e;
+            }
+            UserProfileResponse cached = lastKnownProfiles.getIfPresent(userId);
+            if (cached == null) {
+                fallbackMisses.increment();
+                throw new AppException(ErrorCode.SERVICE_UNAVAILABLE);
+            }
+            log.debug("Serving cached profile of user {}: {}", userId, e.getMessage());
+            fallbackHits.increment();
+            return cached;
+        }
 
         if (ObjectUtils.isNotEmpty(clientResponse)) {
             result = clientResponse.getData();
+            if (result != null) {
+                lastKnownProfiles.put(userId, result);
+            }
         }
         return result;
     }
     public UserResponse getMyInfo() {
         UserResponse result = null;
-        GenericApiResponse<UserResponse> clientResponse = userClient.getMyInfo();
+        GenericApiResponse<UserResponse> clientResponse;
+        try {
+            clientResponse = userClient.getMyInfo();
+        } catch (RuntimeException e) {
+            if (DownstreamUnavailableException.isUnavailable(e)) {
+                throw new AppException(ErrorCode.SERVICE_UNAVAILABLE);
+            }
+            throw e;
+        }
 
         if (ObjectUtils.isNotEmpty(clientResponse)) {
             result = clientResponse.getData();
@@ -4,6 +4,8 @@ import com.java.chatting.entities.UserStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 @Repository
 public interface UserStatusRepository extends JpaRepository<UserStatus,Integer> {
@@ -11,4 +13,5 @@ public interface UserStatusRepository extends JpaRepository<UserStatus,Integer>
     Optional<UserStatus> findByUserIdAndStatus(int userId, String status);
     int countByStatus(String status);
     int countByUserIdAndStatus(int userId, String status);
+    List<UserStatus> findAllByUserIdIn(Collection<Integer> userIds);
 }
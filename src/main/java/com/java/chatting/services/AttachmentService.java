@@ -0,0 +1,24 @@
+package com.java.chatting.services;
+
+import com.java.chatting.dto.response.AttachmentResponse;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+public interface AttachmentService {
+
+    /**
+     * Uploads the attachments of a message concurrently. Images get thumbnails, rendered in the background.
+     *
+     * @return the uploaded files, in the order of {@code files}
+     */
+    List<AttachmentResponse> upload(List<MultipartFile> files, int userId);
+
+    /**
+     * Finds files already stored by the SHA-256 of their content, so that a client can send them without uploading.
+     * Only files the user uploaded, sent or received are found.
+     *
+     * @return the stored files among {@code sha256}; unknown hashes are left out
+     */
+    List<AttachmentResponse> lookup(List<String> sha256, int userId);
+}
@@ -0,0 +1,44 @@
+package com.java.chatting.services;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+/**
+ * Where attachment files live. Files are addressed by a name relative to the store, such as
+ * {@code chat/<uuid>_photo.jpg}, and published under a URL clients can download without a token. Selected by
+ * {@code chatting.upload.store}: Cloud Storage ({@code firebase}) or a local directory ({@code local}).
+ */
+public interface AttachmentStore {
+
+    /**
+     * Stores the files concurrently under {@code folder}. If one fails, the ones that were stored are deleted again
+     * and the whole call fails.
+     *
+     * @return the stored files, in the order of {@code files}
+     */
+    List<StoredFile> store(String folder, List<MultipartFile> files);
+
+    /**
+     * Stores a small generated file, such as a thumbnail, under the given name.
+     */
+    void storeBytes(String name, String contentType, byte[] content);
+
+    String publicUrl(String name);
+
+    /**
+     * @return the name behind a URL made by {@link #publicUrl}, null for any other URL
+     */
+    String nameOf(String url);
+
+    /**
+     * Deletes the files, logging instead of failing when that is not possible.
+     */
+    void deleteQuietly(List<String> names);
+
+    /**
+     * A stored file, with the hex SHA-256 and size of its content.
+     */
+    record StoredFile(String name, String sha256, long size) {
+    }
+}
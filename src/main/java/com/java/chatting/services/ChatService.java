@@ -1,5 +1,6 @@
 package com.java.chatting.services;
 
+import com.java.chatting.configurations.crypto.Encrypted;
 import com.java.chatting.constants.MessageStatus;
 import com.java.chatting.dto.request.ChatRequest;
 import com.java.chatting.dto.response.UserChatHistoryResponse;
@@ -11,7 +12,7 @@ import com.java.chatting.entities.Chat;
 import java.util.List;
 
 public interface ChatService {
-    ChatResponse saveChat(ChatRequest request, String encryptedMessageForReceiver, String encryptedMessageForSender);
+    ChatResponse saveChat(ChatRequest request, Encrypted encryptedMessageForReceiver, Encrypted encryptedMessageForSender);
     List<ChatResponse> getChatsHistory(int senderId, int receiverId);
     ChatResponse updateChatStatus(int chatId, MessageStatus status);
     int getUnreadMessageCount(int userId);
@@ -0,0 +1,31 @@
+package com.java.chatting.services;
+
+import java.util.function.Consumer;
+
+/**
+ * Entry point for everything pushed to STOMP clients, so that delivery keeps working when the
+ * application runs on more than one node.
+ */
+public interface ClusterBus {
+
+    /**
+     * Sends {@code payload} to {@code destination} on every node where at least one of {@code recipients}
+     * has a session. Without recipients the payload goes to every node.
+     */
+    void publish(String destination, Object payload, int... recipients);
+
+    /**
+     * Sends {@code payload} to every session of {@code userId}, on whichever node it is connected.
+     * Clients receive it by subscribing to {@code /user} followed by {@code userQueue}.
+     *
+     * @return false if the user has no session on any node, the payload was not sent anywhere
+     */
+    boolean sendToUser(int userId, String userQueue, Object payload);
+
+    /**
+     * Hands {@code event} to the listeners of {@code channel} on every other node.
+     */
+    void broadcast(String channel, Object event);
+
+    <T> void subscribe(String channel, Class<T> type, Consumer<T> listener);
+}
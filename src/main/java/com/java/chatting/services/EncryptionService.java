@@ -1,11 +1,17 @@
 package com.java.chatting.services;
 
+import com.java.chatting.configurations.crypto.Encrypted;
 import com.java.chatting.dto.request.ChatRequest;
+import com.java.chatting.dto.request.DecryptionItemRequest;
 import com.java.chatting.dto.response.ChatResponse;
 import com.java.chatting.dto.response.DecryptedMessageResponse;
+import com.java.chatting.dto.response.DecryptionResultResponse;
 import com.java.chatting.dto.response.EncryptionKeyResponse;
 
+import javax.crypto.SecretKey;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 public interface EncryptionService {
@@ -16,4 +22,31 @@ public interface EncryptionService {
     String encryptMessageForSender(String message, String publicKey) throws  Exception;
     String encryptMessageForReceiver(String message, String publicKey) throws  Exception;
     String decryptMessage(String encryptedMessage, int senderId, int receiverId);
+
+    /**
+     * Decrypts a page of messages with the keys of all their users loaded once, in parallel. Results are in the
+     * order of {@code items}; an item that can't be decrypted gets an error instead of failing the batch.
+     */
+    List<DecryptionResultResponse> decryptBatch(List<DecryptionItemRequest> items);
+
+    /**
+     * Adds the key tag to the untagged ciphertexts of up to {@code batchSize} chats with an id above
+     * {@code afterChatId}.
+     *
+     * @return id of the last chat looked at, to continue from, or -1 when none are left
+     */
+    int tagLegacyCiphertexts(int afterChatId, int batchSize);
+
+    /**
+     * Encrypts with the user's key, under that key's cipher suite; a user without a key gets one first.
+     */
+    Encrypted encryptForUser(String message, int userId) throws Exception;
+    SecretKey generateContentKey() throws Exception;
+    String encryptWithContentKey(String message, SecretKey contentKey) throws Exception;
+
+    /**
+     * Content key wrapped for each user, keys loaded in one query; users without keys get a new key pair.
+     */
+    Map<Integer, Encrypted> wrapContentKeyForUsers(SecretKey contentKey, Collection<Integer> userIds) throws Exception;
+    String decryptWithWrappedKey(String ciphertext, String wrappedKey, int userId);
 }
@@ -0,0 +1,42 @@
+package com.java.chatting.services;
+
+import com.java.chatting.dto.request.GroupCreateRequest;
+import com.java.chatting.dto.request.GroupMessageRequest;
+import com.java.chatting.dto.response.GroupMessageResponse;
+import com.java.chatting.dto.response.GroupResponse;
+import com.java.chatting.dto.response.PageResponse;
+
+import java.util.List;
+
+public interface GroupService {
+    GroupResponse createGroup(GroupCreateRequest request, int creatorId);
+    GroupResponse getGroup(int groupId);
+    List<GroupResponse> getGroupsOfUser(int userId);
+
+    /**
+     * @param callerId must be the creator or a member of the group
+     */
+    GroupResponse addMember(int groupId, int userId, int callerId);
+
+    /**
+     * @param callerId must be the creator or a member of the group, or the member leaving
+     */
+    void removeMember(int groupId, int userId, int callerId);
+
+    /**
+     * Encrypts and stores the message once, with the content key wrapped for every member.
+     *
+     * @return one response per member, each carrying that member's wrapped key
+     */
+    List<GroupMessageResponse> sendMessage(GroupMessageRequest request) throws Exception;
+
+    /**
+     * @param userId must be a member of the group
+     */
+    PageResponse<GroupMessageResponse> getMessages(int groupId, int userId, int page, int size);
+
+    /**
+     * @param userId must be a member of the message's group
+     */
+    String decryptMessage(int messageId, int userId);
+}
@@ -0,0 +1,28 @@
+package com.java.chatting.services;
+
+import com.java.chatting.constants.SocketDestination;
+import com.java.chatting.dto.response.OutboxBatchResponse;
+import com.java.chatting.utils.EncodedPayload;
+
+/**
+ * Per-user store of socket events that were sent while the user had no session anywhere.
+ */
+public interface OutboxService {
+
+    /**
+     * @param compactionKey events of a user with the same key replace each other, null keeps every event
+     */
+    void store(int userId, SocketDestination destination, EncodedPayload payload, String compactionKey);
+
+    /**
+     * @return the oldest pending events of the user, at most one replay batch
+     */
+    OutboxBatchResponse pending(int userId);
+
+    /**
+     * Removes every event of the user up to and including {@code seq}.
+     *
+     * @return the number of removed events
+     */
+    int acknowledge(int userId, long seq);
+}
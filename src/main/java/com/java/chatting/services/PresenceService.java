@@ -0,0 +1,7 @@
+package com.java.chatting.services;
+
+public interface PresenceService {
+    void heartbeat(int userId);
+    void disconnected(int userId);
+    boolean isOnline(int userId);
+}
@@ -0,0 +1,113 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.entities.AttachmentBlob;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.repositories.AttachmentBlobRepository;
+import com.java.chatting.services.AttachmentStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Content-addressed index of stored attachments: the SHA-256 of a file's content maps to the one object holding
+ * it. A freshly uploaded file either becomes the stored copy of its content or, when the content is stored
+ * already, is deleted in favour of the existing object. Clients that hash a file before sending it can look the
+ * hash up and skip the upload altogether, for files they uploaded, sent or received before: a hash alone does not
+ * give access to anybody else's file.
+ * <p>
+ * Meters: {@code chatting.upload.deduplicated} (uploads answered with an existing file) and
+ * {@code chatting.upload.deduplicated.bytes} (storage they did not take).
+ */
+@Component
+public class AttachmentIndex {
+
+    private final AttachmentBlobRepository attachmentBlobRepository;
+    private final AttachmentStore attachmentStore;
+    private final Counter deduplicated;
+    private final Counter deduplicatedBytes;
+
+    public AttachmentIndex(AttachmentBlobRepository attachmentBlobRepository, AttachmentStore attachmentStore,
+                           MeterRegistry meterRegistry) {
+        this.attachmentBlobRepository = attachmentBlobRepository;
+        this.attachmentStore = attachmentStore;
+        this.deduplicated = Counter.builder("chatting.upload.deduplicated").register(meterRegistry);
+        this.deduplicatedBytes = Counter.builder("chatting.upload.deduplicated.bytes").baseUnit("bytes").register(meterRegistry);
+    }
+
+    /**
+     * Registers a freshly uploaded file under the hash of its content.
+     *
+     * @return the stored copy of the content: a new entry for {@code stored}, or the existing one, in which case
+     * {@code stored} has been deleted
+     */
+    public AttachmentBlob claim(AttachmentStore.StoredFile stored, String contentType, int userId) {
+        Optional<AttachmentBlob> existing = attachmentBlobRepository.findBySha256(stored.sha256());
+        if (existing.isEmpty()) {
+            try {
+                return attachmentBlobRepository.saveAndFlush(newBlob(stored, contentType, userId));
+            } catch (DataIntegrityViolationException e) {
+                // The same content uploaded concurrently; the other upload won
+                existing = Optional.of(attachmentBlobRepository.findBySha256(stored.sha256()).orElseThrow(() -> e));
+            }
+        }
+        AttachmentBlob blob = existing.get();
+        attachmentStore.deleteQuietly(List.of(stored.name()));
+        attachmentBlobRepository.addUploader(blob.getId(), userId);
+        attachmentBlobRepository.touch(List.of(blob.getId()), LocalDateTime.now());
+        deduplicated.increment();
+        deduplicatedBytes.increment(stored.size());
+        return blob;
+    }
+
+    /**
+     * @return the stored files among the given content hashes that {@code userId} uploaded, sent or received;
+     * looking them up keeps them from being swept
+     */
+    public List<AttachmentBlob> lookup(Collection<String> sha256, int userId) {
+        List<AttachmentBlob> blobs = attachmentBlobRepository.findVisibleTo(sha256, userId);
+        if (!blobs.isEmpty()) {
+            attachmentBlobRepository.touch(blobs.stream().map(AttachmentBlob::getId).toList(), LocalDateTime.now());
+            deduplicated.increment(blobs.size());
+            blobs.forEach(blob -> deduplicatedBytes.increment(blob.getSize()));
+        }
+        return blobs;
+    }
+
+    /**
+     * Counts one more message sending the file, in the caller's transaction. The sweeper cannot delete the file
+     * while that transaction holds the entry; if it deleted the file first, the message fails instead of pointing
+     * at nothing. URLs without an entry, stored before deduplication or elsewhere, are let through.
+     *
+     * @throws AppException ATTACHMENT_NOT_FOUND when the file has been deleted
+     */
+    public void reference(String fileUrl) {
+        if (attachmentBlobRepository.addReference(fileUrl) == 0 && attachmentBlobRepository.existsByFileUrl(fileUrl)) {
+            throw new AppException(ErrorCode.ATTACHMENT_NOT_FOUND);
+        }
+    }
+
+    private AttachmentBlob newBlob(AttachmentStore.StoredFile stored, String contentType, int userId) {
+        Set<Integer> uploaderIds = new HashSet<>();
+        uploaderIds.add(userId);
+        LocalDateTime now = LocalDateTime.now();
+        return AttachmentBlob.builder()
+                .sha256(stored.sha256())
+                .fileUrl(attachmentStore.publicUrl(stored.name()))
+                .contentType(contentType)
+                .size(stored.size())
+                .refCount(0)
+                .createdAt(now)
+                .lastUploadedAt(now)
+                .uploaderIds(uploaderIds)
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.firebase.UploadProperties;
+import com.java.chatting.constants.BucketConstants;
+import com.java.chatting.dto.response.AttachmentResponse;
+import com.java.chatting.entities.AttachmentBlob;
+import com.java.chatting.entities.ImagePreview;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.mappers.ChatMapper;
+import com.java.chatting.repositories.ImagePreviewRepository;
+import com.java.chatting.services.AttachmentService;
+import com.java.chatting.services.AttachmentStore;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class AttachmentServiceImpl implements AttachmentService {
+    AttachmentStore attachmentStore;
+    AttachmentIndex attachmentIndex;
+    ThumbnailPipeline thumbnailPipeline;
+    ImagePreviewRepository imagePreviewRepository;
+    ChatMapper chatMapper;
+    UploadProperties uploadProperties;
+
+    @Override
+    public List<AttachmentResponse> upload(List<MultipartFile> files, int userId) {
+        if (files == null || files.isEmpty()) {
+            return List.of();
+        }
+        if (files.size() > uploadProperties.getMaxFilesPerRequest()) {
+            throw new AppException(ErrorCode.BATCH_TOO_LARGE);
+        }
+        List<AttachmentStore.StoredFile> storedFiles = attachmentStore.store(BucketConstants.CHAT_FOLDER.getValue(), files);
+        List<AttachmentResponse> responses = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            MultipartFile file = files.get(i);
+            AttachmentStore.StoredFile stored = storedFiles.get(i);
+            String fileUrl = attachmentStore.publicUrl(stored.name());
+            ImagePreview preview;
+            if (uploadProperties.isDeduplicate()) {
+                AttachmentBlob blob = attachmentIndex.claim(stored, file.getContentType(), userId);
+                boolean duplicate = !blob.getFileUrl().equals(fileUrl);
+                fileUrl = blob.getFileUrl();
+                // The stored copy got its preview, if any, when it was uploaded
+                preview = duplicate
+                        ? imagePreviewRepository.findByFileUrl(fileUrl).orElse(null)
+                        : thumbnailPipeline.submit(file, stored.name());
+            } else {
+                preview = thumbnailPipeline.submit(file, stored.name());
+            }
+            AttachmentResponse response = AttachmentResponse.builder()
+                    .fileUrl(fileUrl)
+                    .contentType(file.getContentType())
+                    .size(stored.size())
+                    .sha256(stored.sha256())
+                    .build();
+            withPreview(response, preview);
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    @Override
+    public List<AttachmentResponse> lookup(List<String> sha256, int userId) {
+        if (sha256 == null || sha256.isEmpty() || !uploadProperties.isDeduplicate()) {
+            return List.of();
+        }
+        if (sha256.size() > uploadProperties.getMaxFilesPerRequest()) {
+            throw new AppException(ErrorCode.BATCH_TOO_LARGE);
+        }
+        List<String> hashes = sha256.stream()
+                .map(hash -> hash.toLowerCase(Locale.ROOT))
+                .distinct()
+                .toList();
+        return attachmentIndex.lookup(hashes, userId).stream()
+                .map(blob -> {
+                    AttachmentResponse response = AttachmentResponse.builder()
+                            .fileUrl(blob.getFileUrl())
+                            .contentType(blob.getContentType())
+                            .size(blob.getSize())
+                            .sha256(blob.getSha256())
+                            .build();
+                    withPreview(response, imagePreviewRepository.findByFileUrl(blob.getFileUrl()).orElse(null));
+                    return response;
+                })
+                .toList();
+    }
+
+    private void withPreview(AttachmentResponse response, ImagePreview preview) {
+        if (preview != null) {
+            response.setWidth(preview.getWidth());
+            response.setHeight(preview.getHeight());
+            response.setPreviewStatus(preview.getStatus());
+            response.setThumbnails(chatMapper.thumbnailsToResponse(preview.getThumbnails()));
+        }
+    }
+}
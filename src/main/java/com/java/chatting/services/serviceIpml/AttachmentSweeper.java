@@ -0,0 +1,101 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.firebase.UploadProperties;
+import com.java.chatting.entities.AttachmentBlob;
+import com.java.chatting.entities.ImageThumbnail;
+import com.java.chatting.repositories.AttachmentBlobRepository;
+import com.java.chatting.repositories.ImagePreviewRepository;
+import com.java.chatting.services.AttachmentStore;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes stored attachments no message refers to once {@code chatting.upload.orphan-ttl} has passed since they
+ * were last uploaded or looked up: files uploaded and never sent, with their thumbnails. Runs on every node;
+ * the conditional update marking the index entry deleted decides which node removes a file. The entry is kept, so
+ * that a message still sending the URL fails instead of pointing at nothing.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttachmentSweeper {
+
+    private final AttachmentBlobRepository attachmentBlobRepository;
+    private final ImagePreviewRepository imagePreviewRepository;
+    private final AttachmentStore attachmentStore;
+    private final UploadProperties properties;
+    private ScheduledExecutorService scheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!properties.isDeduplicate()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "attachment-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.getSweepInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * @return number of files deleted
+     */
+    int sweep() {
+        int deleted = 0;
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(properties.getOrphanTtl());
+            List<AttachmentBlob> batch;
+            do {
+                batch = attachmentBlobRepository.findUnreferenced(cutoff, PageRequest.of(0, properties.getSweepBatchSize()));
+                for (AttachmentBlob blob : batch) {
+                    if (attachmentBlobRepository.markDeletedIfUnreferenced(blob.getId(), cutoff, LocalDateTime.now()) == 1) {
+                        deleteFiles(blob);
+                        deleted++;
+                    }
+                }
+            } while (batch.size() == properties.getSweepBatchSize());
+        } catch (RuntimeException e) {
+            log.warn("Attachment sweep stopped after {} files, it resumes on the next run", deleted, e);
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} unreferenced attachments", deleted);
+        }
+        return deleted;
+    }
+
+    private void deleteFiles(AttachmentBlob blob) {
+        List<String> names = new ArrayList<>();
+        names.add(attachmentStore.nameOf(blob.getFileUrl()));
+        imagePreviewRepository.findByFileUrl(blob.getFileUrl()).ifPresent(preview -> {
+            preview.getThumbnails().stream()
+                    .map(ImageThumbnail::getUrl)
+                    .map(attachmentStore::nameOf)
+                    .forEach(names::add);
+            imagePreviewRepository.delete(preview);
+        });
+        attachmentStore.deleteQuietly(names.stream().filter(Objects::nonNull).toList());
+    }
+}
@@ -1,5 +1,6 @@
 package com.java.chatting.services.serviceIpml;
 
+import com.java.chatting.configurations.crypto.Encrypted;
 import com.java.chatting.constants.MessageStatus;
 import com.java.chatting.constants.MessageType;
 import com.java.chatting.dto.request.ChatRequest;
@@ -10,20 +11,24 @@ import com.java.chatting.dto.response.UserChatHistoryResponse;
 import com.java.chatting.entities.Chat;
 import com.java.chatting.entities.ChatAttachment;
 import com.java.chatting.entities.ChatStatus;
+import com.java.chatting.entities.Conversation;
+import com.java.chatting.entities.ImagePreview;
 import com.java.chatting.exception.AppException;
 import com.java.chatting.exception.ErrorCode;
 import com.java.chatting.mappers.ChatMapper;
 import com.java.chatting.repositories.ChatAttachmentRepository;
 import com.java.chatting.repositories.ChatRepository;
 import com.java.chatting.repositories.ChatStatusRepository;
+import com.java.chatting.repositories.ConversationRepository;
+import com.java.chatting.repositories.ImagePreviewRepository;
+import com.java.chatting.repositories.RoomRepository;
 import com.java.chatting.repositories.UserRepository;
-import com.java.chatting.repositories.clients.RoomClient;
-import com.java.chatting.repositories.clients.UserClient;
 import com.java.chatting.repositories.clients.dto.response.UserProfileResponse;
 import com.java.chatting.services.ChatService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -45,23 +50,34 @@ public class ChatServiceImpl implements ChatService {
     private final UserRepository userRepository;
     private final ChatStatusRepository chatStatusRepository;
     private final ChatAttachmentRepository chatAttachmentRepository;
-    private final UserClient userClient;
-    private final RoomClient roomClient;
+    private final RoomRepository roomRepository;
+    private final ConversationRepository conversationRepository;
+    private final ImagePreviewRepository imagePreviewRepository;
+    private final AttachmentIndex attachmentIndex;
 
     @Override
     @Transactional
-    public ChatResponse saveChat(ChatRequest request, String encryptedMessageForReceiver, String encryptedMessageForSender) {
+    public ChatResponse saveChat(ChatRequest request, Encrypted encryptedMessageForReceiver, Encrypted encryptedMessageForSender) {
         var sender = userRepository.getUserProfile(request.getSenderId());
         var receiver = userRepository.getUserProfile(request.getReceiverId());
         if (sender == null || receiver == null) throw new AppException(ErrorCode.USER_NOT_FOUND);
 
+        boolean hasFile = request.getFileUrl() != null && !request.getFileUrl().isEmpty();
+        // Images uploaded through the attachment API have a preview, saved when they were uploaded
+        ImagePreview preview = hasFile ? imagePreviewRepository.findByFileUrl(request.getFileUrl()).orElse(null) : null;
+        if (hasFile) {
+            // Keeps a deduplicated upload from being swept, fails the send if it already was
+            attachmentIndex.reference(request.getFileUrl());
+        }
         Chat chatEntity = Chat.builder()
                 .senderId(request.getSenderId())
                 .receiverId(request.getReceiverId())
                 .isEncrypted(request.isEncrypted())
-                .messageEncryptForSender(encryptedMessageForSender)
-                .messageEncryptForReceiver(encryptedMessageForReceiver)
-                .messageType(determineMessageType(request))
+                .messageEncryptForSender(encryptedMessageForSender.ciphertext())
+                .messageEncryptForReceiver(encryptedMessageForReceiver.ciphertext())
+                .senderSuite(encryptedMessageForSender.suite())
+                .receiverSuite(encryptedMessageForReceiver.suite())
+                .messageType(determineMessageType(hasFile, preview))
                 .sentAt(LocalDateTime.now())
                 .build();
         chatEntity = chatRepository.save(chatEntity);
@@ -75,18 +91,22 @@ public class ChatServiceImpl implements ChatService {
                 .build();
         chatStatusRepository.save(chatStatus);
 
-        if (request.getFileUrl() != null && !request.getFileUrl().isEmpty()) {
+        if (hasFile) {
             ChatAttachment chatAttachment = new ChatAttachment();
             chatAttachment.setChat(chatEntity);
             chatAttachment.setFileUrl(request.getFileUrl());
-            chatAttachmentRepository.save(chatAttachment);
+            chatAttachment.setPreview(preview);
+            chatEntity.setChatAttachment(chatAttachmentRepository.save(chatAttachment));
         }
 
         return chatMapper.entityToResponse(chatEntity);
     }
 
-    private MessageType determineMessageType(ChatRequest request) {
-        return request.getFileUrl() != null && !request.getFileUrl().isEmpty() ? MessageType.FILE : TEXT;
+    private MessageType determineMessageType(boolean hasFile, ImagePreview preview) {
+        if (preview != null) {
+            return MessageType.IMAGE;
+        }
+        return hasFile ? MessageType.FILE : TEXT;
     }
 
     @Override
@@ -176,22 +196,38 @@ public class ChatServiceImpl implements ChatService {
     public Chat createInitialChat(int id) {
         var sender = userRepository.getMyInfo();
         int senderId = sender.getId();
-        var receiver = roomClient.getRoomById(id);
-        int receiverId = receiver.getData().getUserId();
-        // Check if a chat already exists between these users
-        List<Chat> existingChats = chatRepository.findChatsBetweenUsers(senderId, receiverId);
-        if (existingChats.isEmpty()) {
-            Chat initialChat = new Chat();
-            initialChat.setSenderId(senderId);
-            initialChat.setReceiverId(receiverId);
-            initialChat.setMessageEncryptForSender("");
-            initialChat.setMessageEncryptForReceiver("");
-            initialChat.setEncrypted(false);
-            initialChat.setMessageType(TEXT); // Assuming TEXT as default
-            initialChat.setSentAt(LocalDateTime.now());
-            return chatRepository.save(initialChat);
+        int receiverId = roomRepository.getOwnerId(id);
+        if (senderId == receiverId
+                || conversationRepository.existsByTenantIdAndLandlordIdAndRoomPostId(senderId, receiverId, id)) {
+            return null;
+        }
+        Conversation conversation;
+        try {
+            conversation = conversationRepository.saveAndFlush(Conversation.builder()
+                    .tenantId(senderId)
+                    .landlordId(receiverId)
+                    .roomPostId(id)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // Another click on the same post won the insert
+            return null;
+        }
+        // The empty opening chat only starts a new thread; in an existing one it would blank the last message
+        if (chatRepository.existsBySenderIdAndReceiverId(senderId, receiverId)
+                || chatRepository.existsBySenderIdAndReceiverId(receiverId, senderId)) {
+            return null;
         }
-        return null;
+        Chat initialChat = new Chat();
+        initialChat.setSenderId(senderId);
+        initialChat.setReceiverId(receiverId);
+        initialChat.setMessageEncryptForSender("");
+        initialChat.setMessageEncryptForReceiver("");
+        initialChat.setEncrypted(false);
+        initialChat.setMessageType(TEXT); // Assuming TEXT as default
+        initialChat.setSentAt(LocalDateTime.now());
+        initialChat.setConversationId(conversation.getId());
+        return chatRepository.save(initialChat);
     }
 
     @Override
@@ -204,9 +240,9 @@ public class ChatServiceImpl implements ChatService {
                 .collect(Collectors.toList());
         Map<Integer, UserProfileResponse> userProfiles = new HashMap<>();
         for (Integer receiverId : receiverIds) {
-            var userProfileResponse = userClient.getProfile(receiverId);
-            if (userProfileResponse != null && userProfileResponse.getData() != null) {
-                userProfiles.put(receiverId, userProfileResponse.getData());
+            var userProfile = userRepository.getUserProfile(receiverId);
+            if (userProfile != null) {
+                userProfiles.put(receiverId, userProfile);
             }
         }
         List<UserChatHistoryResponse> responses = new ArrayList<>();
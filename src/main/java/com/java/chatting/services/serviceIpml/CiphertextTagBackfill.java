@@ -0,0 +1,45 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.crypto.CryptoProperties;
+import com.java.chatting.services.EncryptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the key tag to chat ciphertexts written before tags existed, one transaction per batch, on a background
+ * thread once the application is up. Safe to run on several nodes at once: a row is only rewritten while
+ * untagged, and every node computes the same tag for it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CiphertextTagBackfill {
+
+    private final EncryptionService encryptionService;
+    private final CryptoProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        if (!properties.isBackfillTags()) {
+            return;
+        }
+        Thread thread = new Thread(this::run, "ciphertext-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        int lastChatId = 0;
+        try {
+            while (lastChatId >= 0) {
+                lastChatId = encryptionService.tagLegacyCiphertexts(lastChatId, properties.getBackfillBatchSize());
+            }
+            log.info("Ciphertext tag backfill finished");
+        } catch (RuntimeException e) {
+            log.warn("Ciphertext tag backfill stopped after chat {}, it resumes on the next start", lastChatId, e);
+        }
+    }
+}
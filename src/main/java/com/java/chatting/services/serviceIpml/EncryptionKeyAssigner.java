@@ -0,0 +1,39 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.entities.EncryptionKey;
+import com.java.chatting.repositories.EncryptionKeyRepository;
+import jakarta.transaction.Transactional;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Stores a user's first key in a transaction of its own. Keys are assigned lazily, from inside the transactions of
+ * group and chat operations; a failed insert there would mark the caller's transaction rollback-only, so the insert
+ * that loses a race on the unique user_id must fail on its own, leaving the caller free to read the winner's key.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class EncryptionKeyAssigner {
+
+    EncryptionKeyRepository encryptionKeyRepository;
+
+    /**
+     * @throws DataIntegrityViolationException when the user got a key meanwhile
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public EncryptionKey insert(EncryptionKey encryptionKey) {
+        return encryptionKeyRepository.saveAndFlush(encryptionKey);
+    }
+
+    // A fresh transaction sees the key committed by the winner, which the caller's snapshot may not
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Optional<EncryptionKey> find(int userId) {
+        return encryptionKeyRepository.findByUserId(userId);
+    }
+}
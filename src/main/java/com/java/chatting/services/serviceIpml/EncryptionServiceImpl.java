@@ -1,31 +1,45 @@
 package com.java.chatting.services.serviceIpml;
 
+import com.java.chatting.configurations.crypto.CipherSuite;
+import com.java.chatting.configurations.crypto.CiphertextTag;
+import com.java.chatting.configurations.crypto.CipherSuites;
+import com.java.chatting.configurations.crypto.CryptoProperties;
+import com.java.chatting.configurations.crypto.Encrypted;
 import com.java.chatting.dto.request.ChatRequest;
+import com.java.chatting.dto.request.DecryptionItemRequest;
 import com.java.chatting.dto.request.DecryptionRequest;
 import com.java.chatting.dto.response.ChatResponse;
 import com.java.chatting.dto.response.DecryptedMessageResponse;
+import com.java.chatting.dto.response.DecryptionResultResponse;
 import com.java.chatting.dto.response.EncryptionKeyResponse;
 import com.java.chatting.entities.EncryptionKey;
 import com.java.chatting.exception.AppException;
 import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.repositories.ChatRepository;
 import com.java.chatting.repositories.EncryptionKeyRepository;
-import com.java.chatting.repositories.clients.UserClient;
+import com.java.chatting.repositories.UserRepository;
 import com.java.chatting.services.EncryptionService;
 import jakarta.transaction.Transactional;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import java.nio.charset.StandardCharsets;
-import java.security.*;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
-import java.util.Base64;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Service
@@ -34,13 +48,24 @@ import java.util.stream.Collectors;
 @Slf4j
 public class EncryptionServiceImpl implements EncryptionService {
 
+    private static final int CONTENT_KEY_BITS = 256;
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
     EncryptionKeyRepository encryptionKeyRepository;
-    UserClient userClient;
+    ChatRepository chatRepository;
+    UserRepository userRepository;
+    KeyPairPool keyPairPool;
+    EncryptionKeyAssigner encryptionKeyAssigner;
+    CipherSuites cipherSuites;
+    CryptoProperties cryptoProperties;
+    ThreadPoolTaskExecutor cryptoExecutor;
 
     @Override
     @Transactional
     public EncryptionKeyResponse generateKeysForUser(int userId) throws Exception {
-        var user = userClient.getProfile(userId);
+        var user = userRepository.getUserProfile(userId);
         if (user == null) {
             throw new AppException(ErrorCode.USER_NOT_FOUND);
         }
@@ -51,72 +76,20 @@ public class EncryptionServiceImpl implements EncryptionService {
         if (!existingKeys.isEmpty()) {
             throw new AppException(ErrorCode.ENCRYPTION_KEY_ALREADY_EXISTS);
         }
-        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
-        generator.initialize(2048);
-        KeyPair pair = generator.generateKeyPair();
-        String publicKey = Base64.getEncoder().encodeToString(pair.getPublic().getEncoded());
-        String privateKey = Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded());
-        EncryptionKey encryptionKey = new EncryptionKey();
-        encryptionKey.setUserId(user.getData().getId());
-        encryptionKey.setPublicKey(publicKey);
-        encryptionKey.setPrivateKey(privateKey);
-        encryptionKey.setCreatedAt(LocalDateTime.now());
-        encryptionKey.setUpdatedAt(LocalDateTime.now());
-
-        encryptionKey = encryptionKeyRepository.save(encryptionKey);
+        EncryptionKey encryptionKey = encryptionKeyRepository.save(newKey(user.getId()));
         return EncryptionKeyResponse.builder()
                 .userId(encryptionKey.getUserId())
                 .publicKey(encryptionKey.getPublicKey())
+                .suite(cipherSuites.forId(encryptionKey.getSuite()).id())
                 .build();
     }
 
-    public EncryptionKey generateKeysToEntityForUser(int userId) throws Exception {
-        var user = userClient.getProfile(userId);
-        if (user == null) {
-            throw new AppException(ErrorCode.USER_NOT_FOUND);
-        }
-        if (encryptionKeyRepository.findByUserId(userId).isPresent()) {
-            throw new AppException(ErrorCode.ENCRYPTION_KEY_ALREADY_EXISTS);
-        }
-        List<EncryptionKey> existingKeys = encryptionKeyRepository.findAllByUserId(userId);
-        if (!existingKeys.isEmpty()) {
-            throw new AppException(ErrorCode.ENCRYPTION_KEY_ALREADY_EXISTS);
-        }
-        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
-        generator.initialize(2048);
-        KeyPair pair = generator.generateKeyPair();
-        String publicKey = Base64.getEncoder().encodeToString(pair.getPublic().getEncoded());
-        String privateKey = Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded());
-        EncryptionKey encryptionKey = new EncryptionKey();
-        encryptionKey.setUserId(user.getData().getId());
-        encryptionKey.setPublicKey(publicKey);
-        encryptionKey.setPrivateKey(privateKey);
-        encryptionKey.setCreatedAt(LocalDateTime.now());
-        encryptionKey.setUpdatedAt(LocalDateTime.now());
-
-        return encryptionKeyRepository.save(encryptionKey);
-    }
-
     @Override
     public String getPublicKeyForUser(int userId) {
         // Kiểm tra xem người dùng đã có khóa công khai hay chưa
-        var encryptionKey = encryptionKeyRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    EncryptionKey newKey = null;
-                    try {
-                        newKey = generateKeysToEntityForUser(userId);
-                    } catch (NoSuchAlgorithmException e) {
-                        throw new RuntimeException(e);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                    return newKey;
-                });
-
-        return encryptionKey.getPublicKey();
+        return keyOf(userId).getPublicKey();
     }
 
-
     @Override
     public String getPrivateKeyForUser(int userId) {
         var user = encryptionKeyRepository.findByUserId(userId)
@@ -126,21 +99,9 @@ public class EncryptionServiceImpl implements EncryptionService {
 
     @Override
     public String encryptMessage(String message, String publicKey) throws Exception {
-
-        byte[] publicKeyBytes = Base64.getDecoder().decode(publicKey);
-        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(publicKeyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-        PublicKey key = keyFactory.generatePublic(keySpec);
-        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-        cipher.init(Cipher.ENCRYPT_MODE, key);
-        // Mã hóa tin nhắn
-        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
-        byte[] encryptedBytes = cipher.doFinal(messageBytes);
-        String encryptedMessage = Base64.getEncoder().encodeToString(encryptedBytes);
-        return encryptedMessage;
+        return cipherSuites.forPublicKey(publicKey).encrypt(message, publicKey);
     }
 
-
     @Override
     public String encryptMessageForSender(String message, String publicKey) throws Exception {
         return encryptMessage(message, publicKey);
@@ -151,34 +112,236 @@ public class EncryptionServiceImpl implements EncryptionService {
         return encryptMessage(message, publicKey);
     }
 
+    @Override
+    public Encrypted encryptForUser(String message, int userId) throws Exception {
+        EncryptionKey key = keyOf(userId);
+        CipherSuite suite = cipherSuites.forId(key.getSuite());
+        return new Encrypted(suite.id(), CiphertextTag.tag(key.getId(), suite.encrypt(message, key.getPublicKey())));
+    }
+
     @Override
     public String decryptMessage(String encryptedMessage, int senderId, int receiverId) {
+        int keyId = CiphertextTag.keyId(encryptedMessage);
+        if (keyId >= 0) {
+            EncryptionKey key = encryptionKeyRepository.findById(keyId)
+                    .filter(candidate -> candidate.getUserId() == senderId || candidate.getUserId() == receiverId)
+                    .orElseThrow(() -> new AppException(ErrorCode.DECRYPTION_FAILED));
+            try {
+                return decrypt(CiphertextTag.body(encryptedMessage), key);
+            } catch (Exception e) {
+                throw new AppException(ErrorCode.DECRYPTION_FAILED);
+            }
+        }
+        // Untagged ciphertexts don't say whose copy they are: try both keys
+        EncryptionKey senderKey = encryptionKeyRepository.findByUserId(senderId)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
+        EncryptionKey receiverKey = encryptionKeyRepository.findByUserId(receiverId)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
         try {
-            String senderPrivateKey = getPrivateKeyForUser(senderId);
-            String receiverPrivateKey = getPrivateKeyForUser(receiverId);
+            return decrypt(encryptedMessage, senderKey);
+        } catch (Exception e) {
+            try {
+                return decrypt(encryptedMessage, receiverKey);
+            } catch (Exception ex) {
+                throw new AppException(ErrorCode.DECRYPTION_FAILED);
+            }
+        }
+    }
+
+    @Override
+    public List<DecryptionResultResponse> decryptBatch(List<DecryptionItemRequest> items) {
+        if (items.size() > cryptoProperties.getMaxBatchSize()) {
+            throw new AppException(ErrorCode.BATCH_TOO_LARGE);
+        }
+        Set<Integer> keyIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (DecryptionItemRequest item : items) {
+            int keyId = CiphertextTag.keyId(item.getCiphertext());
+            if (keyId >= 0) {
+                keyIds.add(keyId);
+            } else {
+                userIds.add(item.getSenderId());
+                userIds.add(item.getReceiverId());
+            }
+        }
+        // One query and one parse per key for the whole page, instead of two of each per message
+        List<EncryptionKey> loaded = new ArrayList<>();
+        if (!keyIds.isEmpty()) {
+            loaded.addAll(encryptionKeyRepository.findAllById(keyIds));
+        }
+        if (!userIds.isEmpty()) {
+            loaded.addAll(encryptionKeyRepository.findAllByUserIdIn(userIds));
+        }
+        Map<Integer, ParsedKey> keysById = new HashMap<>();
+        Map<Integer, ParsedKey> keysByUser = new HashMap<>();
+        for (EncryptionKey key : loaded) {
+            CipherSuite suite = cipherSuites.forId(key.getSuite());
             try {
-                String decryptedMessageForSender = decrypt(encryptedMessage, senderPrivateKey);
-                return decryptedMessageForSender;
+                ParsedKey parsed = new ParsedKey(key.getUserId(), suite, suite.privateKey(key.getPrivateKey()));
+                keysById.put(key.getId(), parsed);
+                keysByUser.put(key.getUserId(), parsed);
             } catch (Exception e) {
-                String decryptedMessageForReceiver = decrypt(encryptedMessage, receiverPrivateKey);
-                return decryptedMessageForReceiver;
+                log.warn("Unreadable private key of user {}", key.getUserId());
             }
+        }
+        List<CompletableFuture<DecryptionResultResponse>> results = new ArrayList<>(items.size());
+        for (DecryptionItemRequest item : items) {
+            results.add(CompletableFuture.supplyAsync(() -> decryptItem(item, keysById, keysByUser), cryptoExecutor));
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    @Override
+    @Transactional
+    public int tagLegacyCiphertexts(int afterChatId, int batchSize) {
+        List<Object[]> rows = chatRepository.findUntaggedCiphertexts(afterChatId, PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            return -1;
+        }
+        Set<Integer> userIds = new HashSet<>();
+        for (Object[] row : rows) {
+            userIds.add((Integer) row[1]);
+            userIds.add((Integer) row[2]);
+        }
+        Map<Integer, Integer> keyIds = new HashMap<>();
+        for (EncryptionKey key : encryptionKeyRepository.findAllByUserIdIn(userIds)) {
+            keyIds.put(key.getUserId(), key.getId());
+        }
+        // Each copy was encrypted with its owner's key, and keys are never replaced
+        for (Object[] row : rows) {
+            String forSender = (String) row[3];
+            String forReceiver = (String) row[4];
+            String taggedForSender = tagged(forSender, keyIds.get((Integer) row[1]));
+            String taggedForReceiver = tagged(forReceiver, keyIds.get((Integer) row[2]));
+            if (!Objects.equals(taggedForSender, forSender) || !Objects.equals(taggedForReceiver, forReceiver)) {
+                chatRepository.updateCiphertexts((Integer) row[0], taggedForSender, taggedForReceiver);
+            }
+        }
+        return (Integer) rows.get(rows.size() - 1)[0];
+    }
+
+    @Override
+    public SecretKey generateContentKey() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(CONTENT_KEY_BITS);
+        return generator.generateKey();
+    }
+
+    @Override
+    public String encryptWithContentKey(String message, SecretKey contentKey) throws Exception {
+        byte[] iv = new byte[GCM_IV_BYTES];
+        SECURE_RANDOM.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, contentKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+        byte[] encrypted = cipher.doFinal(message.getBytes(StandardCharsets.UTF_8));
+        // iv || ciphertext with tag
+        byte[] output = Arrays.copyOf(iv, iv.length + encrypted.length);
+        System.arraycopy(encrypted, 0, output, iv.length, encrypted.length);
+        return Base64.getEncoder().encodeToString(output);
+    }
+
+    @Override
+    public Map<Integer, Encrypted> wrapContentKeyForUsers(SecretKey contentKey, Collection<Integer> userIds) throws Exception {
+        Map<Integer, EncryptionKey> keys = new HashMap<>();
+        for (EncryptionKey key : encryptionKeyRepository.findAllByUserIdIn(userIds)) {
+            keys.put(key.getUserId(), key);
+        }
+        Map<Integer, Encrypted> wrapped = new HashMap<>();
+        for (Integer userId : userIds) {
+            EncryptionKey key = keys.get(userId);
+            if (key == null) {
+                key = assignPooledKey(userId);
+            }
+            CipherSuite suite = cipherSuites.forId(key.getSuite());
+            wrapped.put(userId, new Encrypted(suite.id(), suite.wrapKey(contentKey, key.getPublicKey())));
+        }
+        return wrapped;
+    }
+
+    @Override
+    public String decryptWithWrappedKey(String ciphertext, String wrappedKey, int userId) {
+        EncryptionKey key = encryptionKeyRepository.findByUserId(userId)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
+        try {
+            SecretKey contentKey = cipherSuites.forId(key.getSuite()).unwrapKey(wrappedKey, key.getPrivateKey());
+
+            byte[] input = Base64.getDecoder().decode(ciphertext);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, contentKey, new GCMParameterSpec(GCM_TAG_BITS, input, 0, GCM_IV_BYTES));
+            return new String(cipher.doFinal(input, GCM_IV_BYTES, input.length - GCM_IV_BYTES), StandardCharsets.UTF_8);
         } catch (Exception e) {
             throw new AppException(ErrorCode.DECRYPTION_FAILED);
         }
     }
 
-    private String decrypt(String encryptedMessage, String privateKey) throws Exception {
-        byte[] privateKeyBytes = Base64.getDecoder().decode(privateKey);
-        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(privateKeyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
-        PrivateKey key = keyFactory.generatePrivate(keySpec);
-        Cipher cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
-        cipher.init(Cipher.DECRYPT_MODE, key);
-        byte[] encryptedBytes = Base64.getDecoder().decode(encryptedMessage);
-        byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
+    // Like decryptMessage: a tagged ciphertext names its key, an untagged one is tried with the sender's key, then
+    // the receiver's
+    private static DecryptionResultResponse decryptItem(DecryptionItemRequest item, Map<Integer, ParsedKey> keysById,
+                                                        Map<Integer, ParsedKey> keysByUser) {
+        int keyId = CiphertextTag.keyId(item.getCiphertext());
+        ParsedKey[] candidates = keyId >= 0
+                ? new ParsedKey[]{keysById.get(keyId)}
+                : new ParsedKey[]{keysByUser.get(item.getSenderId()), keysByUser.get(item.getReceiverId())};
+        ErrorCode error = keyId >= 0 ? ErrorCode.DECRYPTION_FAILED : ErrorCode.USER_NOT_FOUND;
+        for (ParsedKey key : candidates) {
+            if (key == null || (key.userId() != item.getSenderId() && key.userId() != item.getReceiverId())) {
+                continue;
+            }
+            try {
+                return DecryptionResultResponse.builder()
+                        .id(item.getId())
+                        .message(key.suite().decrypt(CiphertextTag.body(item.getCiphertext()), key.privateKey()))
+                        .build();
+            } catch (Exception e) {
+                error = ErrorCode.DECRYPTION_FAILED;
+            }
+        }
+        return DecryptionResultResponse.builder()
+                .id(item.getId())
+                .error(error.getMessage())
+                .build();
+    }
+
+    private static String tagged(String ciphertext, Integer keyId) {
+        if (keyId == null || ciphertext == null || ciphertext.isEmpty() || CiphertextTag.isTagged(ciphertext)) {
+            return ciphertext;
+        }
+        return CiphertextTag.tag(keyId, ciphertext);
+    }
+
+    private String decrypt(String encryptedMessage, EncryptionKey key) throws Exception {
+        return cipherSuites.forId(key.getSuite()).decrypt(encryptedMessage, key.getPrivateKey());
+    }
+
+    private EncryptionKey keyOf(int userId) {
+        return encryptionKeyRepository.findByUserId(userId)
+                .orElseGet(() -> assignPooledKey(userId));
+    }
+
+    // A single insert of a pre-generated pair; a concurrent first message for the same user loses on the unique
+    // user_id and reads the winner's key instead. Both run outside the caller's transaction, which the failed
+    // insert would otherwise doom
+    private EncryptionKey assignPooledKey(int userId) {
+        try {
+            return encryptionKeyAssigner.insert(newKey(userId));
+        } catch (DataIntegrityViolationException e) {
+            return encryptionKeyAssigner.find(userId)
+                    .orElseThrow(() -> e);
+        }
+    }
 
-        return new String(decryptedBytes);
+    private EncryptionKey newKey(int userId) {
+        KeyPair pair = keyPairPool.take();
+        EncryptionKey encryptionKey = new EncryptionKey();
+        encryptionKey.setUserId(userId);
+        encryptionKey.setPublicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+        encryptionKey.setPrivateKey(Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()));
+        encryptionKey.setSuite(keyPairPool.suite().id());
+        encryptionKey.setCreatedAt(LocalDateTime.now());
+        encryptionKey.setUpdatedAt(LocalDateTime.now());
+        return encryptionKey;
     }
 
+    private record ParsedKey(int userId, CipherSuite suite, PrivateKey privateKey) {
+    }
 }
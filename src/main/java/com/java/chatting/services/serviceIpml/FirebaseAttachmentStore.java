@@ -0,0 +1,44 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.google.cloud.storage.BlobId;
+import com.java.chatting.services.AttachmentStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+
+/**
+ * Attachments in one Cloud Storage bucket, through {@link FirebaseStorageClient}.
+ */
+@RequiredArgsConstructor
+public class FirebaseAttachmentStore implements AttachmentStore {
+
+    private final FirebaseStorageClient storageClient;
+    private final String bucketName;
+
+    @Override
+    public List<StoredFile> store(String folder, List<MultipartFile> files) {
+        return storageClient.uploadFiles(bucketName, folder, files);
+    }
+
+    @Override
+    public void storeBytes(String name, String contentType, byte[] content) {
+        storageClient.uploadBytes(BlobId.of(bucketName, name), contentType, content);
+    }
+
+    @Override
+    public String publicUrl(String name) {
+        return storageClient.publicUrl(BlobId.of(bucketName, name));
+    }
+
+    @Override
+    public String nameOf(String url) {
+        BlobId blobId = storageClient.blobIdOf(url);
+        return blobId != null && bucketName.equals(blobId.getBucket()) ? blobId.getName() : null;
+    }
+
+    @Override
+    public void deleteQuietly(List<String> names) {
+        storageClient.deleteQuietly(names.stream().map(name -> BlobId.of(bucketName, name)).toList());
+    }
+}
@@ -1,63 +1,213 @@
 // FirebaseStorageClient.java
 package com.java.chatting.services.serviceIpml;
+import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.*;
 import com.google.firebase.cloud.StorageClient;
+import com.java.chatting.configurations.firebase.UploadProperties;
 import com.java.chatting.constants.BucketConstants;
 import com.java.chatting.exception.AppException;
 import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.services.AttachmentStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 
+/**
+ * Uploads attachments to Cloud Storage as a stream: the multipart file is read in small buffers and written to a
+ * resumable upload channel that sends it in chunks of {@code chatting.upload.chunk-size}. Only a buffer and one
+ * chunk of each upload are on the heap, whatever the size of the file. Objects are created publicly readable, so
+ * an upload needs no further call after the data. The SHA-256 of the content is computed from the same buffers.
+ * <p>
+ * Several files are uploaded concurrently on the bounded {@code uploadExecutor}.
+ * <p>
+ * Meters: {@code chatting.upload.bytes} (bytes sent so far, the progress of running uploads),
+ * {@code chatting.upload.in_flight}, {@code chatting.upload} timings by outcome and {@code chatting.upload.size}.
+ */
 @Slf4j
-@Service
 public class FirebaseStorageClient {
 
-    private final StorageClient storageClient;
+    private static final Storage.BlobWriteOption PUBLIC_READ = Storage.BlobWriteOption.predefinedAcl(Storage.PredefinedAcl.PUBLIC_READ);
+    private static final Storage.BlobTargetOption PUBLIC_READ_TARGET = Storage.BlobTargetOption.predefinedAcl(Storage.PredefinedAcl.PUBLIC_READ);
 
-    public FirebaseStorageClient(StorageClient storageClient) {
-        this.storageClient = storageClient;
+    private final Supplier<Storage> storage;
+    private final UploadProperties properties;
+    private final Executor uploadExecutor;
+    private final Counter bytesUploaded;
+    private final DistributionSummary uploadSize;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer succeeded;
+    private final Timer failed;
+
+    public FirebaseStorageClient(StorageClient storageClient, UploadProperties properties, Executor uploadExecutor,
+                                 MeterRegistry meterRegistry) {
+        // bucket() looks the bucket up remotely; do it once, on the first upload
+        this(memoize(() -> storageClient.bucket().getStorage()), properties, uploadExecutor, meterRegistry);
+    }
+
+    FirebaseStorageClient(Supplier<Storage> storage, UploadProperties properties, Executor uploadExecutor,
+                          MeterRegistry meterRegistry) {
+        this.storage = storage;
+        this.properties = properties;
+        this.uploadExecutor = uploadExecutor;
+        this.bytesUploaded = Counter.builder("chatting.upload.bytes").baseUnit("bytes").register(meterRegistry);
+        this.uploadSize = DistributionSummary.builder("chatting.upload.size").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("chatting.upload.in_flight", inFlight, AtomicInteger::get).register(meterRegistry);
+        this.succeeded = Timer.builder("chatting.upload").tag("outcome", "success").register(meterRegistry);
+        this.failed = Timer.builder("chatting.upload").tag("outcome", "failure").register(meterRegistry);
     }
 
     public String uploadFileToBucket(String bucketName, String folderName, MultipartFile file) {
+        return createPublicUrl(bucketName, upload(bucketName, folderName, file).name());
+    }
+
+    /**
+     * Uploads the files concurrently and returns their URLs in the same order. If one fails, the ones that did
+     * upload are deleted again and the whole call fails.
+     */
+    public List<String> uploadFilesToBucket(String bucketName, String folderName, List<MultipartFile> files) {
+        return uploadFiles(bucketName, folderName, files).stream()
+                .map(stored -> createPublicUrl(bucketName, stored.name()))
+                .toList();
+    }
+
+    /**
+     * Same as {@link #uploadFilesToBucket}, returning the objects and the hash of their content instead of URLs.
+     */
+    public List<AttachmentStore.StoredFile> uploadFiles(String bucketName, String folderName, List<MultipartFile> files) {
+        List<CompletableFuture<AttachmentStore.StoredFile>> uploads = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> upload(bucketName, folderName, file), uploadExecutor))
+                .toList();
+        try {
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            List<BlobId> uploaded = uploads.stream()
+                    .filter(upload -> !upload.isCompletedExceptionally())
+                    .map(upload -> BlobId.of(bucketName, upload.join().name()))
+                    .toList();
+            deleteQuietly(uploaded);
+            throw e.getCause() instanceof AppException appException ? appException : new AppException(ErrorCode.FILE_UPLOAD_FAILED);
+        }
+        return uploads.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    /**
+     * Writes a small generated file, such as a thumbnail, in a single request, publicly readable.
+     */
+    public void uploadBytes(BlobId blobId, String contentType, byte[] content) {
+        storage.get().create(createBlobInfo(blobId.getBucket(), blobId.getName(), contentType), content, PUBLIC_READ_TARGET);
+    }
+
+    public String publicUrl(BlobId blobId) {
+        return createPublicUrl(blobId.getBucket(), blobId.getName());
+    }
+
+    /**
+     * @return the object behind a URL made by {@link #publicUrl}, null for any other URL
+     */
+    public BlobId blobIdOf(String url) {
+        // <prefix>bucket<separator>object<suffix>
+        String[] template = BucketConstants.URL_FIREBASE_API.getValue().split("%s");
+        if (url == null || !url.startsWith(template[0]) || !url.endsWith(template[2])) {
+            return null;
+        }
+        int separator = url.indexOf(template[1], template[0].length());
+        if (separator < 0) {
+            return null;
+        }
+        String encodedObjectName = url.substring(separator + template[1].length(), url.length() - template[2].length());
+        return BlobId.of(url.substring(template[0].length(), separator),
+                URLDecoder.decode(encodedObjectName, StandardCharsets.UTF_8));
+    }
+
+    private AttachmentStore.StoredFile upload(String bucketName, String folderName, MultipartFile file) {
+        long start = System.nanoTime();
+        inFlight.incrementAndGet();
         try {
             String normalizedFolderName = folderName.endsWith("/") ? folderName.substring(0, folderName.length() - 1) : folderName;
             String generatedFileName = generateUniqueFileName(file.getOriginalFilename());
             String fullObjectName = normalizedFolderName + "/" + generatedFileName;
-            Storage storage = storageClient.bucket().getStorage();
             BlobInfo blobInfo = createBlobInfo(bucketName, fullObjectName, file.getContentType());
-            storage.create(blobInfo, file.getBytes());
-            makeFilePublic(bucketName, fullObjectName);
-            return createPublicUrl(bucketName, fullObjectName);
-        } catch (IOException e) {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream input = file.getInputStream()) {
+                size = stream(blobInfo, input, digest);
+            }
+            uploadSize.record(size);
+            succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new AttachmentStore.StoredFile(fullObjectName, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | StorageException e) {
+            failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             log.error("Failed to upload file: {}", file.getOriginalFilename(), e);
             throw new AppException(ErrorCode.FILE_UPLOAD_FAILED);
+        } finally {
+            inFlight.decrementAndGet();
         }
     }
 
+    void deleteQuietly(List<BlobId> blobIds) {
+        if (blobIds.isEmpty()) {
+            return;
+        }
+        try {
+            storage.get().delete(blobIds);
+        } catch (StorageException e) {
+            log.warn("Could not delete {} files of a failed upload", blobIds.size(), e);
+        }
+    }
+
+    // The channel buffers one chunk and sends it as a request of the resumable upload. Closing it sends the rest and
+    // completes the object, so it is only closed once the whole stream was read: a failed upload is left
+    // unfinished, and Cloud Storage discards it, instead of publishing a truncated file
+    private long stream(BlobInfo blobInfo, InputStream input, MessageDigest digest) throws IOException {
+        WriteChannel writer = storage.get().writer(blobInfo, PUBLIC_READ);
+        writer.setChunkSize((int) properties.getChunkSize().toBytes());
+        byte[] buffer = new byte[(int) properties.getBufferSize().toBytes()];
+        long total = 0;
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+            ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+            while (chunk.hasRemaining()) {
+                writer.write(chunk);
+            }
+            total += read;
+            bytesUploaded.increment(read);
+        }
+        writer.close();
+        return total;
+    }
+
     private String createPublicUrl(String bucketName, String objectName) {
         String encodedObjectName = URLEncoder.encode(objectName, StandardCharsets.UTF_8)
                 .replace("+", "%20");
         return String.format(BucketConstants.URL_FIREBASE_API.getValue(), bucketName, encodedObjectName);
     }
 
-    private void makeFilePublic(String bucketName, String objectName) {
-        Storage storage = storageClient.bucket().getStorage();
-        Blob blob = storage.get(BlobId.of(bucketName, objectName));
-        if (blob != null) {
-            blob.createAcl(Acl.of(Acl.User.ofAllUsers(), Acl.Role.READER));
-        } else {
-            log.error("File not found: {}", objectName);
-            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED);
-        }
-    }
-
     private String generateUniqueFileName(String originalFileName) {
         return UUID.randomUUID() + "_" + originalFileName;
     }
@@ -68,4 +218,31 @@ public class FirebaseStorageClient {
                 .build();
     }
 
-}
\ No newline at end of file
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static <T> Supplier<T> memoize(Supplier<T> supplier) {
+        return new Supplier<>() {
+            private volatile T value;
+
+            @Override
+            public T get() {
+                T result = value;
+                if (result == null) {
+                    synchronized (this) {
+                        if (value == null) {
+                            value = supplier.get();
+                        }
+                        result = value;
+                    }
+                }
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,234 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.crypto.Encrypted;
+import com.java.chatting.configurations.group.GroupProperties;
+import com.java.chatting.constants.MessageType;
+import com.java.chatting.dto.request.GroupCreateRequest;
+import com.java.chatting.dto.request.GroupMessageRequest;
+import com.java.chatting.dto.response.GroupMessageResponse;
+import com.java.chatting.dto.response.GroupResponse;
+import com.java.chatting.dto.response.PageResponse;
+import com.java.chatting.entities.GroupConversation;
+import com.java.chatting.entities.GroupMember;
+import com.java.chatting.entities.GroupMessage;
+import com.java.chatting.entities.GroupMessageKey;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.repositories.*;
+import com.java.chatting.services.EncryptionService;
+import com.java.chatting.services.GroupService;
+import jakarta.transaction.Transactional;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKey;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class GroupServiceImpl implements GroupService {
+    GroupConversationRepository groupConversationRepository;
+    GroupMemberRepository groupMemberRepository;
+    GroupMessageRepository groupMessageRepository;
+    GroupMessageKeyRepository groupMessageKeyRepository;
+    GroupMemberIndex groupMemberIndex;
+    EncryptionService encryptionService;
+    GroupProperties properties;
+
+    @Override
+    @Transactional
+    public GroupResponse createGroup(GroupCreateRequest request, int creatorId) {
+        Set<Integer> memberIds = new LinkedHashSet<>();
+        memberIds.add(creatorId);
+        if (request.getMemberIds() != null) {
+            memberIds.addAll(request.getMemberIds());
+        }
+        if (memberIds.size() > properties.getMaxMembers()) {
+            throw new AppException(ErrorCode.GROUP_FULL);
+        }
+        GroupConversation group = groupConversationRepository.save(GroupConversation.builder()
+                .name(request.getName())
+                .createdBy(creatorId)
+                .createdAt(LocalDateTime.now())
+                .build());
+        LocalDateTime now = LocalDateTime.now();
+        groupMemberRepository.saveAll(memberIds.stream()
+                .map(userId -> GroupMember.builder().groupId(group.getId()).userId(userId).joinedAt(now).build())
+                .toList());
+        groupMemberIndex.invalidate(group.getId());
+        return toResponse(group, new ArrayList<>(memberIds));
+    }
+
+    @Override
+    public GroupResponse getGroup(int groupId) {
+        GroupConversation group = findGroup(groupId);
+        return toResponse(group, toList(groupMemberIndex.members(groupId)));
+    }
+
+    @Override
+    public List<GroupResponse> getGroupsOfUser(int userId) {
+        List<Integer> groupIds = groupMemberRepository.findGroupIdsByUserId(userId);
+        return groupConversationRepository.findAllByIdIn(groupIds).stream()
+                .map(group -> toResponse(group, toList(groupMemberIndex.members(group.getId()))))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public GroupResponse addMember(int groupId, int userId, int callerId) {
+        GroupConversation group = findGroup(groupId);
+        requireCreatorOrMember(group, callerId);
+        if (!groupMemberRepository.existsByGroupIdAndUserId(groupId, userId)) {
+            if (groupMemberRepository.countByGroupId(groupId) >= properties.getMaxMembers()) {
+                throw new AppException(ErrorCode.GROUP_FULL);
+            }
+            groupMemberRepository.save(GroupMember.builder().groupId(groupId).userId(userId).joinedAt(LocalDateTime.now()).build());
+            groupMemberIndex.invalidate(groupId);
+        }
+        return toResponse(group, groupMemberRepository.findUserIdsByGroupId(groupId));
+    }
+
+    @Override
+    @Transactional
+    public void removeMember(int groupId, int userId, int callerId) {
+        GroupConversation group = findGroup(groupId);
+        // Anybody may leave a group
+        if (userId != callerId) {
+            requireCreatorOrMember(group, callerId);
+        }
+        if (groupMemberRepository.deleteMember(groupId, userId) == 0) {
+            throw new AppException(ErrorCode.NOT_GROUP_MEMBER);
+        }
+        groupMemberIndex.invalidate(groupId);
+    }
+
+    @Override
+    @Transactional
+    public List<GroupMessageResponse> sendMessage(GroupMessageRequest request) throws Exception {
+        int groupId = request.getGroupId();
+        if (!groupMemberIndex.isMember(groupId, request.getSenderId())) {
+            throw new AppException(ErrorCode.NOT_GROUP_MEMBER);
+        }
+        int[] members = groupMemberIndex.members(groupId);
+
+        // The body is encrypted once, only the content key is encrypted per member
+        SecretKey contentKey = encryptionService.generateContentKey();
+        Map<Integer, Encrypted> wrappedKeys = encryptionService.wrapContentKeyForUsers(contentKey, toList(members));
+        GroupMessage message = groupMessageRepository.save(GroupMessage.builder()
+                .groupId(groupId)
+                .senderId(request.getSenderId())
+                .ciphertext(encryptionService.encryptWithContentKey(request.getMessage(), contentKey))
+                .messageType(parseMessageType(request.getMessageType()))
+                .sentAt(LocalDateTime.now())
+                .build());
+
+        List<GroupMessageKey> keys = new ArrayList<>(members.length);
+        for (int userId : members) {
+            Encrypted wrapped = wrappedKeys.get(userId);
+            keys.add(GroupMessageKey.builder()
+                    .messageId(message.getId())
+                    .userId(userId)
+                    .wrappedKey(wrapped.ciphertext())
+                    .suite(wrapped.suite())
+                    .build());
+        }
+        groupMessageKeyRepository.saveAll(keys);
+
+        GroupMessageResponse shared = toResponse(message, null);
+        return keys.stream()
+                .map(key -> shared.toBuilder().recipientId(key.getUserId()).wrappedKey(key.getWrappedKey()).build())
+                .toList();
+    }
+
+    @Override
+    public PageResponse<GroupMessageResponse> getMessages(int groupId, int userId, int page, int size) {
+        if (!groupMemberIndex.isMember(groupId, userId)) {
+            throw new AppException(ErrorCode.NOT_GROUP_MEMBER);
+        }
+        Page<GroupMessage> pageData = groupMessageRepository.findByGroupIdOrderByIdDesc(groupId, PageRequest.of(page - 1, size));
+        List<Integer> messageIds = pageData.getContent().stream().map(GroupMessage::getId).toList();
+        Map<Integer, GroupMessageKey> keys = groupMessageKeyRepository.findAllByUserIdAndMessageIdIn(userId, messageIds).stream()
+                .collect(Collectors.toMap(GroupMessageKey::getMessageId, key -> key));
+        return PageResponse.<GroupMessageResponse>builder()
+                .currentPage(page)
+                .pageSize(pageData.getSize())
+                .totalPages(pageData.getTotalPages())
+                .totalElements(pageData.getTotalElements())
+                .data(pageData.getContent().stream()
+                        // Messages sent before the user joined have no key for them
+                        .map(message -> toResponse(message, keys.get(message.getId())))
+                        .toList())
+                .build();
+    }
+
+    @Override
+    public String decryptMessage(int messageId, int userId) {
+        GroupMessage message = groupMessageRepository.findById(messageId)
+                .orElseThrow(() -> new AppException(ErrorCode.MESSAGE_NOT_FOUND));
+        // Former members still hold the keys of what they received, but no longer read the group
+        if (!groupMemberIndex.isMember(message.getGroupId(), userId)) {
+            throw new AppException(ErrorCode.NOT_GROUP_MEMBER);
+        }
+        GroupMessageKey key = groupMessageKeyRepository.findByMessageIdAndUserId(messageId, userId)
+                .orElseThrow(() -> new AppException(ErrorCode.NOT_GROUP_MEMBER));
+        return encryptionService.decryptWithWrappedKey(message.getCiphertext(), key.getWrappedKey(), userId);
+    }
+
+    private GroupConversation findGroup(int groupId) {
+        return groupConversationRepository.findById(groupId)
+                .orElseThrow(() -> new AppException(ErrorCode.GROUP_NOT_FOUND));
+    }
+
+    private void requireCreatorOrMember(GroupConversation group, int userId) {
+        if (group.getCreatedBy() != userId && !groupMemberIndex.isMember(group.getId(), userId)) {
+            throw new AppException(ErrorCode.NOT_GROUP_MEMBER);
+        }
+    }
+
+    private static MessageType parseMessageType(String messageType) {
+        if (messageType == null || messageType.isBlank()) {
+            return MessageType.TEXT;
+        }
+        return MessageType.valueOf(messageType.trim().toUpperCase());
+    }
+
+    private static GroupResponse toResponse(GroupConversation group, List<Integer> memberIds) {
+        return GroupResponse.builder()
+                .id(group.getId())
+                .name(group.getName())
+                .createdBy(group.getCreatedBy())
+                .createdAt(group.getCreatedAt())
+                .memberIds(memberIds)
+                .build();
+    }
+
+    private static GroupMessageResponse toResponse(GroupMessage message, GroupMessageKey key) {
+        return GroupMessageResponse.builder()
+                .id(message.getId())
+                .groupId(message.getGroupId())
+                .senderId(message.getSenderId())
+                .ciphertext(message.getCiphertext())
+                .recipientId(key != null ? key.getUserId() : 0)
+                .wrappedKey(key != null ? key.getWrappedKey() : null)
+                .messageType(message.getMessageType())
+                .sentAt(message.getSentAt())
+                .build();
+    }
+
+    private static List<Integer> toList(int[] userIds) {
+        List<Integer> list = new ArrayList<>(userIds.length);
+        for (int userId : userIds) {
+            list.add(userId);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,150 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.crypto.CipherSuite;
+import com.java.chatting.configurations.crypto.CipherSuites;
+import com.java.chatting.configurations.crypto.KeyPoolProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key pairs of the default {@link CipherSuite} generated ahead of time, so that giving a new user its keys costs
+ * an insert instead of a key generation inside the first message. How much that saves depends on the suite's
+ * generation cost, which the {@code chatting.keypool.generation} timer shows.
+ * <p>
+ * A single low priority daemon thread refills the pool up to the high watermark whenever it falls below the low
+ * one, and backs off while generation keeps failing. When the pool runs dry, {@link #take()} generates inline.
+ * <p>
+ * Meters: {@code chatting.keypool.depth}, {@code chatting.keypool.generated} (its rate is the generation
+ * rate), {@code chatting.keypool.generation} timings and {@code chatting.keypool.taken} by source (pool or
+ * inline).
+ */
+@Slf4j
+@Component
+public class KeyPairPool {
+
+    private static final long MIN_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 60000;
+
+    private final KeyPoolProperties properties;
+    private final CipherSuite suite;
+    private final BlockingQueue<KeyPair> pool;
+    private final Object refill = new Object();
+    private final Counter generated;
+    private final Timer generation;
+    private final Counter takenFromPool;
+    private final Counter generatedInline;
+    private volatile boolean running;
+    private Thread worker;
+
+    public KeyPairPool(KeyPoolProperties properties, CipherSuites cipherSuites, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.suite = cipherSuites.defaultSuite();
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, properties.getHighWatermark()));
+        Gauge.builder("chatting.keypool.depth", pool, BlockingQueue::size).register(meterRegistry);
+        this.generated = Counter.builder("chatting.keypool.generated").register(meterRegistry);
+        this.generation = Timer.builder("chatting.keypool.generation").register(meterRegistry);
+        this.takenFromPool = Counter.builder("chatting.keypool.taken").tag("source", "pool").register(meterRegistry);
+        this.generatedInline = Counter.builder("chatting.keypool.taken").tag("source", "inline").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::refillLoop, "key-pool");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * @return suite of the pairs handed out by {@link #take()}
+     */
+    public CipherSuite suite() {
+        return suite;
+    }
+
+    /**
+     * @return a key pair nobody else has been given
+     */
+    public KeyPair take() {
+        KeyPair pair = pool.poll();
+        if (running && pool.size() < properties.getLowWatermark()) {
+            synchronized (refill) {
+                refill.notifyAll();
+            }
+        }
+        if (pair != null) {
+            takenFromPool.increment();
+            return pair;
+        }
+        generatedInline.increment();
+        return generate();
+    }
+
+    public int depth() {
+        return pool.size();
+    }
+
+    private void refillLoop() {
+        long backoffMillis = MIN_BACKOFF_MILLIS;
+        while (running) {
+            try {
+                synchronized (refill) {
+                    while (running && pool.size() >= properties.getLowWatermark()) {
+                        refill.wait();
+                    }
+                }
+                while (running && pool.size() < properties.getHighWatermark()) {
+                    pool.offer(generate());
+                }
+                backoffMillis = MIN_BACKOFF_MILLIS;
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                // A broken provider fails every time: wait longer after each failure instead of spinning
+                log.error("Key pool refill failed, retrying in {} ms", backoffMillis, e);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private KeyPair generate() {
+        long start = System.nanoTime();
+        try {
+            return suite.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            generation.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            generated.increment();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.firebase.UploadProperties;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.services.AttachmentStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Attachments as files under {@code chatting.upload.local.root}, downloaded from this service. A file is written
+ * to a temporary file first and moved into place once complete, so a download never sees half of an upload. Names
+ * starting with a dot are never served; temporary files live under {@code .tmp}.
+ * <p>
+ * On disk, every segment of a name is percent-encoded: file names are often Vietnamese, and a JVM started without a
+ * UTF-8 locale cannot create such paths.
+ */
+@Slf4j
+public class LocalAttachmentStore implements AttachmentStore {
+
+    private final Path root;
+    private final Path temporary;
+    private final String publicUrl;
+    private final UploadProperties properties;
+    private final Executor uploadExecutor;
+
+    public LocalAttachmentStore(UploadProperties properties, Executor uploadExecutor) {
+        this.root = Path.of(properties.getLocal().getRoot()).toAbsolutePath().normalize();
+        this.temporary = root.resolve(".tmp");
+        this.publicUrl = StringUtils.trimTrailingCharacter(properties.getLocal().getPublicUrl(), '/');
+        this.properties = properties;
+        this.uploadExecutor = uploadExecutor;
+        try {
+            Files.createDirectories(temporary);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create the attachment directory " + root, e);
+        }
+    }
+
+    @Override
+    public List<StoredFile> store(String folder, List<MultipartFile> files) {
+        List<CompletableFuture<StoredFile>> writes = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> write(folder, file), uploadExecutor))
+                .toList();
+        try {
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            deleteQuietly(writes.stream()
+                    .filter(write -> !write.isCompletedExceptionally())
+                    .map(write -> write.join().name())
+                    .toList());
+            throw e.getCause() instanceof AppException appException ? appException : new AppException(ErrorCode.FILE_UPLOAD_FAILED);
+        }
+        return writes.stream()
+                .map(CompletableFuture::join)
+                .toList();
+    }
+
+    @Override
+    public void storeBytes(String name, String contentType, byte[] content) {
+        try {
+            Path temp = Files.createTempFile(temporary, "upload-", null);
+            Files.write(temp, content);
+            moveIntoPlace(temp, name);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String publicUrl(String name) {
+        return publicUrl + "/" + UriUtils.encodePath(name, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String nameOf(String url) {
+        if (url == null || !url.startsWith(publicUrl + "/")) {
+            return null;
+        }
+        return UriUtils.decode(url.substring(publicUrl.length() + 1), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void deleteQuietly(List<String> names) {
+        for (String name : names) {
+            Path file = resolve(name);
+            try {
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete attachment {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * @return the file of a name, null when the name points outside the store or at a hidden file; the file
+     * may not exist
+     */
+    public Path resolve(String name) {
+        if (!StringUtils.hasText(name) || name.startsWith(".") || name.contains("/.") || name.contains("\\")) {
+            return null;
+        }
+        Path file = root;
+        for (String segment : name.split("/")) {
+            file = file.resolve(UriUtils.encodePathSegment(segment, StandardCharsets.UTF_8));
+        }
+        file = file.normalize();
+        return file.startsWith(root) && !file.equals(root) ? file : null;
+    }
+
+    private StoredFile write(String folder, MultipartFile file) {
+        String normalizedFolder = StringUtils.trimTrailingCharacter(folder, '/');
+        String name = normalizedFolder + "/" + UUID.randomUUID() + "_" + fileNameOf(file.getOriginalFilename());
+        Path temp = null;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            temp = Files.createTempFile(temporary, "upload-", null);
+            long size = 0;
+            try (InputStream input = file.getInputStream();
+                 FileChannel output = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[(int) properties.getBufferSize().toBytes()];
+                int read;
+                while ((read = input.read(buffer)) != -1) {
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        output.write(chunk);
+                    }
+                    size += read;
+                }
+            }
+            moveIntoPlace(temp, name);
+            return new StoredFile(name, HexFormat.of().formatHex(digest.digest()), size);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            log.error("Failed to store file: {}", file.getOriginalFilename(), e);
+            deleteTemporary(temp);
+            throw new AppException(ErrorCode.FILE_UPLOAD_FAILED);
+        }
+    }
+
+    private void moveIntoPlace(Path temp, String name) throws IOException {
+        Path target = resolve(name);
+        if (target == null) {
+            deleteTemporary(temp);
+            throw new IOException("Invalid attachment name " + name);
+        }
+        Files.createDirectories(target.getParent());
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void deleteTemporary(Path temp) {
+        try {
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("Could not delete {}", temp, e);
+        }
+    }
+
+    // Only the last path segment of what the client sent, never a path of its own
+    private static String fileNameOf(String originalFileName) {
+        String fileName = StringUtils.getFilename(originalFileName == null ? "" : originalFileName.replace('\\', '/'));
+        return StringUtils.hasText(fileName) ? fileName : "file";
+    }
+}
@@ -0,0 +1,68 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.configurations.socket.StompSessionRegistry;
+import com.java.chatting.constants.SocketDestination;
+import com.java.chatting.services.ClusterBus;
+import com.java.chatting.utils.EncodedPayload;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.util.function.Consumer;
+
+/**
+ * Single node bus, everything is delivered through the in-JVM broker.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LocalClusterBus implements ClusterBus {
+
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final StompSessionRegistry sessionRegistry;
+
+    @Override
+    public void publish(String destination, Object payload, int... recipients) {
+        EncodedPayload encoded = encode(destination, payload);
+        if (encoded != null) {
+            messagingTemplate.send(destination, encoded.toMessage());
+        }
+    }
+
+    @Override
+    public boolean sendToUser(int userId, String userQueue, Object payload) {
+        String[] sessions = sessionRegistry.sessionsOf(userId);
+        if (sessions.length == 0) {
+            return false;
+        }
+        EncodedPayload encoded = encode(userQueue, payload);
+        if (encoded == null) {
+            return true;
+        }
+        for (String sessionId : sessions) {
+            messagingTemplate.send(SocketDestination.ofSession(userQueue, sessionId), encoded.toMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public void broadcast(String channel, Object event) {
+        // No other nodes
+    }
+
+    @Override
+    public <T> void subscribe(String channel, Class<T> type, Consumer<T> listener) {
+        // No other nodes
+    }
+
+    private EncodedPayload encode(String destination, Object payload) {
+        try {
+            return EncodedPayload.of(objectMapper, payload);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize payload for {}", destination, e);
+            return null;
+        }
+    }
+}
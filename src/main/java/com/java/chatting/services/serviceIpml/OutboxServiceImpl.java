@@ -0,0 +1,77 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.socket.OutboxProperties;
+import com.java.chatting.constants.SocketDestination;
+import com.java.chatting.dto.response.OutboxBatchResponse;
+import com.java.chatting.dto.response.OutboxEventResponse;
+import com.java.chatting.entities.OutboxEvent;
+import com.java.chatting.repositories.OutboxEventRepository;
+import com.java.chatting.services.OutboxService;
+import com.java.chatting.utils.EncodedPayload;
+import jakarta.transaction.Transactional;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class OutboxServiceImpl implements OutboxService {
+    OutboxEventRepository outboxEventRepository;
+    OutboxProperties properties;
+
+    @Override
+    @Transactional
+    public void store(int userId, SocketDestination destination, EncodedPayload payload, String compactionKey) {
+        if (compactionKey != null) {
+            outboxEventRepository.deleteByCompactionKey(userId, compactionKey);
+        }
+        OutboxEvent event = new OutboxEvent();
+        event.setUserId(userId);
+        event.setDestination(destination.getUserQueue());
+        event.setCompactionKey(compactionKey);
+        event.setPayload(new String(payload.bytes(), StandardCharsets.UTF_8));
+        event.setCreatedAt(LocalDateTime.now());
+        outboxEventRepository.save(event);
+
+        // Only the newest events are kept; the client falls back to the history API for older ones
+        int max = properties.getMaxEventsPerUser();
+        if (outboxEventRepository.countByUserId(userId) > max) {
+            List<Long> oldestKept = outboxEventRepository.findIdsNewestFirst(userId, PageRequest.of(max - 1, 1));
+            if (!oldestKept.isEmpty()) {
+                int dropped = outboxEventRepository.deleteUpTo(userId, oldestKept.get(0) - 1);
+                log.debug("Outbox of user {} is full, dropped {} events", userId, dropped);
+            }
+        }
+    }
+
+    @Override
+    public OutboxBatchResponse pending(int userId) {
+        int batchSize = properties.getReplayBatchSize();
+        List<OutboxEvent> events = outboxEventRepository.findByUserIdOrderByIdAsc(userId, PageRequest.of(0, batchSize + 1));
+        boolean hasMore = events.size() > batchSize;
+        return OutboxBatchResponse.builder()
+                .events(events.stream().limit(batchSize).map(event -> OutboxEventResponse.builder()
+                        .seq(event.getId())
+                        .destination("/user" + event.getDestination())
+                        .payload(event.getPayload())
+                        .createdAt(event.getCreatedAt())
+                        .build()).toList())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public int acknowledge(int userId, long seq) {
+        return outboxEventRepository.deleteUpTo(userId, seq);
+    }
+}
@@ -0,0 +1,130 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.socket.PresenceProperties;
+import com.java.chatting.dto.response.UserStatusResponse;
+import com.java.chatting.entities.UserStatus;
+import com.java.chatting.events.PresenceChangedEvent;
+import com.java.chatting.repositories.UserStatusRepository;
+import com.java.chatting.services.PresenceService;
+import com.java.chatting.utils.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Heartbeat based presence. Every heartbeat pushes the user's deadline forward in a hashed timing wheel;
+ * a single presence thread advances the wheel once per tick and persists and publishes all transitions
+ * of that tick as one batch.
+ */
+@Service
+@Slf4j
+public class PresenceServiceImpl implements PresenceService {
+
+    private final UserStatusRepository userStatusRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ScheduledExecutorService presenceScheduler;
+    private final PresenceProperties properties;
+    private final HashedTimingWheel wheel;
+    private final Queue<Integer> cameOnline = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> wentOffline = new ConcurrentLinkedQueue<>();
+
+    public PresenceServiceImpl(UserStatusRepository userStatusRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               @Qualifier("presenceScheduler") ScheduledExecutorService presenceScheduler,
+                               PresenceProperties properties) {
+        this.userStatusRepository = userStatusRepository;
+        this.eventPublisher = eventPublisher;
+        this.presenceScheduler = presenceScheduler;
+        this.properties = properties;
+        this.wheel = new HashedTimingWheel(properties.getWheelSize(), properties.getTickMillis(), properties.getTimeoutMillis());
+    }
+
+    @PostConstruct
+    void start() {
+        presenceScheduler.scheduleAtFixedRate(this::tick, properties.getTickMillis(), properties.getTickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void heartbeat(int userId) {
+        if (wheel.touch(userId, System.currentTimeMillis())) {
+            cameOnline.add(userId);
+        }
+    }
+
+    @Override
+    public void disconnected(int userId) {
+        if (wheel.remove(userId)) {
+            wentOffline.add(userId);
+        }
+    }
+
+    @Override
+    public boolean isOnline(int userId) {
+        return wheel.contains(userId);
+    }
+
+    void tick() {
+        try {
+            wheel.advance(System.currentTimeMillis(), wentOffline::add);
+            Map<Integer, UserStatus.Status> transitions = new LinkedHashMap<>();
+            drain(cameOnline, transitions, UserStatus.Status.ONLINE);
+            drain(wentOffline, transitions, UserStatus.Status.OFFLINE);
+            // A user that flapped within one tick keeps whatever the wheel says now.
+            transitions.replaceAll((userId, status) -> wheel.contains(userId) ? UserStatus.Status.ONLINE : UserStatus.Status.OFFLINE);
+            if (!transitions.isEmpty()) {
+                publish(transitions);
+            }
+        } catch (Exception e) {
+            log.error("Presence tick failed", e);
+        }
+    }
+
+    private void drain(Queue<Integer> queue, Map<Integer, UserStatus.Status> transitions, UserStatus.Status status) {
+        Integer userId;
+        while ((userId = queue.poll()) != null) {
+            transitions.put(userId, status);
+        }
+    }
+
+    private void publish(Map<Integer, UserStatus.Status> transitions) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, UserStatus> existing = userStatusRepository.findAllByUserIdIn(transitions.keySet()).stream()
+                .collect(Collectors.toMap(UserStatus::getUserId, Function.identity(), (a, b) -> a));
+        List<UserStatus> toSave = new ArrayList<>(transitions.size());
+        List<UserStatusResponse> changes = new ArrayList<>(transitions.size());
+        transitions.forEach((userId, status) -> {
+            UserStatus userStatus = existing.get(userId);
+            if (userStatus == null) {
+                userStatus = new UserStatus();
+                userStatus.setUserId(userId);
+            } else if (userStatus.getStatus() == status) {
+                return;
+            }
+            userStatus.setStatus(status);
+            userStatus.setLastOnline(now);
+            toSave.add(userStatus);
+        });
+        for (UserStatus userStatus : userStatusRepository.saveAll(toSave)) {
+            changes.add(UserStatusResponse.builder()
+                    .id(userStatus.getId())
+                    .userId(userStatus.getUserId())
+                    .status(userStatus.getStatus())
+                    .lastOnline(userStatus.getLastOnline())
+                    .build());
+        }
+        if (!changes.isEmpty()) {
+            log.debug("Publishing {} presence changes", changes.size());
+            eventPublisher.publishEvent(new PresenceChangedEvent(changes));
+        }
+    }
+}
@@ -0,0 +1,552 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.configurations.cluster.ClusterProperties;
+import com.java.chatting.configurations.socket.StompSessionRegistry;
+import com.java.chatting.constants.SocketDestination;
+import com.java.chatting.events.UserConnectionEvent;
+import com.java.chatting.services.ClusterBus;
+import com.java.chatting.utils.EncodedPayload;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Peer-to-peer bus over plain TCP between a static list of nodes.
+ * <p>
+ * Every node keeps one outbound connection per peer for the frames it sends and accepts one inbound
+ * connection per peer for the frames it receives. Nodes announce which users have sessions on them
+ * (a snapshot on connect, then additions and removals), so a publish is only forwarded to the peers
+ * that hold at least one of its recipients, and a user message only to the peers holding that user.
+ * Frames are length-prefixed: {@code int length, byte type, body}.
+ * <p>
+ * Peers are authenticated before anything they send is acted on: the accepting node writes a random challenge, and
+ * the first frame must be a HELLO carrying a node id from {@code peers} and the HMAC-SHA256 of the challenge and that
+ * id under the shared {@code secret}, sent from one of the addresses of that peer's host. Any other first frame, or a
+ * hello that does not check out, closes the connection. Frames a link fails to write are kept and sent again once it
+ * has reconnected, so a peer may see a frame twice but does not lose it; frames that do not fit the outbound queue
+ * are dropped and counted in {@code chatting.cluster.dropped}, rejected connections in {@code chatting.cluster.rejected}.
+ */
+@Slf4j
+public class TcpClusterBus implements ClusterBus, AutoCloseable {
+
+    static final byte HELLO = 1;
+    static final byte INTEREST_SNAPSHOT = 2;
+    static final byte INTEREST_ADD = 3;
+    static final byte INTEREST_REMOVE = 4;
+    static final byte PUBLISH = 5;
+    static final byte BROADCAST = 6;
+    static final byte USER_PUBLISH = 7;
+    private static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+    private static final int CHALLENGE_BYTES = 32;
+
+    private final ClusterProperties properties;
+    private final SimpMessageSendingOperations messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final StompSessionRegistry sessionRegistry;
+    private final List<PeerLink> links = new ArrayList<>();
+    private final Map<String, Set<Integer>> remoteInterest = new ConcurrentHashMap<>();
+    private final Map<String, List<ChannelListener<?>>> listeners = new ConcurrentHashMap<>();
+    private final Set<Socket> inboundSockets = ConcurrentHashMap.newKeySet();
+    private final SecureRandom random = new SecureRandom();
+    private final Counter rejected;
+    private volatile boolean running;
+    private ServerSocket serverSocket;
+
+    public TcpClusterBus(ClusterProperties properties,
+                         SimpMessageSendingOperations messagingTemplate,
+                         ObjectMapper objectMapper,
+                         StompSessionRegistry sessionRegistry,
+                         MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.sessionRegistry = sessionRegistry;
+        this.rejected = Counter.builder("chatting.cluster.rejected").register(meterRegistry);
+        for (String peer : properties.getPeers()) {
+            PeerLink link = PeerLink.parse(this, peer);
+            if (!link.nodeId.equals(properties.getNodeId())) {
+                link.dropped = Counter.builder("chatting.cluster.dropped").tag("peer", link.nodeId).register(meterRegistry);
+                links.add(link);
+            }
+        }
+    }
+
+    public void start() throws IOException {
+        if (!"tcp".equals(properties.getMode())) {
+            log.info("Cluster mode is {}, not listening for peers", properties.getMode());
+            return;
+        }
+        if (!StringUtils.hasText(properties.getSecret())) {
+            throw new IllegalStateException("No cluster secret, set chatting.cluster.secret to the same value on every node");
+        }
+        running = true;
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(properties.getBindHost(), properties.getPort()));
+        daemon("cluster-accept-" + properties.getNodeId(), this::acceptLoop).start();
+        for (PeerLink link : links) {
+            link.thread = daemon("cluster-peer-" + link.nodeId, link);
+            link.thread.start();
+        }
+        log.info("Cluster node {} listening on {} with {} peers", properties.getNodeId(), serverSocket.getLocalSocketAddress(), links.size());
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        closeQuietly(serverSocket);
+        for (PeerLink link : links) {
+            if (link.thread != null) {
+                link.thread.interrupt();
+            }
+            closeQuietly(link.socket);
+        }
+        inboundSockets.forEach(TcpClusterBus::closeQuietly);
+    }
+
+    @Override
+    public void publish(String destination, Object payload, int... recipients) {
+        EncodedPayload body;
+        try {
+            body = EncodedPayload.of(objectMapper, payload);
+        } catch (IOException e) {
+            log.error("Failed to serialize payload for {}", destination, e);
+            return;
+        }
+        if (recipients.length == 0 || anyLocal(recipients)) {
+            deliverLocally(destination, body);
+        }
+        byte[] frame = null;
+        for (PeerLink link : links) {
+            if (recipients.length == 0 || anyInterested(link.nodeId, recipients)) {
+                if (frame == null) {
+                    frame = frame(PUBLISH, destination, body.bytes());
+                }
+                link.enqueue(frame);
+            }
+        }
+    }
+
+    @Override
+    public boolean sendToUser(int userId, String userQueue, Object payload) {
+        EncodedPayload body;
+        try {
+            body = EncodedPayload.of(objectMapper, payload);
+        } catch (IOException e) {
+            log.error("Failed to serialize payload for user {} on {}", userId, userQueue, e);
+            return true;
+        }
+        boolean sent = deliverToUser(userId, userQueue, body);
+        byte[] frame = null;
+        for (PeerLink link : links) {
+            if (isPeerInterested(link.nodeId, userId)) {
+                if (frame == null) {
+                    frame = userFrame(userId, userQueue, body.bytes());
+                }
+                link.enqueue(frame);
+                sent = true;
+            }
+        }
+        return sent;
+    }
+
+    @Override
+    public void broadcast(String channel, Object event) {
+        if (links.isEmpty()) {
+            return;
+        }
+        try {
+            byte[] frame = frame(BROADCAST, channel, objectMapper.writeValueAsBytes(event));
+            links.forEach(link -> link.enqueue(frame));
+        } catch (IOException e) {
+            log.error("Failed to serialize cluster event for {}", channel, e);
+        }
+    }
+
+    @Override
+    public <T> void subscribe(String channel, Class<T> type, Consumer<T> listener) {
+        listeners.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(new ChannelListener<>(type, listener));
+    }
+
+    @EventListener
+    public void onUserConnection(UserConnectionEvent event) {
+        if (links.isEmpty()) {
+            return;
+        }
+        byte[] frame = intFrame(event.isConnected() ? INTEREST_ADD : INTEREST_REMOVE, event.getUserId());
+        links.forEach(link -> link.enqueue(frame));
+    }
+
+    String nodeId() {
+        return properties.getNodeId();
+    }
+
+    boolean isPeerConnected(String nodeId) {
+        return remoteInterest.containsKey(nodeId);
+    }
+
+    boolean isPeerInterested(String nodeId, int userId) {
+        Set<Integer> interest = remoteInterest.get(nodeId);
+        return interest != null && interest.contains(userId);
+    }
+
+    private boolean anyLocal(int[] recipients) {
+        for (int userId : recipients) {
+            if (sessionRegistry.isConnected(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean anyInterested(String nodeId, int[] recipients) {
+        Set<Integer> interest = remoteInterest.get(nodeId);
+        if (interest == null) {
+            return false;
+        }
+        for (int userId : recipients) {
+            if (interest.contains(userId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void deliverLocally(String destination, EncodedPayload body) {
+        messagingTemplate.send(destination, body.toMessage());
+    }
+
+    private boolean deliverToUser(int userId, String userQueue, EncodedPayload body) {
+        String[] sessions = sessionRegistry.sessionsOf(userId);
+        for (String sessionId : sessions) {
+            deliverLocally(SocketDestination.ofSession(userQueue, sessionId), body);
+        }
+        return sessions.length > 0;
+    }
+
+    private void dispatch(String channel, byte[] body) {
+        for (ChannelListener<?> listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.accept(objectMapper, body);
+            } catch (Exception e) {
+                log.error("Cluster listener for {} failed", channel, e);
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                // Until the hello, so that a connection that never sends one does not hold a thread
+                socket.setSoTimeout((int) properties.getHandshakeTimeoutMillis());
+                inboundSockets.add(socket);
+                daemon("cluster-in-" + socket.getRemoteSocketAddress(), () -> serve(socket)).start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("Cluster accept failed", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        String peer = null;
+        Set<Integer> interest = ConcurrentHashMap.newKeySet();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            byte[] challenge = new byte[CHALLENGE_BYTES];
+            random.nextBytes(challenge);
+            OutputStream out = socket.getOutputStream();
+            out.write(challenge);
+            out.flush();
+            peer = authenticate(socket, readFrame(in), challenge);
+            if (peer == null) {
+                rejected.increment();
+                return;
+            }
+            socket.setSoTimeout(0);
+            remoteInterest.put(peer, interest);
+            while (running) {
+                DataInputStream body = new DataInputStream(new ByteArrayInputStream(readFrame(in)));
+                switch (body.readByte()) {
+                    case INTEREST_SNAPSHOT -> {
+                        Set<Integer> snapshot = new HashSet<>();
+                        for (int i = body.readInt(); i > 0; i--) {
+                            snapshot.add(body.readInt());
+                        }
+                        interest.retainAll(snapshot);
+                        interest.addAll(snapshot);
+                    }
+                    case INTEREST_ADD -> interest.add(body.readInt());
+                    case INTEREST_REMOVE -> interest.remove(body.readInt());
+                    case PUBLISH -> deliverLocally(body.readUTF(), EncodedPayload.wrap(body.readAllBytes()));
+                    case BROADCAST -> dispatch(body.readUTF(), body.readAllBytes());
+                    case USER_PUBLISH -> {
+                        int userId = body.readInt();
+                        deliverToUser(userId, body.readUTF(), EncodedPayload.wrap(body.readAllBytes()));
+                    }
+                    default -> log.warn("Unexpected cluster frame from {}", peer);
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            log.warn("Cluster connection from {} sent no hello in time", socket.getRemoteSocketAddress());
+            rejected.increment();
+        } catch (EOFException | SocketException e) {
+            log.debug("Cluster peer {} disconnected", peer);
+        } catch (IOException e) {
+            log.warn("Cluster connection from {} failed", peer, e);
+        } finally {
+            if (peer != null) {
+                remoteInterest.remove(peer, interest);
+            }
+            inboundSockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * @return the node id the first frame of a connection proves, null when it is not a valid hello of a peer
+     */
+    private String authenticate(Socket socket, byte[] frame, byte[] challenge) {
+        String nodeId;
+        byte[] proof;
+        try {
+            DataInputStream body = new DataInputStream(new ByteArrayInputStream(frame));
+            if (body.readByte() != HELLO) {
+                log.warn("Cluster connection from {} sent a frame before its hello", socket.getRemoteSocketAddress());
+                return null;
+            }
+            nodeId = body.readUTF();
+            proof = body.readAllBytes();
+        } catch (IOException e) {
+            log.warn("Malformed cluster hello from {}", socket.getRemoteSocketAddress());
+            return null;
+        }
+        PeerLink link = links.stream().filter(candidate -> candidate.nodeId.equals(nodeId)).findFirst().orElse(null);
+        if (link == null || !MessageDigest.isEqual(proof, proof(challenge, nodeId))) {
+            log.warn("Cluster connection from {} failed to authenticate as {}", socket.getRemoteSocketAddress(), nodeId);
+            return null;
+        }
+        if (!link.isAddressOf(socket.getInetAddress())) {
+            log.warn("Cluster peer {} connected from {}, which is not an address of {}", nodeId, socket.getInetAddress(), link.host);
+            return null;
+        }
+        return nodeId;
+    }
+
+    private byte[] proof(byte[] challenge, String nodeId) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(properties.getSecret().getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            mac.update(challenge);
+            return mac.doFinal(nodeId.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private byte[] helloFrame(byte[] challenge) {
+        return frame(HELLO, properties.getNodeId(), proof(challenge, properties.getNodeId()));
+    }
+
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > MAX_FRAME_BYTES) {
+            throw new IOException("Invalid cluster frame length " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    private byte[] snapshotFrame() {
+        Set<Integer> users = sessionRegistry.connectedUsers();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(5 + users.size() * 4);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(INTEREST_SNAPSHOT);
+            out.writeInt(users.size());
+            for (Integer userId : users) {
+                out.writeInt(userId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] intFrame(byte type, int value) {
+        return new byte[]{type, (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    private static byte[] frame(byte type, String name, byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + name.length() + 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(type);
+            out.writeUTF(name);
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] userFrame(int userId, String userQueue, byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length + userQueue.length() + 12);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(USER_PUBLISH);
+            out.writeInt(userId);
+            out.writeUTF(userQueue);
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Thread daemon(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // Already closed
+        }
+    }
+
+    /**
+     * Outbound connection to one peer, written by a single thread from a bounded queue. Frames of a batch stay in
+     * {@code unsent} until flushed, a failed batch goes out again first after reconnecting.
+     */
+    private static final class PeerLink implements Runnable {
+        final TcpClusterBus bus;
+        final String nodeId;
+        final String host;
+        final int port;
+        final BlockingQueue<byte[]> queue;
+        final List<byte[]> unsent = new ArrayList<>();
+        Counter dropped;
+        volatile Socket socket;
+        Thread thread;
+
+        PeerLink(TcpClusterBus bus, String nodeId, String host, int port) {
+            this.bus = bus;
+            this.nodeId = nodeId;
+            this.host = host;
+            this.port = port;
+            this.queue = new LinkedBlockingQueue<>(bus.properties.getOutboundQueueCapacity());
+        }
+
+        static PeerLink parse(TcpClusterBus bus, String peer) {
+            int at = peer.indexOf('@');
+            int colon = peer.lastIndexOf(':');
+            if (at <= 0 || colon <= at) {
+                throw new IllegalArgumentException("Cluster peer must look like nodeId@host:port but was " + peer);
+            }
+            return new PeerLink(bus, peer.substring(0, at), peer.substring(at + 1, colon), Integer.parseInt(peer.substring(colon + 1)));
+        }
+
+        void enqueue(byte[] frame) {
+            if (!queue.offer(frame)) {
+                dropped.increment();
+                log.warn("Outbound queue to cluster peer {} is full, dropping frame", nodeId);
+            }
+        }
+
+        boolean isAddressOf(InetAddress address) {
+            try {
+                return Arrays.asList(InetAddress.getAllByName(host)).contains(address);
+            } catch (UnknownHostException e) {
+                log.warn("Cannot resolve cluster peer {} at {}", nodeId, host);
+                return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            while (bus.running) {
+                try (Socket connection = new Socket()) {
+                    // From the address peers know this node by, which they check the hello against
+                    connection.bind(new InetSocketAddress(bus.properties.getBindHost(), 0));
+                    connection.connect(new InetSocketAddress(host, port), 2000);
+                    connection.setTcpNoDelay(true);
+                    connection.setSoTimeout((int) bus.properties.getHandshakeTimeoutMillis());
+                    socket = connection;
+                    byte[] challenge = connection.getInputStream().readNBytes(CHALLENGE_BYTES);
+                    if (challenge.length < CHALLENGE_BYTES) {
+                        throw new EOFException("Cluster peer " + nodeId + " closed the connection during the handshake");
+                    }
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+                    write(out, bus.helloFrame(challenge));
+                    write(out, bus.snapshotFrame());
+                    flush(out);
+                    log.info("Connected to cluster peer {} at {}:{}", nodeId, host, port);
+                    while (bus.running) {
+                        unsent.add(queue.take());
+                        queue.drainTo(unsent);
+                        flush(out);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (IOException e) {
+                    log.debug("Cluster peer {} unreachable: {}", nodeId, e.getMessage());
+                }
+                try {
+                    Thread.sleep(bus.properties.getReconnectDelayMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void flush(DataOutputStream out) throws IOException {
+            for (byte[] frame : unsent) {
+                write(out, frame);
+            }
+            out.flush();
+            unsent.clear();
+        }
+
+        private static void write(DataOutputStream out, byte[] frame) throws IOException {
+            out.writeInt(frame.length);
+            out.write(frame);
+        }
+    }
+
+    private record ChannelListener<T>(Class<T> type, Consumer<T> listener) {
+        void accept(ObjectMapper objectMapper, byte[] body) throws IOException {
+            listener.accept(objectMapper.readValue(body, type));
+        }
+    }
+}
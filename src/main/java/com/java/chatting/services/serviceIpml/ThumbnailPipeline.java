@@ -0,0 +1,298 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.firebase.ThumbnailProperties;
+import com.java.chatting.constants.PreviewStatus;
+import com.java.chatting.entities.ImagePreview;
+import com.java.chatting.entities.ImageThumbnail;
+import com.java.chatting.repositories.ImagePreviewRepository;
+import com.java.chatting.services.AttachmentStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thumbnails of uploaded images. On upload, only the image header is read: the {@link ImagePreview} is saved right
+ * away with the image dimensions and the URL and size every thumbnail will have, so the upload response and the
+ * message that follows it can already carry them. Decoding, downsizing and storing the thumbnails next to the
+ * original happen afterwards on the bounded {@code thumbnailExecutor}, after which the preview is {@code READY}.
+ * <p>
+ * Images are decoded subsampled, at about twice the largest thumbnail, so a 12 MP photo does not take 48 MB of heap;
+ * each smaller thumbnail is scaled down from the previous one.
+ * <p>
+ * Meters: {@code chatting.thumbnail} timings by outcome and {@code chatting.thumbnail.pending}, the images waiting
+ * for or being rendered.
+ */
+@Slf4j
+@Component
+public class ThumbnailPipeline {
+
+    private final ThumbnailProperties properties;
+    private final AttachmentStore attachmentStore;
+    private final ImagePreviewRepository imagePreviewRepository;
+    private final Executor thumbnailExecutor;
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Timer succeeded;
+    private final Timer failed;
+
+    public ThumbnailPipeline(ThumbnailProperties properties, AttachmentStore attachmentStore,
+                             ImagePreviewRepository imagePreviewRepository,
+                             @Qualifier("thumbnailExecutor") Executor thumbnailExecutor, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.attachmentStore = attachmentStore;
+        this.imagePreviewRepository = imagePreviewRepository;
+        this.thumbnailExecutor = thumbnailExecutor;
+        Gauge.builder("chatting.thumbnail.pending", pending, AtomicInteger::get).register(meterRegistry);
+        this.succeeded = Timer.builder("chatting.thumbnail").tag("outcome", "success").register(meterRegistry);
+        this.failed = Timer.builder("chatting.thumbnail").tag("outcome", "failure").register(meterRegistry);
+    }
+
+    /**
+     * Plans the thumbnails of an uploaded file and queues their rendering.
+     *
+     * @param file     the uploaded file, still readable
+     * @param original name the file was stored under
+     * @return the saved preview, or null when the file is not an image ImageIO can read
+     */
+    public ImagePreview submit(MultipartFile file, String original) {
+        if (!properties.isEnabled() || file.getContentType() == null || !file.getContentType().startsWith("image/")) {
+            return null;
+        }
+        Header header = readHeader(file);
+        if (header == null) {
+            return null;
+        }
+        ImagePreview preview = ImagePreview.builder()
+                .fileUrl(attachmentStore.publicUrl(original))
+                .width(header.width())
+                .height(header.height())
+                .status(PreviewStatus.PENDING)
+                .build();
+        if ((long) header.width() * header.height() > properties.getMaxPixels()) {
+            preview.setStatus(PreviewStatus.FAILED);
+            return imagePreviewRepository.save(preview);
+        }
+        String format = outputFormat(header.format());
+        List<String> targets = new ArrayList<>();
+        for (int size : properties.getSizes().stream().sorted((a, b) -> b - a).distinct().toList()) {
+            if (Math.max(header.width(), header.height()) <= size) {
+                continue;
+            }
+            String target = thumbnailName(original, size, format);
+            double scale = (double) size / Math.max(header.width(), header.height());
+            targets.add(target);
+            preview.getThumbnails().add(ImageThumbnail.builder()
+                    .url(attachmentStore.publicUrl(target))
+                    .width(Math.max(1, (int) Math.round(header.width() * scale)))
+                    .height(Math.max(1, (int) Math.round(header.height() * scale)))
+                    .build());
+        }
+        if (targets.isEmpty()) {
+            // Small enough to be its own thumbnail
+            preview.setStatus(PreviewStatus.READY);
+            return imagePreviewRepository.save(preview);
+        }
+        ImagePreview saved = imagePreviewRepository.save(preview);
+        Path copy;
+        try {
+            // The multipart file is deleted when the request ends, before the image may have been rendered
+            copy = Files.createTempFile("thumbnail-", null);
+            try (InputStream input = file.getInputStream()) {
+                Files.copy(input, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            log.warn("Could not keep {} for its thumbnails", saved.getFileUrl(), e);
+            saved.setStatus(PreviewStatus.FAILED);
+            saved.getThumbnails().clear();
+            return imagePreviewRepository.save(saved);
+        }
+        // The worker gets its own copy of the plan; the saved preview goes back to the caller
+        List<ImageThumbnail> thumbnails = List.copyOf(saved.getThumbnails());
+        pending.incrementAndGet();
+        thumbnailExecutor.execute(() -> render(saved.getId(), copy, format, targets, thumbnails));
+        return saved;
+    }
+
+    private void render(int previewId, Path copy, String format, List<String> targets, List<ImageThumbnail> thumbnails) {
+        long start = System.nanoTime();
+        List<String> uploaded = new ArrayList<>();
+        try {
+            BufferedImage image = decode(copy, thumbnails.get(0), format);
+            for (int i = 0; i < targets.size(); i++) {
+                image = scale(image, thumbnails.get(i).getWidth(), thumbnails.get(i).getHeight());
+                attachmentStore.storeBytes(targets.get(i), "image/" + format, encode(image, format));
+                uploaded.add(targets.get(i));
+            }
+            complete(previewId, true);
+            succeeded.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.warn("Could not render the thumbnails of preview {}", previewId, e);
+            attachmentStore.deleteQuietly(uploaded);
+            complete(previewId, false);
+        } finally {
+            pending.decrementAndGet();
+            try {
+                Files.deleteIfExists(copy);
+            } catch (IOException e) {
+                log.warn("Could not delete {}", copy, e);
+            }
+        }
+    }
+
+    // A failed preview keeps the image dimensions but lists no thumbnails
+    private void complete(int previewId, boolean rendered) {
+        imagePreviewRepository.findById(previewId).ifPresent(preview -> {
+            preview.setStatus(rendered ? PreviewStatus.READY : PreviewStatus.FAILED);
+            if (!rendered) {
+                preview.getThumbnails().clear();
+            }
+            imagePreviewRepository.save(preview);
+        });
+    }
+
+    private static Header readHeader(MultipartFile file) {
+        try (InputStream input = file.getInputStream(); ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+            ImageReader reader = readerFor(stream);
+            if (reader == null) {
+                return null;
+            }
+            try {
+                reader.setInput(stream, true, true);
+                return new Header(reader.getFormatName().toLowerCase(), reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("{} is not a readable image", file.getOriginalFilename(), e);
+            return null;
+        }
+    }
+
+    // Decodes every n-th pixel, n chosen to keep the image at least twice the size of the largest thumbnail
+    private static BufferedImage decode(Path file, ImageThumbnail largest, String format) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = readerFor(stream);
+            if (reader == null) {
+                throw new IOException("No image reader for " + file);
+            }
+            try {
+                reader.setInput(stream, true, true);
+                int subsampling = Math.max(1, Math.min(reader.getWidth(0) / (2 * largest.getWidth()),
+                        reader.getHeight(0) / (2 * largest.getHeight())));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                return toRenderable(image, format);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halves the image with bilinear filtering until one last step reaches the target, which keeps the detail a
+    // single large bilinear step would skip
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage current = image;
+        while (current.getWidth() != width || current.getHeight() != height) {
+            int nextWidth = current.getWidth() / 2 >= width ? current.getWidth() / 2 : width;
+            int nextHeight = current.getHeight() / 2 >= height ? current.getHeight() / 2 : height;
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, current.getType());
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(properties.getJpegQuality());
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    // Scaling is fastest on the int RGB types; JPEG has no alpha, so transparent pixels become white
+    private static BufferedImage toRenderable(BufferedImage image, String format) {
+        int type = "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        if (image.getType() == type) {
+            return image;
+        }
+        BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D graphics = converted.createGraphics();
+        try {
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return converted;
+    }
+
+    private static ImageReader readerFor(ImageInputStream stream) {
+        if (stream == null) {
+            return null;
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+        return readers.hasNext() ? readers.next() : null;
+    }
+
+    // Formats that may be transparent keep it as PNG, everything else becomes JPEG
+    private static String outputFormat(String sourceFormat) {
+        return "png".equals(sourceFormat) || "gif".equals(sourceFormat) ? "png" : "jpeg";
+    }
+
+    // chat/<uuid>_photo.png -> chat/<uuid>_photo_480.png
+    private static String thumbnailName(String original, int size, String format) {
+        int slash = original.lastIndexOf('/');
+        int dot = original.lastIndexOf('.');
+        String base = dot > slash ? original.substring(0, dot) : original;
+        return base + "_" + size + ("jpeg".equals(format) ? ".jpg" : ".png");
+    }
+
+    private record Header(String format, int width, int height) {
+    }
+}
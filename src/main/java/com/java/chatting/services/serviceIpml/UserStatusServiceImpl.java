@@ -5,7 +5,7 @@ import com.java.chatting.entities.UserStatus;
 import com.java.chatting.exception.AppException;
 import com.java.chatting.exception.ErrorCode;
 import com.java.chatting.repositories.UserStatusRepository;
-import com.java.chatting.repositories.clients.UserClient;
+import com.java.chatting.repositories.UserRepository;
 import com.java.chatting.services.UserStatusService;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -21,11 +21,11 @@ import java.time.LocalDateTime;
 @Slf4j
 public class UserStatusServiceImpl implements UserStatusService {
     UserStatusRepository userStatusRepository;
-    UserClient userClient;
+    UserRepository userRepository;
     @Override
     public UserStatusResponse updateUserStatus(int userId, UserStatus.Status status) {
         UserStatus existingStatus = userStatusRepository.findByUserId(userId).orElseThrow(() -> new AppException(ErrorCode.USER_NOT_FOUND));
-        var user = userClient.getProfile(userId);
+        var user = userRepository.getUserProfile(userId);
     if (user == null) {
         throw new AppException(ErrorCode.USER_NOT_FOUND);
     }
@@ -36,7 +36,7 @@ public class UserStatusServiceImpl implements UserStatusService {
             userStatus = existingStatus;
         } else {
             userStatus = new UserStatus();
-            userStatus.setUserId(user.getData().getId());
+            userStatus.setUserId(user.getId());
         }
 
 
@@ -0,0 +1,58 @@
+package com.java.chatting.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * JSON body of an outbound STOMP message, serialized once per event. Every delivery, whether to a local
+ * session or to another node, shares the same bytes; only the headers are created per message.
+ */
+public final class EncodedPayload {
+
+    private final byte[] json;
+
+    private EncodedPayload(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * @return {@code payload} itself if it is already encoded, otherwise its JSON serialization
+     */
+    public static EncodedPayload of(ObjectMapper objectMapper, Object payload) throws JsonProcessingException {
+        if (payload instanceof EncodedPayload encoded) {
+            return encoded;
+        }
+        return new EncodedPayload(objectMapper.writeValueAsBytes(payload));
+    }
+
+    public static EncodedPayload wrap(byte[] json) {
+        return new EncodedPayload(json);
+    }
+
+    /**
+     * @return the serialized JSON; shared, must not be modified
+     */
+    public byte[] bytes() {
+        return json;
+    }
+
+    public int size() {
+        return json.length;
+    }
+
+    /**
+     * Builds a new broker message around the shared body. Each destination needs its own message because
+     * the template sets the destination header on it.
+     */
+    public Message<byte[]> toMessage() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(json, accessor.getMessageHeaders());
+    }
+}
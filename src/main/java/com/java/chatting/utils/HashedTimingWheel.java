@@ -0,0 +1,150 @@
+package com.java.chatting.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Hashed timing wheel tracking one deadline per int id.
+ * <p>
+ * {@link #touch(int, long)} only moves the deadline of an existing entry forward, it never touches the wheel,
+ * so refreshing a deadline is a single CAS. Entries that are drained before their deadline are simply
+ * re-inserted into the slot of their current deadline. {@link #advance(long, IntConsumer)} must only be
+ * called from a single thread; {@link #touch(int, long)} and {@link #remove(int)} are safe from any thread.
+ */
+public class HashedTimingWheel {
+
+    private static final long CANCELLED = -1L;
+
+    private final long tickMillis;
+    private final long timeoutMillis;
+    private final int mask;
+    private final Queue<Entry>[] slots;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private long currentTick = -1;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(int wheelSize, long tickMillis, long timeoutMillis) {
+        if (tickMillis <= 0 || timeoutMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis and timeoutMillis must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.timeoutMillis = timeoutMillis;
+        this.mask = size - 1;
+        this.slots = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Pushes the deadline of {@code id} to {@code nowMillis + timeout}.
+     *
+     * @return true if the id was not tracked before
+     */
+    public boolean touch(int id, long nowMillis) {
+        long deadline = nowMillis + timeoutMillis;
+        while (true) {
+            Entry entry = entries.get(id);
+            if (entry == null) {
+                Entry created = new Entry(id, deadline);
+                if (entries.putIfAbsent(id, created) == null) {
+                    slotFor(deadline).add(created);
+                    return true;
+                }
+                continue;
+            }
+            long current = entry.deadline.get();
+            if (current == CANCELLED) {
+                entries.remove(id, entry);
+                continue;
+            }
+            if (current >= deadline || entry.deadline.compareAndSet(current, deadline)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Stops tracking {@code id} without reporting it as expired.
+     *
+     * @return true if the id was tracked
+     */
+    public boolean remove(int id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        return entry.deadline.getAndSet(CANCELLED) != CANCELLED;
+    }
+
+    public boolean contains(int id) {
+        return entries.containsKey(id);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Processes every tick up to {@code nowMillis} and reports each id whose deadline has passed.
+     *
+     * @return the number of expired ids
+     */
+    public int advance(long nowMillis, IntConsumer onExpired) {
+        long targetTick = nowMillis / tickMillis;
+        if (currentTick < 0 || targetTick - currentTick > slots.length) {
+            // First run or a long pause: one full revolution visits every slot.
+            currentTick = targetTick - slots.length;
+        }
+        int expired = 0;
+        while (currentTick < targetTick) {
+            currentTick++;
+            Queue<Entry> slot = slots[(int) (currentTick & mask)];
+            int pending = slot.size();
+            for (int i = 0; i < pending; i++) {
+                Entry entry = slot.poll();
+                if (entry == null) {
+                    break;
+                }
+                long deadline = entry.deadline.get();
+                if (deadline == CANCELLED) {
+                    continue;
+                }
+                if (deadline > nowMillis) {
+                    slotFor(deadline).add(entry);
+                } else if (entry.deadline.compareAndSet(deadline, CANCELLED)) {
+                    entries.remove(entry.id, entry);
+                    onExpired.accept(entry.id);
+                    expired++;
+                } else {
+                    // Refreshed concurrently, look at it again on its new deadline.
+                    long refreshed = entry.deadline.get();
+                    if (refreshed != CANCELLED) {
+                        slotFor(refreshed).add(entry);
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    private Queue<Entry> slotFor(long deadlineMillis) {
+        // Round up so the slot is only visited once the deadline has really passed.
+        long tick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        return slots[(int) (tick & mask)];
+    }
+
+    private static final class Entry {
+        final int id;
+        final AtomicLong deadline;
+
+        Entry(int id, long deadline) {
+            this.id = id;
+            this.deadline = new AtomicLong(deadline);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.java.chatting.utils;
+
+import java.util.Arrays;
+
+/**
+ * The most recent call latencies with a percentile over them. The percentile is recomputed every few samples and
+ * read without locking, so asking for it on every call is cheap.
+ */
+public class LatencyWindow {
+
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples;
+    private final double percentile;
+    private final int minSamples;
+    private int next;
+    private int count;
+    private int sinceRecompute;
+    private volatile long percentileNanos = -1;
+
+    public LatencyWindow(int size, double percentile, int minSamples) {
+        this.samples = new long[size];
+        this.percentile = percentile;
+        this.minSamples = Math.min(Math.max(1, minSamples), size);
+    }
+
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        if (count == minSamples || (count > minSamples && ++sinceRecompute >= RECOMPUTE_EVERY)) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            percentileNanos = sorted[Math.min(Math.max(index, 0), count - 1)];
+            sinceRecompute = 0;
+        }
+    }
+
+    /**
+     * @return the latency percentile in nanoseconds, or -1 until enough samples were recorded
+     */
+    public long percentileNanos() {
+        return percentileNanos;
+    }
+}
@@ -0,0 +1,226 @@
+package com.java.chatting.utils;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Concurrent table of per-pair timestamps keyed by a packed long, used to throttle typing indicators.
+ * <p>
+ * Lock striping over open-addressing tables of primitive arrays: lookups and updates allocate nothing,
+ * and every pair only costs three array slots.
+ */
+public class PairStateTable {
+
+    public static final int FORWARD = 1;
+    public static final int DROP = 0;
+
+    private final Stripe[] stripes;
+    private final int stripeShift;
+
+    public PairStateTable(int stripeCount, int initialCapacityPerStripe) {
+        int count = Integer.highestOneBit(Math.max(stripeCount, 2) - 1) << 1;
+        this.stripes = new Stripe[count];
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(count);
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(initialCapacityPerStripe);
+        }
+    }
+
+    public static long pack(int high, int low) {
+        return ((long) high << 32) | (low & 0xFFFFFFFFL);
+    }
+
+    public static int high(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int low(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Records activity for {@code key}.
+     *
+     * @return {@link #FORWARD} for a new pair or when {@code intervalMillis} has passed since the last
+     * forwarded event, {@link #DROP} otherwise
+     */
+    public int touch(long key, long nowMillis, long intervalMillis) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> stripeShift)];
+        synchronized (stripe) {
+            return stripe.touch(key, (int) hash, nowMillis, intervalMillis);
+        }
+    }
+
+    /**
+     * @return true if the pair was tracked
+     */
+    public boolean remove(long key) {
+        long hash = mix(key);
+        Stripe stripe = stripes[(int) (hash >>> stripeShift)];
+        synchronized (stripe) {
+            return stripe.remove(key, (int) hash);
+        }
+    }
+
+    /**
+     * Removes every pair without activity for {@code timeoutMillis} and reports it. The pairs of a stripe are
+     * reported after its lock is released, so a slow {@code onExpired} does not hold up touches.
+     */
+    public void expire(long nowMillis, long timeoutMillis, LongConsumer onExpired) {
+        KeyBuffer expired = new KeyBuffer();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.expire(nowMillis - timeoutMillis, expired);
+            }
+            for (int i = 0; i < expired.size; i++) {
+                onExpired.accept(expired.keys[i]);
+            }
+            expired.size = 0;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static final class KeyBuffer {
+        long[] keys = new long[16];
+        int size;
+
+        void add(long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            keys[size++] = key;
+        }
+    }
+
+    private static final class Stripe {
+        long[] keys;
+        long[] forwardedAt;
+        long[] seenAt;
+        boolean[] used;
+        int size;
+
+        Stripe(int capacity) {
+            allocate(Integer.highestOneBit(Math.max(capacity, 8) - 1) << 1);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            forwardedAt = new long[capacity];
+            seenAt = new long[capacity];
+            used = new boolean[capacity];
+        }
+
+        int touch(long key, int hash, long now, long interval) {
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (used[i]) {
+                if (keys[i] == key) {
+                    seenAt[i] = now;
+                    if (now - forwardedAt[i] >= interval) {
+                        forwardedAt[i] = now;
+                        return FORWARD;
+                    }
+                    return DROP;
+                }
+                i = (i + 1) & mask;
+            }
+            used[i] = true;
+            keys[i] = key;
+            forwardedAt[i] = now;
+            seenAt[i] = now;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return FORWARD;
+        }
+
+        boolean remove(long key, int hash) {
+            int mask = keys.length - 1;
+            int i = hash & mask;
+            while (used[i]) {
+                if (keys[i] == key) {
+                    removeAt(i);
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        void expire(long seenBefore, KeyBuffer expired) {
+            int i = 0;
+            while (i < keys.length) {
+                if (used[i] && seenAt[i] <= seenBefore) {
+                    long key = keys[i];
+                    // Backward shift may move an unvisited entry into slot i, so look at it again.
+                    removeAt(i);
+                    expired.add(key);
+                } else {
+                    i++;
+                }
+            }
+        }
+
+        private void removeAt(int hole) {
+            int mask = keys.length - 1;
+            int j = hole;
+            while (true) {
+                j = (j + 1) & mask;
+                if (!used[j]) {
+                    break;
+                }
+                int home = (int) mix(keys[j]) & mask;
+                boolean stays = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+                if (!stays) {
+                    keys[hole] = keys[j];
+                    forwardedAt[hole] = forwardedAt[j];
+                    seenAt[hole] = seenAt[j];
+                    hole = j;
+                }
+            }
+            used[hole] = false;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldForwarded = forwardedAt;
+            long[] oldSeen = seenAt;
+            boolean[] oldUsed = used;
+            allocate(oldKeys.length * 2);
+            int mask = keys.length - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (!oldUsed[k]) {
+                    continue;
+                }
+                int i = (int) mix(oldKeys[k]) & mask;
+                while (used[i]) {
+                    i = (i + 1) & mask;
+                }
+                used[i] = true;
+                keys[i] = oldKeys[k];
+                forwardedAt[i] = oldForwarded[k];
+                seenAt[i] = oldSeen[k];
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.java.chatting.utils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Who-watches-whom index for presence fan-out. Each connected watcher registers the users it is interested in,
+ * and the inverted side answers "which watchers care about user X" in O(1).
+ * <p>
+ * Not thread-safe, all mutations are expected to happen on the presence thread.
+ */
+public class PresenceInterestIndex {
+
+    private final Map<Integer, Set<Integer>> interestsByWatcher = new HashMap<>();
+    private final Map<Integer, Set<Integer>> watchersByUser = new HashMap<>();
+
+    public void register(int watcher, Iterable<Integer> interests) {
+        unregister(watcher);
+        Set<Integer> own = new HashSet<>();
+        for (Integer userId : interests) {
+            if (userId != null && userId != watcher && own.add(userId)) {
+                watchersByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(watcher);
+            }
+        }
+        interestsByWatcher.put(watcher, own);
+    }
+
+    public void unregister(int watcher) {
+        Set<Integer> own = interestsByWatcher.remove(watcher);
+        if (own == null) {
+            return;
+        }
+        for (Integer userId : own) {
+            Set<Integer> watchers = watchersByUser.get(userId);
+            if (watchers != null && watchers.remove(watcher) && watchers.isEmpty()) {
+                watchersByUser.remove(userId);
+            }
+        }
+    }
+
+    /**
+     * Adds {@code userId} to the interests of {@code watcher} if the watcher is registered.
+     *
+     * @return true if the interest is new
+     */
+    public boolean addInterest(int watcher, int userId) {
+        Set<Integer> own = interestsByWatcher.get(watcher);
+        if (own == null || watcher == userId || !own.add(userId)) {
+            return false;
+        }
+        watchersByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(watcher);
+        return true;
+    }
+
+    public Set<Integer> watchersOf(int userId) {
+        return watchersByUser.getOrDefault(userId, Set.of());
+    }
+
+    public Set<Integer> interestsOf(int watcher) {
+        return interestsByWatcher.getOrDefault(watcher, Set.of());
+    }
+
+    public boolean isRegistered(int watcher) {
+        return interestsByWatcher.containsKey(watcher);
+    }
+}
@@ -0,0 +1,35 @@
+package com.java.chatting.configurations.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CiphertextTagTest {
+
+    @Test
+    void tagRoundTrips() {
+        String tagged = CiphertextTag.tag(42, "AbC+/=");
+
+        assertEquals("v1.42.AbC+/=", tagged);
+        assertTrue(CiphertextTag.isTagged(tagged));
+        assertEquals(42, CiphertextTag.keyId(tagged));
+        assertEquals("AbC+/=", CiphertextTag.body(tagged));
+    }
+
+    @Test
+    void untaggedCiphertextsPassThrough() {
+        assertFalse(CiphertextTag.isTagged("AbC+/="));
+        assertFalse(CiphertextTag.isTagged(null));
+        assertEquals(-1, CiphertextTag.keyId("AbC+/="));
+        assertEquals(-1, CiphertextTag.keyId(null));
+        assertEquals("AbC+/=", CiphertextTag.body("AbC+/="));
+    }
+
+    @Test
+    void malformedTagsHaveNoKeyId() {
+        assertEquals(-1, CiphertextTag.keyId("v1.AbC"));
+        assertEquals(-1, CiphertextTag.keyId("v1.x.AbC"));
+        assertEquals(-1, CiphertextTag.keyId("v1..AbC"));
+        assertEquals(-1, CiphertextTag.keyId("v1.99999999999.AbC"));
+    }
+}
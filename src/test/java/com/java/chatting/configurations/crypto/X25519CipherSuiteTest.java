@@ -0,0 +1,75 @@
+package com.java.chatting.configurations.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class X25519CipherSuiteTest {
+
+    private final X25519CipherSuite suite = new X25519CipherSuite();
+
+    @Test
+    void encryptsForTheOwnerOfThePublicKey() throws GeneralSecurityException {
+        KeyPair pair = suite.generateKeyPair();
+        String message = "Xin chào 👋";
+
+        String ciphertext = suite.encrypt(message, publicKey(pair));
+
+        assertEquals(message, suite.decrypt(ciphertext, privateKey(pair)));
+        assertEquals(message, suite.decrypt(ciphertext, suite.privateKey(privateKey(pair))));
+        // A fresh ephemeral key and iv per message
+        assertNotEquals(ciphertext, suite.encrypt(message, publicKey(pair)));
+    }
+
+    @Test
+    void wrapsContentKeys() throws GeneralSecurityException {
+        KeyPair pair = suite.generateKeyPair();
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey contentKey = generator.generateKey();
+
+        SecretKey unwrapped = suite.unwrapKey(suite.wrapKey(contentKey, publicKey(pair)), privateKey(pair));
+
+        assertArrayEquals(contentKey.getEncoded(), unwrapped.getEncoded());
+        assertEquals("AES", unwrapped.getAlgorithm());
+    }
+
+    @Test
+    void anotherKeyCannotDecrypt() throws GeneralSecurityException {
+        KeyPair owner = suite.generateKeyPair();
+        KeyPair other = suite.generateKeyPair();
+        String ciphertext = suite.encrypt("secret", publicKey(owner));
+
+        assertThrows(GeneralSecurityException.class, () -> suite.decrypt(ciphertext, privateKey(other)));
+        assertThrows(GeneralSecurityException.class,
+                () -> suite.unwrapKey(suite.wrapKey(new SecretKeySpec(new byte[32], "AES"),
+                        publicKey(owner)), privateKey(other)));
+    }
+
+    @Test
+    void rejectsTamperedAndTruncatedCiphertexts() throws GeneralSecurityException {
+        KeyPair pair = suite.generateKeyPair();
+        byte[] ciphertext = Base64.getDecoder().decode(suite.encrypt("secret", publicKey(pair)));
+        ciphertext[ciphertext.length - 1] ^= 1;
+        String tampered = Base64.getEncoder().encodeToString(ciphertext);
+        String truncated = Base64.getEncoder().encodeToString(new byte[X25519CipherSuite.PUBLIC_KEY_BYTES]);
+
+        assertThrows(GeneralSecurityException.class, () -> suite.decrypt(tampered, privateKey(pair)));
+        assertThrows(GeneralSecurityException.class, () -> suite.decrypt(truncated, privateKey(pair)));
+    }
+
+    private static String publicKey(KeyPair pair) {
+        return Base64.getEncoder().encodeToString(pair.getPublic().getEncoded());
+    }
+
+    private static String privateKey(KeyPair pair) {
+        return Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded());
+    }
+}
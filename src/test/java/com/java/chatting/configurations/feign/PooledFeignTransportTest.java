@@ -0,0 +1,65 @@
+package com.java.chatting.configurations.feign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.repositories.clients.UserClient;
+import feign.Feign;
+import feign.Request;
+import feign.Retryer;
+import feign.Target;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PooledFeignTransportTest {
+
+    private StubServer stub;
+    private SimpleMeterRegistry meterRegistry;
+    private UserClient userClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubServer();
+        meterRegistry = new SimpleMeterRegistry();
+        PooledFeignTransport transport = new PooledFeignTransport(new OkHttpClient(), new FeignTransportProperties(), meterRegistry);
+        HttpMessageConverters converters = new HttpMessageConverters(
+                new MappingJackson2HttpMessageConverter(new ObjectMapper().findAndRegisterModules()));
+        userClient = Feign.builder()
+                .client(transport)
+                .contract(new SpringMvcContract())
+                .decoder(new SpringDecoder(() -> converters))
+                .retryer(Retryer.NEVER_RETRY)
+                // different from the OkHttp defaults, so every call goes through a derived client
+                .options(new Request.Options(1, TimeUnit.SECONDS, 2, TimeUnit.SECONDS, true))
+                .target(new Target.HardCodedTarget<>(UserClient.class, "user", stub.url()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    @Test
+    void reusesPooledConnectionsAndRecordsTimingsPerClient() {
+        stub.latencyMillis = 20;
+        for (int i = 0; i < 3; i++) {
+            userClient.getProfile(i);
+        }
+
+        assertEquals(1, meterRegistry.get("chatting.feign.connect").tag("client", "user").timer().count());
+        assertEquals(1, meterRegistry.get("chatting.feign.connections").tag("reused", "false").counter().count());
+        assertEquals(2, meterRegistry.get("chatting.feign.connections").tag("reused", "true").counter().count());
+        assertEquals(3, meterRegistry.get("chatting.feign.ttfb").tag("client", "user").timer().count());
+        assertEquals(0, meterRegistry.get("chatting.feign.pool.in_use").tag("client", "user").gauge().value());
+        assertEquals(1, meterRegistry.get("chatting.feign.pool.connections").tag("state", "idle").gauge().value());
+    }
+}
@@ -0,0 +1,163 @@
+package com.java.chatting.configurations.feign;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.CustomErrorDecoder;
+import com.java.chatting.exception.DownstreamUnavailableException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.repositories.UserRepository;
+import com.java.chatting.repositories.clients.UserClient;
+import feign.Client;
+import feign.Feign;
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.Target;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientFeignClientTest {
+
+    private StubServer stub;
+    private FeignResilienceProperties properties;
+    private FeignResilienceProperties.ClientPolicy policy;
+    private CircuitBreakerRegistry circuitBreakers;
+    private SimpleMeterRegistry meterRegistry;
+    private ResilientFeignClient resilientClient;
+    private UserClient userClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new StubServer();
+        policy = new FeignResilienceProperties.ClientPolicy();
+        properties = new FeignResilienceProperties();
+        properties.getClients().put("user", policy);
+        circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stub.close();
+    }
+
+    private void buildClient() {
+        resilientClient = new ResilientFeignClient(new Client.Default(null, null), properties,
+                circuitBreakers, BulkheadRegistry.ofDefaults(), meterRegistry);
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        HttpMessageConverters converters = new HttpMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper));
+        userClient = Feign.builder()
+                .client(resilientClient)
+                .contract(new SpringMvcContract())
+                .decoder(new SpringDecoder(() -> converters))
+                .errorDecoder(new CustomErrorDecoder())
+                .retryer(Retryer.NEVER_RETRY)
+                .options(new Request.Options(1, TimeUnit.SECONDS, 5, TimeUnit.SECONDS, true))
+                .target(new Target.HardCodedTarget<>(UserClient.class, "user", stub.url()));
+    }
+
+    @Test
+    void shrinksTheReadTimeoutToObservedLatency() {
+        policy.setMinTimeoutMillis(100);
+        policy.setMinLatencySamples(20);
+        buildClient();
+        for (int i = 0; i < 25; i++) {
+            assertEquals(i, userClient.getProfile(i).getData().getId());
+        }
+        assertEquals(100, resilientClient.currentTimeoutMillis("user"));
+
+        stub.latencyMillis = 3000;
+        long start = System.nanoTime();
+        assertThrows(RetryableException.class, () -> userClient.getProfile(1));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis < 1500, "gave up after " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void opensTheBreakerOnServerErrorsAndStopsCalling() {
+        policy.setSlidingWindowSize(10);
+        policy.setMinimumNumberOfCalls(5);
+        buildClient();
+        stub.status = 500;
+        for (int i = 0; i < 5; i++) {
+            assertThrows(FeignException.FeignServerException.class, () -> userClient.getProfile(1));
+        }
+
+        assertThrows(DownstreamUnavailableException.class, () -> userClient.getProfile(1));
+        assertEquals(5, stub.requests.get());
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.circuitBreaker("user").getState());
+        assertEquals(1, meterRegistry.get("chatting.feign.rejected").tag("reason", "circuit_open").counter().count());
+    }
+
+    @Test
+    void closesAgainOnceTheServiceRecovers() throws Exception {
+        policy.setSlidingWindowSize(10);
+        policy.setMinimumNumberOfCalls(5);
+        policy.setOpenStateMillis(200);
+        policy.setHalfOpenCalls(2);
+        buildClient();
+        stub.status = 500;
+        for (int i = 0; i < 5; i++) {
+            assertThrows(FeignException.FeignServerException.class, () -> userClient.getProfile(1));
+        }
+
+        stub.status = 200;
+        Thread.sleep(300);
+        userClient.getProfile(1);
+        userClient.getProfile(2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakers.circuitBreaker("user").getState());
+    }
+
+    @Test
+    void rejectsCallsBeyondTheBulkheadLimit() throws Exception {
+        policy.setMaxConcurrentCalls(2);
+        buildClient();
+        stub.latencyMillis = 1000;
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> userClient.getProfile(1));
+            callers.submit(() -> userClient.getProfile(2));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (stub.inFlight.get() < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            long start = System.nanoTime();
+            assertThrows(DownstreamUnavailableException.class, () -> userClient.getProfile(3));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+            assertEquals(2, stub.requests.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void userRepositoryServesTheLastKnownProfileWhileTheServiceIsDown() {
+        buildClient();
+        UserRepository userRepository = new UserRepository(userClient, properties, meterRegistry);
+        assertEquals("User 7", userRepository.getUserProfile(7).getFirstName());
+
+        stub.status = 503;
+        assertEquals("User 7", userRepository.getUserProfile(7).getFirstName());
+        AppException missing = assertThrows(AppException.class, () -> userRepository.getUserProfile(8));
+        assertEquals(ErrorCode.SERVICE_UNAVAILABLE, missing.getErrorCode());
+        assertEquals(1, meterRegistry.get("chatting.feign.fallbacks").tag("result", "cached").counter().count());
+    }
+}
@@ -0,0 +1,159 @@
+package com.java.chatting.configurations.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomJwtDecoderTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String OTHER_SECRET = "fedcba9876543210fedcba9876543210";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void acceptsHs256SignedWithTheSecret() throws Exception {
+        CustomJwtDecoder decoder = decoder(SECRET, null);
+        String token = sign(new MACSigner(SECRET), JWSAlgorithm.HS256, null, claims(Instant.now().plusSeconds(60), null));
+
+        Jwt jwt = decoder.decode(token);
+
+        assertEquals("7", jwt.getSubject());
+        assertEquals(token, jwt.getTokenValue());
+    }
+
+    @Test
+    void rejectsAnotherSecret() throws Exception {
+        CustomJwtDecoder decoder = decoder(SECRET, null);
+        String token = sign(new MACSigner(OTHER_SECRET), JWSAlgorithm.HS256, null,
+                claims(Instant.now().plusSeconds(60), null));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode(token));
+    }
+
+    @Test
+    void rejectsAlgorithmsWithoutAMatchingKey() throws Exception {
+        CustomJwtDecoder decoder = decoder(SECRET, null);
+        RSAKey rsaKey = new RSAKeyGenerator(2048).keyID("attacker").generate();
+        String rsaSigned = sign(new RSASSASigner(rsaKey), JWSAlgorithm.RS256, "attacker",
+                claims(Instant.now().plusSeconds(60), null));
+        // The configured secret is too short for HS512, so HS512 tokens are never checked against it
+        String hs512Signed = sign(new MACSigner(SECRET + SECRET), JWSAlgorithm.HS512, null,
+                claims(Instant.now().plusSeconds(60), null));
+        // {"alg":"none"} with empty claims and no signature
+        String unsigned = "eyJhbGciOiJub25lIn0.e30.";
+
+        assertThrows(BadJwtException.class, () -> decoder.decode(rsaSigned));
+        assertThrows(BadJwtException.class, () -> decoder.decode(hs512Signed));
+        assertThrows(BadJwtException.class, () -> decoder.decode(unsigned));
+    }
+
+    @Test
+    void picksTheJwksKeyByKid() throws Exception {
+        RSAKey current = new RSAKeyGenerator(2048).keyID("current").generate();
+        RSAKey previous = new RSAKeyGenerator(2048).keyID("previous").generate();
+        Path jwks = dir.resolve("jwks.json");
+        Files.writeString(jwks, new JWKSet(List.of(current.toPublicJWK(), previous.toPublicJWK())).toString(),
+                StandardCharsets.UTF_8);
+        CustomJwtDecoder decoder = decoder("", "file:" + jwks);
+        JWTClaimsSet claims = claims(Instant.now().plusSeconds(60), null);
+
+        assertEquals("7", decoder.decode(sign(new RSASSASigner(previous), JWSAlgorithm.RS256, "previous", claims)).getSubject());
+        assertEquals("7", decoder.decode(sign(new RSASSASigner(current), JWSAlgorithm.RS256, "current", claims)).getSubject());
+        // Signed with one key but naming the other
+        assertThrows(BadJwtException.class,
+                () -> decoder.decode(sign(new RSASSASigner(current), JWSAlgorithm.RS256, "previous", claims)));
+    }
+
+    @Test
+    void appliesTheClockSkewToExpiryAndNotBefore() throws Exception {
+        CustomJwtDecoder decoder = decoder(SECRET, null);
+        MACSigner signer = new MACSigner(SECRET);
+        Instant now = Instant.now();
+
+        assertDoesNotThrow(() -> decoder.decode(sign(signer, JWSAlgorithm.HS256, null, claims(now.minusSeconds(10), null))));
+        assertThrows(BadJwtException.class,
+                () -> decoder.decode(sign(signer, JWSAlgorithm.HS256, null, claims(now.minusSeconds(60), null))));
+        assertDoesNotThrow(() -> decoder.decode(sign(signer, JWSAlgorithm.HS256, null,
+                claims(now.plusSeconds(120), now.plusSeconds(10)))));
+        assertThrows(BadJwtException.class, () -> decoder.decode(sign(signer, JWSAlgorithm.HS256, null,
+                claims(now.plusSeconds(120), now.plusSeconds(60)))));
+        assertThrows(BadJwtException.class, () -> decoder.decode(sign(signer, JWSAlgorithm.HS256, null,
+                new JWTClaimsSet.Builder().subject("7").build())));
+    }
+
+    @Test
+    void cachesVerifiedTokensOnly() throws Exception {
+        CustomJwtDecoder decoder = decoder(SECRET, null);
+        String token = sign(new MACSigner(SECRET), JWSAlgorithm.HS256, null, claims(Instant.now().plusSeconds(60), null));
+        String forged = sign(new MACSigner(OTHER_SECRET), JWSAlgorithm.HS256, null,
+                claims(Instant.now().plusSeconds(60), null));
+
+        assertSame(decoder.decode(token), decoder.decode(token));
+        assertEquals(1, meterRegistry.get("chatting.jwt.decode").tag("stage", "verify").timer().count());
+        assertEquals(1, meterRegistry.get("chatting.jwt.cache").tag("result", "hit").counter().count());
+
+        assertThrows(BadJwtException.class, () -> decoder.decode(forged));
+        assertThrows(BadJwtException.class, () -> decoder.decode(forged));
+        assertEquals(3, meterRegistry.get("chatting.jwt.decode").tag("stage", "verify").timer().count());
+        assertEquals(1, meterRegistry.get("chatting.jwt.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void refusesShortSecrets() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> decoder("too short", null));
+
+        assertTrue(e.getMessage().contains("256 bits"), e.getMessage());
+    }
+
+    private CustomJwtDecoder decoder(String signerKey, String jwksLocation) throws Exception {
+        JwtProperties properties = new JwtProperties();
+        properties.setSignerKey(signerKey);
+        if (jwksLocation != null) {
+            properties.setJwksLocation(jwksLocation);
+        }
+        return new CustomJwtDecoder(properties, new DefaultResourceLoader(), meterRegistry);
+    }
+
+    private static JWTClaimsSet claims(Instant expiresAt, Instant notBefore) {
+        return new JWTClaimsSet.Builder()
+                .subject("7")
+                .issueTime(Date.from(expiresAt.minusSeconds(3600)))
+                .expirationTime(Date.from(expiresAt))
+                .notBeforeTime(notBefore == null ? null : Date.from(notBefore))
+                .build();
+    }
+
+    private static String sign(JWSSigner signer, JWSAlgorithm algorithm, String keyId, JWTClaimsSet claims)
+            throws JOSEException {
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(algorithm).keyID(keyId).build(), claims);
+        jwt.sign(signer);
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,60 @@
+package com.java.chatting.configurations.security;
+
+import com.java.chatting.configurations.socket.SocketProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class StompAuthChannelInterceptorTest {
+
+    private final StompAuthChannelInterceptor interceptor = new StompAuthChannelInterceptor(
+            mock(JwtDecoder.class), new SocketProperties(), mock(UserPrincipalResolver.class));
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void ownPerUserTopicsOnly() {
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(7, "/topic/presence-7"), channel));
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(7, "/topic/message-status-7"), channel));
+
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(subscribe(7, "/topic/presence-42"), channel));
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(subscribe(7, "/topic/message-status-42"), channel));
+    }
+
+    @Test
+    void pairTopicsOnlyForParticipants() {
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(7, "/topic/private-chat-7-42"), channel));
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(42, "/topic/typing-7-42"), channel));
+
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(subscribe(9, "/topic/private-chat-7-42"), channel));
+    }
+
+    @Test
+    void refusesUnknownTopicsAndOtherSessionsQueues() {
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(subscribe(7, "/topic/presence-7-extra"), channel));
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(subscribe(7, "/topic/anything"), channel));
+        assertThrows(AccessDeniedException.class, () -> interceptor.preSend(subscribe(7, "/queue/chat-userother"), channel));
+
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(7, "/queue/chat-usersession-1"), channel));
+        assertDoesNotThrow(() -> interceptor.preSend(subscribe(7, "/user/queue/chat"), channel));
+    }
+
+    private static Message<byte[]> subscribe(int userId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("session-1");
+        accessor.setDestination(destination);
+        accessor.setUser(new StompPrincipal(userId, Set.of()));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
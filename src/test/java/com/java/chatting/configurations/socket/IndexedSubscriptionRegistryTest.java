@@ -0,0 +1,122 @@
+package com.java.chatting.configurations.socket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedSubscriptionRegistryTest {
+
+    private static final List<String> SUBSCRIBED = List.of("/topic/presence-7", "/topic/presence-8",
+            "/queue/chat-usersession-1", "/topic/*", "/topic/private-chat-**");
+    private static final List<String> PUBLISHED = List.of("/topic/presence-7", "/topic/presence-8",
+            "/queue/chat-usersession-1", "/topic/private-chat-7-42", "/topic/other", "/queue/other");
+
+    private final IndexedSubscriptionRegistry registry = new IndexedSubscriptionRegistry();
+
+    @Test
+    void findsLiteralSubscriptions() {
+        registry.registerSubscription(subscribe("s1", "0", "/topic/presence-7"));
+        registry.registerSubscription(subscribe("s1", "1", "/topic/presence-7"));
+        registry.registerSubscription(subscribe("s2", "0", "/topic/presence-7"));
+        registry.registerSubscription(subscribe("s2", "1", "/topic/presence-8"));
+
+        assertEquals(Map.of("s1", Set.of("0", "1"), "s2", Set.of("0")), find(registry, "/topic/presence-7"));
+        assertEquals(Map.of("s2", Set.of("1")), find(registry, "/topic/presence-8"));
+        assertEquals(Map.of(), find(registry, "/topic/presence-9"));
+    }
+
+    @Test
+    void unsubscribeAndDisconnectRemoveTheSessionsSubscriptions() {
+        registry.registerSubscription(subscribe("s1", "0", "/topic/presence-7"));
+        registry.registerSubscription(subscribe("s1", "1", "/topic/*"));
+        registry.registerSubscription(subscribe("s2", "0", "/topic/presence-7"));
+
+        registry.unregisterSubscription(unsubscribe("s2", "0"));
+        assertEquals(Map.of("s1", Set.of("0", "1")), find(registry, "/topic/presence-7"));
+
+        registry.unregisterAllSubscriptions("s1");
+        assertEquals(Map.of(), find(registry, "/topic/presence-7"));
+        assertEquals(Map.of(), find(registry, "/topic/other"));
+    }
+
+    @Test
+    void resubscribingAnIdMovesIt() {
+        registry.registerSubscription(subscribe("s1", "0", "/topic/presence-7"));
+        registry.registerSubscription(subscribe("s1", "0", "/topic/presence-8"));
+
+        assertEquals(Map.of(), find(registry, "/topic/presence-7"));
+        assertEquals(Map.of("s1", Set.of("0")), find(registry, "/topic/presence-8"));
+    }
+
+    @Test
+    void matchesTheDefaultRegistry() {
+        SubscriptionRegistry reference = new DefaultSubscriptionRegistry();
+        Random random = new Random(7);
+        Map<String, List<String>> live = new HashMap<>();
+        int nextId = 0;
+        for (int step = 0; step < 2000; step++) {
+            String sessionId = "s" + random.nextInt(5);
+            List<String> ids = live.computeIfAbsent(sessionId, id -> new ArrayList<>());
+            int operation = random.nextInt(20);
+            if (operation < 12 || ids.isEmpty()) {
+                Message<byte[]> subscribe = subscribe(sessionId, String.valueOf(nextId),
+                        SUBSCRIBED.get(random.nextInt(SUBSCRIBED.size())));
+                registry.registerSubscription(subscribe);
+                reference.registerSubscription(subscribe);
+                ids.add(String.valueOf(nextId++));
+            } else if (operation < 18) {
+                Message<byte[]> unsubscribe = unsubscribe(sessionId, ids.remove(random.nextInt(ids.size())));
+                registry.unregisterSubscription(unsubscribe);
+                reference.unregisterSubscription(unsubscribe);
+            } else {
+                registry.unregisterAllSubscriptions(sessionId);
+                reference.unregisterAllSubscriptions(sessionId);
+                ids.clear();
+            }
+            for (String destination : PUBLISHED) {
+                assertEquals(find(reference, destination), find(registry, destination),
+                        destination + " at step " + step);
+            }
+        }
+    }
+
+    private static Map<String, Set<String>> find(SubscriptionRegistry registry, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        MultiValueMap<String, String> found = registry.findSubscriptions(
+                MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+        Map<String, Set<String>> result = new HashMap<>();
+        found.forEach((sessionId, ids) -> result.put(sessionId, new HashSet<>(ids)));
+        return result;
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
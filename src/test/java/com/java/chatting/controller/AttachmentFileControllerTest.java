@@ -0,0 +1,133 @@
+package com.java.chatting.controller;
+
+import com.java.chatting.configurations.firebase.UploadProperties;
+import com.java.chatting.services.serviceIpml.LocalAttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttachmentFileControllerTest {
+
+    private static final String NAME = "chat/uuid_lease.pdf";
+
+    @TempDir
+    Path root;
+    private byte[] content;
+    private AttachmentFileController controller;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        UploadProperties properties = new UploadProperties();
+        properties.getLocal().setRoot(root.toString());
+        LocalAttachmentStore store = new LocalAttachmentStore(properties, Runnable::run);
+        content = new byte[100_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        store.storeBytes(NAME, "application/pdf", content);
+        controller = new AttachmentFileController(store, properties);
+    }
+
+    @Test
+    void servesTheWholeFileWithCachingHeaders() throws IOException {
+        MockHttpServletResponse response = download(new MockHttpServletRequest("GET", "/"));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+        assertEquals(content.length, response.getContentLengthLong());
+        assertEquals("application/pdf", response.getContentType());
+        assertEquals("max-age=31536000, public, immutable", response.getHeader("Cache-Control"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertNotNull(response.getHeader("ETag"));
+    }
+
+    @Test
+    void servesASingleRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=1000-1999");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 1000-1999/100000", response.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), response.getContentAsByteArray());
+
+        request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=-10");
+        response = download(request);
+        assertArrayEquals(Arrays.copyOfRange(content, content.length - 10, content.length), response.getContentAsByteArray());
+    }
+
+    @Test
+    void unsatisfiableRangeAndStaleIfRange() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=200000-");
+        MockHttpServletResponse response = download(request);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100000", response.getHeader("Content-Range"));
+
+        request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("Range", "bytes=0-9");
+        request.addHeader("If-Range", "\"stale\"");
+        response = download(request);
+        assertEquals(200, response.getStatus());
+        assertEquals(content.length, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void answersNotModifiedForAMatchingETag() throws IOException {
+        String etag = download(new MockHttpServletRequest("GET", "/")).getHeader("ETag");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader("If-None-Match", etag);
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void handsLargeFilesToTomcatSendfile() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader("Range", "bytes=0-65535");
+
+        MockHttpServletResponse response = download(request);
+
+        assertEquals(0, response.getContentAsByteArray().length, "the connector writes the body");
+        assertEquals(root.resolve(NAME).toAbsolutePath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(0L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(65536L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(65536, response.getContentLengthLong());
+    }
+
+    @Test
+    void hiddenAndMissingFilesAreNotFound() throws IOException {
+        Files.writeString(root.resolve(".tmp/upload-1"), "partial");
+
+        assertEquals(404, controller404("/.tmp/upload-1"));
+        assertEquals(404, controller404("/chat/missing.pdf"));
+        assertEquals(404, controller404("/../" + root.getFileName() + "/" + NAME));
+    }
+
+    private int controller404(String name) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.download(name, new MockHttpServletRequest("GET", "/"), response);
+        return response.getStatus();
+    }
+
+    private MockHttpServletResponse download(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.download("/" + NAME, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,73 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.entities.AttachmentBlob;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.repositories.AttachmentBlobRepository;
+import com.java.chatting.services.AttachmentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AttachmentIndexTest {
+
+    private static final String URL = "https://files.example/chat/uuid_photo.jpg";
+
+    private final AttachmentBlobRepository repository = mock(AttachmentBlobRepository.class);
+    private final AttachmentStore store = mock(AttachmentStore.class);
+    private final AttachmentIndex index = new AttachmentIndex(repository, store, new SimpleMeterRegistry());
+
+    @Test
+    void newContentIsStoredWithItsUploader() {
+        when(repository.findBySha256("abc")).thenReturn(Optional.empty());
+        when(store.publicUrl("chat/new")).thenReturn(URL);
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        AttachmentBlob blob = index.claim(new AttachmentStore.StoredFile("chat/new", "abc", 10), "image/jpeg", 7);
+
+        assertEquals(URL, blob.getFileUrl());
+        assertEquals(Set.of(7), blob.getUploaderIds());
+        verify(store, never()).deleteQuietly(any());
+    }
+
+    @Test
+    void duplicateContentAddsTheUploaderToTheStoredCopy() {
+        AttachmentBlob existing = AttachmentBlob.builder().id(3).sha256("abc").fileUrl(URL).size(10).build();
+        when(repository.findBySha256("abc")).thenReturn(Optional.of(existing));
+
+        assertSame(existing, index.claim(new AttachmentStore.StoredFile("chat/copy", "abc", 10), "image/jpeg", 9));
+
+        verify(store).deleteQuietly(List.of("chat/copy"));
+        verify(repository).addUploader(3, 9);
+    }
+
+    @Test
+    void lookupOnlyAsksForFilesOfTheUser() {
+        index.lookup(List.of("abc"), 7);
+
+        verify(repository).findVisibleTo(List.of("abc"), 7);
+    }
+
+    @Test
+    void referenceFailsOnlyForSweptFiles() {
+        when(repository.addReference(URL)).thenReturn(1);
+        assertDoesNotThrow(() -> index.reference(URL));
+
+        // Stored before deduplication: no entry at all
+        when(repository.addReference(URL)).thenReturn(0);
+        when(repository.existsByFileUrl(URL)).thenReturn(false);
+        assertDoesNotThrow(() -> index.reference(URL));
+
+        // Entry left behind by the sweeper
+        when(repository.existsByFileUrl(URL)).thenReturn(true);
+        AppException e = assertThrows(AppException.class, () -> index.reference(URL));
+        assertEquals(ErrorCode.ATTACHMENT_NOT_FOUND, e.getErrorCode());
+    }
+}
@@ -0,0 +1,82 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.java.chatting.configurations.cluster.ClusterProperties;
+import com.java.chatting.configurations.socket.StompSessionRegistry;
+import com.java.chatting.events.UserConnectionEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Runs several {@link TcpClusterBus} nodes on localhost, each with its own session registry and a mocked broker.
+ */
+class ClusterHarness implements AutoCloseable {
+
+    final List<Node> nodes = new ArrayList<>();
+
+    ClusterHarness(int size) throws IOException {
+        List<String> peers = new ArrayList<>();
+        int[] ports = new int[size];
+        for (int i = 0; i < size; i++) {
+            try (ServerSocket probe = new ServerSocket(0)) {
+                ports[i] = probe.getLocalPort();
+            }
+            peers.add("node-" + i + "@127.0.0.1:" + ports[i]);
+        }
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        for (int i = 0; i < size; i++) {
+            ClusterProperties properties = new ClusterProperties();
+            properties.setMode("tcp");
+            properties.setNodeId("node-" + i);
+            properties.setBindHost("127.0.0.1");
+            properties.setPort(ports[i]);
+            properties.setPeers(peers);
+            properties.setSecret("cluster-secret");
+            properties.setReconnectDelayMillis(50);
+            nodes.add(new Node(properties, objectMapper));
+        }
+        for (Node node : nodes) {
+            node.bus.start();
+        }
+    }
+
+    Node node(int index) {
+        return nodes.get(index);
+    }
+
+    @Override
+    public void close() {
+        nodes.forEach(node -> node.bus.close());
+    }
+
+    static final class Node {
+        final SimpMessageSendingOperations broker = mock(SimpMessageSendingOperations.class);
+        final ClusterProperties properties;
+        final StompSessionRegistry sessionRegistry;
+        final TcpClusterBus bus;
+
+        Node(ClusterProperties properties, ObjectMapper objectMapper) {
+            // The registry publishes connection events straight to this node's bus, like the application context does
+            this.properties = properties;
+            TcpClusterBus[] self = new TcpClusterBus[1];
+            this.sessionRegistry = new StompSessionRegistry(event -> self[0].onUserConnection((UserConnectionEvent) event));
+            this.bus = new TcpClusterBus(properties, broker, objectMapper, sessionRegistry, new SimpleMeterRegistry());
+            self[0] = bus;
+        }
+
+        void connect(String sessionId, int userId) {
+            sessionRegistry.bind(sessionId, userId);
+        }
+
+        void disconnect(String sessionId) {
+            sessionRegistry.unbind(sessionId);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.crypto.CipherSuites;
+import com.java.chatting.configurations.crypto.CryptoProperties;
+import com.java.chatting.entities.EncryptionKey;
+import com.java.chatting.repositories.ChatRepository;
+import com.java.chatting.repositories.EncryptionKeyRepository;
+import com.java.chatting.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EncryptionServiceImplTest {
+
+    private final EncryptionKeyRepository encryptionKeyRepository = mock(EncryptionKeyRepository.class);
+    private final ChatRepository chatRepository = mock(ChatRepository.class);
+    private final EncryptionServiceImpl service = new EncryptionServiceImpl(encryptionKeyRepository, chatRepository,
+            mock(UserRepository.class), mock(KeyPairPool.class), mock(EncryptionKeyAssigner.class),
+            mock(CipherSuites.class), new CryptoProperties(), mock(ThreadPoolTaskExecutor.class));
+
+    @Test
+    void tagsEachCopyWithTheKeyOfItsOwner() {
+        when(encryptionKeyRepository.findAllByUserIdIn(any())).thenReturn(List.of(key(100, 7), key(200, 42)));
+        when(chatRepository.findUntaggedCiphertexts(eq(0), any())).thenReturn(rows(
+                new Object[]{1, 7, 42, "AAA", "BBB"},
+                new Object[]{2, 42, 7, "v1.200.CCC", "DDD"}));
+
+        assertEquals(2, service.tagLegacyCiphertexts(0, 10));
+
+        verify(chatRepository).updateCiphertexts(1, "v1.100.AAA", "v1.200.BBB");
+        verify(chatRepository).updateCiphertexts(2, "v1.200.CCC", "v1.100.DDD");
+    }
+
+    @Test
+    void taggingTwiceChangesNothing() {
+        when(encryptionKeyRepository.findAllByUserIdIn(any())).thenReturn(List.of(key(100, 7), key(200, 42)));
+        when(chatRepository.findUntaggedCiphertexts(eq(0), any())).thenReturn(rows(
+                new Object[]{1, 7, 42, "AAA", "BBB"}));
+        service.tagLegacyCiphertexts(0, 10);
+
+        // Another node, or a restart, reads the row again after the first pass
+        when(chatRepository.findUntaggedCiphertexts(eq(0), any())).thenReturn(rows(
+                new Object[]{1, 7, 42, "v1.100.AAA", "v1.200.BBB"}));
+        service.tagLegacyCiphertexts(0, 10);
+
+        verify(chatRepository, times(1)).updateCiphertexts(anyInt(), anyString(), anyString());
+    }
+
+    @Test
+    void leavesCopiesWithoutKeyOrContentAlone() {
+        when(encryptionKeyRepository.findAllByUserIdIn(any())).thenReturn(List.of(key(100, 7)));
+        when(chatRepository.findUntaggedCiphertexts(eq(0), any())).thenReturn(rows(
+                new Object[]{1, 7, 42, null, "BBB"},
+                new Object[]{2, 42, 9, "CCC", "DDD"}));
+
+        assertEquals(2, service.tagLegacyCiphertexts(0, 10));
+
+        verify(chatRepository, never()).updateCiphertexts(anyInt(), any(), any());
+    }
+
+    @Test
+    void reportsTheEndOfTheBackfill() {
+        when(chatRepository.findUntaggedCiphertexts(eq(5), any())).thenReturn(List.of());
+
+        assertEquals(-1, service.tagLegacyCiphertexts(5, 10));
+    }
+
+    private static EncryptionKey key(int id, int userId) {
+        EncryptionKey key = new EncryptionKey();
+        key.setId(id);
+        key.setUserId(userId);
+        return key;
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,139 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.google.cloud.RestorableState;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import org.mockito.ArgumentMatchers;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * In-memory Cloud Storage for tests, behind a Mockito mock of the calls the storage client makes. Each writer
+ * buffers up to its chunk size and "sends" a chunk when the buffer is full, as the resumable upload channel does,
+ * and records the size of every chunk it sent.
+ */
+class FakeStorage {
+
+    final Map<BlobId, byte[]> objects = new ConcurrentHashMap<>();
+    final Map<BlobId, BlobInfo> infos = new ConcurrentHashMap<>();
+    final Map<BlobId, List<Storage.BlobWriteOption>> writeOptions = new ConcurrentHashMap<>();
+    final List<BlobId> deleted = new CopyOnWriteArrayList<>();
+    final List<Integer> chunks = new CopyOnWriteArrayList<>();
+    // Writes fail after this many bytes, to simulate a broken upload; -1 never
+    volatile long failAfterBytes = -1;
+    // Only uploads of objects whose name ends with this fail, when set
+    volatile String failingSuffix;
+
+    /**
+     * @return a Mockito mock of {@link Storage} whose writes, creates and deletes go to this fake
+     */
+    Storage storage() {
+        Storage storage = mock(Storage.class);
+        when(storage.writer(any(BlobInfo.class), any(Storage.BlobWriteOption[].class))).thenAnswer(invocation -> {
+            BlobInfo info = invocation.getArgument(0);
+            writeOptions.put(info.getBlobId(), List.of((Storage.BlobWriteOption[]) invocation.getRawArguments()[1]));
+            return new Writer(info);
+        });
+        when(storage.create(any(BlobInfo.class), any(byte[].class), any(Storage.BlobTargetOption[].class)))
+                .thenAnswer(invocation -> {
+                    create(invocation.getArgument(0), invocation.getArgument(1));
+                    return null;
+                });
+        when(storage.delete(ArgumentMatchers.<Iterable<BlobId>>any()))
+                .thenAnswer(invocation -> delete(invocation.getArgument(0)));
+        return storage;
+    }
+
+    private void create(BlobInfo info, byte[] content) {
+        if (failingSuffix != null && info.getName().endsWith(failingSuffix)) {
+            throw new StorageException(503, "Upload failed");
+        }
+        objects.put(info.getBlobId(), content);
+        infos.put(info.getBlobId(), info);
+    }
+
+    private List<Boolean> delete(Iterable<BlobId> blobIds) {
+        List<Boolean> results = new ArrayList<>();
+        for (BlobId blobId : blobIds) {
+            deleted.add(blobId);
+            results.add(objects.remove(blobId) != null);
+        }
+        return results;
+    }
+
+    private class Writer implements WriteChannel {
+
+        private final BlobInfo info;
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+        private long total;
+        private boolean open = true;
+
+        Writer(BlobInfo info) {
+            this.info = info;
+        }
+
+        @Override
+        public void setChunkSize(int chunkSize) {
+            buffer = ByteBuffer.allocate(chunkSize);
+        }
+
+        @Override
+        public int write(ByteBuffer source) {
+            int count = 0;
+            while (source.hasRemaining()) {
+                boolean failing = failingSuffix == null || info.getName().endsWith(failingSuffix);
+                if (failing && failAfterBytes >= 0 && total >= failAfterBytes) {
+                    throw new StorageException(503, "Upload interrupted");
+                }
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put(source.get());
+                total++;
+                count++;
+            }
+            return count;
+        }
+
+        private void flush() {
+            buffer.flip();
+            chunks.add(buffer.remaining());
+            written.write(buffer.array(), 0, buffer.remaining());
+            buffer.clear();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            if (open) {
+                open = false;
+                flush();
+                objects.put(info.getBlobId(), written.toByteArray());
+                infos.put(info.getBlobId(), info);
+            }
+        }
+
+        @Override
+        public RestorableState<WriteChannel> capture() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.BlobId;
+import com.java.chatting.configurations.firebase.UploadProperties;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.services.AttachmentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FirebaseStorageClientTest {
+
+    private static final String BUCKET = "test-bucket";
+    private static final int CHUNK = 256 * 1024;
+
+    private final FakeStorage fake = new FakeStorage();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService uploadExecutor = Executors.newFixedThreadPool(4);
+    private FirebaseStorageClient client;
+
+    @BeforeEach
+    void setUp() {
+        UploadProperties properties = new UploadProperties();
+        properties.setChunkSize(DataSize.ofBytes(CHUNK));
+        properties.setBufferSize(DataSize.ofKilobytes(16));
+        client = new FirebaseStorageClient(fake::storage, properties, uploadExecutor, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadExecutor.shutdownNow();
+    }
+
+    @Test
+    void streamsTheFileInChunksWithoutReadingItWhole() {
+        byte[] content = new byte[5 * CHUNK + 1234];
+        new Random(7).nextBytes(content);
+
+        String url = client.uploadFileToBucket(BUCKET, "chat/", new StreamOnlyFile("photo one.jpg", "image/jpeg", content));
+
+        assertEquals(1, fake.objects.size());
+        BlobId blobId = fake.objects.keySet().iterator().next();
+        assertTrue(blobId.getName().startsWith("chat/") && blobId.getName().endsWith("_photo one.jpg"));
+        assertArrayEquals(content, fake.objects.get(blobId));
+        assertEquals("image/jpeg", fake.infos.get(blobId).getContentType());
+        assertEquals(List.of(CHUNK, CHUNK, CHUNK, CHUNK, CHUNK, 1234), fake.chunks);
+        // Public at creation, no ACL call afterwards
+        assertEquals(List.of(Storage.BlobWriteOption.predefinedAcl(Storage.PredefinedAcl.PUBLIC_READ)),
+                fake.writeOptions.get(blobId));
+        assertTrue(url.startsWith("https://firebasestorage.googleapis.com/v0/b/test-bucket/o/chat%2F"));
+        assertTrue(url.endsWith("_photo%20one.jpg?alt=media"));
+    }
+
+    @Test
+    void recordsProgressAndOutcome() {
+        byte[] content = new byte[3 * CHUNK];
+        client.uploadFileToBucket(BUCKET, "chat", new StreamOnlyFile("a.pdf", "application/pdf", content));
+
+        assertEquals(content.length, meterRegistry.get("chatting.upload.bytes").counter().count());
+        assertEquals(content.length, meterRegistry.get("chatting.upload.size").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("chatting.upload").tag("outcome", "success").timer().count());
+        assertEquals(0, meterRegistry.get("chatting.upload.in_flight").gauge().value());
+    }
+
+    @Test
+    void failedUploadIsReportedAndNotPublished() {
+        fake.failAfterBytes = CHUNK + 10;
+        byte[] content = new byte[3 * CHUNK];
+
+        AppException e = assertThrows(AppException.class,
+                () -> client.uploadFileToBucket(BUCKET, "chat", new StreamOnlyFile("a.pdf", "application/pdf", content)));
+
+        assertEquals(ErrorCode.FILE_UPLOAD_FAILED, e.getErrorCode());
+        assertTrue(fake.objects.isEmpty(), "a broken upload must not be completed");
+        assertEquals(1, meterRegistry.get("chatting.upload").tag("outcome", "failure").timer().count());
+        assertEquals(0, meterRegistry.get("chatting.upload.in_flight").gauge().value());
+    }
+
+    @Test
+    void uploadsSeveralFilesConcurrentlyInOrder() {
+        List<MultipartFile> files = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            files.add(new StreamOnlyFile("photo-" + i + ".jpg", "image/jpeg", new byte[CHUNK + i]));
+        }
+
+        List<String> urls = client.uploadFilesToBucket(BUCKET, "chat", files);
+
+        assertEquals(6, urls.size());
+        for (int i = 0; i < 6; i++) {
+            assertTrue(urls.get(i).endsWith("_photo-" + i + ".jpg?alt=media"), urls.get(i));
+        }
+        assertEquals(6, fake.objects.size());
+        assertEquals(6, meterRegistry.get("chatting.upload").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void oneFailedFileFailsTheUploadAndRemovesTheOthers() {
+        fake.failingSuffix = "_broken.jpg";
+        fake.failAfterBytes = 10;
+        List<MultipartFile> files = List.of(
+                new StreamOnlyFile("a.jpg", "image/jpeg", new byte[1000]),
+                new StreamOnlyFile("broken.jpg", "image/jpeg", new byte[1000]),
+                new StreamOnlyFile("c.jpg", "image/jpeg", new byte[1000]));
+
+        AppException e = assertThrows(AppException.class, () -> client.uploadFilesToBucket(BUCKET, "chat", files));
+
+        assertEquals(ErrorCode.FILE_UPLOAD_FAILED, e.getErrorCode());
+        assertTrue(fake.objects.isEmpty());
+        assertEquals(2, fake.deleted.size());
+    }
+
+    @Test
+    void hashesTheContentWhileStreaming() throws NoSuchAlgorithmException {
+        byte[] content = new byte[3 * CHUNK + 17];
+        new Random(11).nextBytes(content);
+
+        List<AttachmentStore.StoredFile> stored = client.uploadFiles(BUCKET, "chat",
+                List.of(new StreamOnlyFile("lease.pdf", "application/pdf", content)));
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), stored.get(0).sha256());
+        assertEquals(content.length, stored.get(0).size());
+        assertArrayEquals(content, fake.objects.get(BlobId.of(BUCKET, stored.get(0).name())));
+    }
+
+    @Test
+    void resolvesItsOwnUrlsBackToObjects() {
+        BlobId blobId = BlobId.of(BUCKET, "chat/uuid_hợp đồng+1.pdf");
+
+        assertEquals(blobId, client.blobIdOf(client.publicUrl(blobId)));
+        assertNull(client.blobIdOf("https://example.com/chat/a.pdf"));
+        assertNull(client.blobIdOf(null));
+    }
+
+    // Fails the test if the upload loads the whole file instead of streaming it
+    private static class StreamOnlyFile extends MockMultipartFile {
+
+        StreamOnlyFile(String name, String contentType, byte[] content) {
+            super("file", name, contentType, content);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            throw new AssertionError("upload must stream the file");
+        }
+    }
+}
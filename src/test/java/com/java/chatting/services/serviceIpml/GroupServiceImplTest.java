@@ -0,0 +1,90 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.group.GroupProperties;
+import com.java.chatting.dto.request.GroupCreateRequest;
+import com.java.chatting.entities.GroupConversation;
+import com.java.chatting.entities.GroupMessage;
+import com.java.chatting.entities.GroupMessageKey;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.exception.ErrorCode;
+import com.java.chatting.repositories.*;
+import com.java.chatting.services.EncryptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GroupServiceImplTest {
+
+    private static final int GROUP = 5;
+    private static final int CREATOR = 1;
+    private static final int MEMBER = 2;
+    private static final int OUTSIDER = 3;
+
+    private final GroupConversationRepository groupConversationRepository = mock(GroupConversationRepository.class);
+    private final GroupMemberRepository groupMemberRepository = mock(GroupMemberRepository.class);
+    private final GroupMessageRepository groupMessageRepository = mock(GroupMessageRepository.class);
+    private final GroupMessageKeyRepository groupMessageKeyRepository = mock(GroupMessageKeyRepository.class);
+    private final GroupMemberIndex groupMemberIndex = mock(GroupMemberIndex.class);
+    private final EncryptionService encryptionService = mock(EncryptionService.class);
+    private final GroupServiceImpl service = new GroupServiceImpl(groupConversationRepository, groupMemberRepository,
+            groupMessageRepository, groupMessageKeyRepository, groupMemberIndex, encryptionService, new GroupProperties());
+
+    @BeforeEach
+    void setUp() {
+        when(groupConversationRepository.findById(GROUP))
+                .thenReturn(Optional.of(GroupConversation.builder().id(GROUP).createdBy(CREATOR).build()));
+        when(groupMemberIndex.isMember(GROUP, MEMBER)).thenReturn(true);
+        when(groupMemberRepository.deleteMember(anyInt(), anyInt())).thenReturn(1);
+    }
+
+    @Test
+    void creatorComesFromTheCaller() {
+        when(groupConversationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        var group = service.createGroup(GroupCreateRequest.builder().name("g").memberIds(List.of(MEMBER)).build(), CREATOR);
+
+        assertEquals(CREATOR, group.getCreatedBy());
+        assertEquals(List.of(CREATOR, MEMBER), group.getMemberIds());
+    }
+
+    @Test
+    void onlyCreatorAndMembersAddMembers() {
+        assertDoesNotThrow(() -> service.addMember(GROUP, OUTSIDER, CREATOR));
+        assertDoesNotThrow(() -> service.addMember(GROUP, OUTSIDER, MEMBER));
+
+        assertNotGroupMember(() -> service.addMember(GROUP, OUTSIDER, OUTSIDER));
+    }
+
+    @Test
+    void anybodyLeavesButOnlyCreatorAndMembersRemoveOthers() {
+        assertDoesNotThrow(() -> service.removeMember(GROUP, MEMBER, MEMBER));
+        assertDoesNotThrow(() -> service.removeMember(GROUP, MEMBER, CREATOR));
+
+        assertNotGroupMember(() -> service.removeMember(GROUP, MEMBER, OUTSIDER));
+        verify(groupMemberRepository, times(2)).deleteMember(GROUP, MEMBER);
+    }
+
+    @Test
+    void onlyMembersReadMessages() {
+        assertNotGroupMember(() -> service.getMessages(GROUP, OUTSIDER, 1, 20));
+
+        when(groupMessageRepository.findById(9)).thenReturn(Optional.of(GroupMessage.builder().id(9).groupId(GROUP).build()));
+        when(groupMessageKeyRepository.findByMessageIdAndUserId(9, OUTSIDER))
+                .thenReturn(Optional.of(GroupMessageKey.builder().messageId(9).userId(OUTSIDER).build()));
+        // A former member still has a key for the message
+        assertNotGroupMember(() -> service.decryptMessage(9, OUTSIDER));
+        verifyNoInteractions(encryptionService);
+    }
+
+    private static void assertNotGroupMember(Executable executable) {
+        AppException e = assertThrows(AppException.class, executable);
+        assertEquals(ErrorCode.NOT_GROUP_MEMBER, e.getErrorCode());
+    }
+}
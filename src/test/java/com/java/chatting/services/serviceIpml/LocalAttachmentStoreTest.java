@@ -0,0 +1,99 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.java.chatting.configurations.firebase.UploadProperties;
+import com.java.chatting.exception.AppException;
+import com.java.chatting.services.AttachmentStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalAttachmentStoreTest {
+
+    @TempDir
+    Path root;
+    private LocalAttachmentStore store;
+
+    @BeforeEach
+    void setUp() {
+        UploadProperties properties = new UploadProperties();
+        properties.getLocal().setRoot(root.toString());
+        properties.getLocal().setPublicUrl("https://chat.example.com/files/");
+        store = new LocalAttachmentStore(properties, Runnable::run);
+    }
+
+    @Test
+    void storesFilesWithTheirHash() throws IOException, NoSuchAlgorithmException {
+        byte[] content = new byte[200_000];
+        new Random(3).nextBytes(content);
+
+        List<AttachmentStore.StoredFile> stored = store.store("chat/",
+                List.of(new MockMultipartFile("files", "hợp đồng.pdf", "application/pdf", content)));
+
+        AttachmentStore.StoredFile file = stored.get(0);
+        assertTrue(file.name().startsWith("chat/") && file.name().endsWith("_hợp đồng.pdf"), file.name());
+        assertArrayEquals(content, Files.readAllBytes(store.resolve(file.name())));
+        // ASCII on disk, whatever the locale of the JVM
+        assertTrue(store.resolve(file.name()).getFileName().toString().endsWith("_h%E1%BB%A3p%20%C4%91%E1%BB%93ng.pdf"));
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)), file.sha256());
+        assertEquals(content.length, file.size());
+        String url = store.publicUrl(file.name());
+        assertTrue(url.startsWith("https://chat.example.com/files/chat/") && url.contains("h%E1%BB%A3p%20%C4%91%E1%BB%93ng.pdf"), url);
+        assertEquals(file.name(), store.nameOf(url));
+        assertNull(store.nameOf("https://firebasestorage.googleapis.com/v0/b/x/o/chat%2Fa.pdf?alt=media"));
+    }
+
+    @Test
+    void neverWritesOrServesOutsideTheRoot() {
+        List<AttachmentStore.StoredFile> stored = store.store("chat",
+                List.of(new MockMultipartFile("files", "../../etc/passwd", "text/plain", new byte[10])));
+
+        assertTrue(stored.get(0).name().matches("chat/[0-9a-f-]{36}_passwd"), stored.get(0).name());
+        assertNull(store.resolve("../secret"));
+        assertNull(store.resolve("chat/../../secret"));
+        assertNull(store.resolve(".tmp/upload-1"));
+        assertNull(store.resolve("chat/.hidden"));
+        assertNotNull(store.resolve("chat/a.pdf"));
+    }
+
+    @Test
+    void oneFailedFileFailsTheCallAndRemovesTheOthers() throws IOException {
+        MultipartFile broken = new MockMultipartFile("files", "broken.pdf", "application/pdf", new byte[10]) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("client went away");
+            }
+        };
+
+        assertThrows(AppException.class, () -> store.store("chat", List.of(
+                new MockMultipartFile("files", "a.pdf", "application/pdf", new byte[10]), broken)));
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(List.of(), files.filter(Files::isRegularFile).toList());
+        }
+    }
+
+    @Test
+    void storesAndDeletesGeneratedFiles() {
+        store.storeBytes("chat/uuid_photo_160.jpg", "image/jpeg", new byte[]{1, 2, 3});
+        assertTrue(Files.exists(store.resolve("chat/uuid_photo_160.jpg")));
+
+        store.deleteQuietly(List.of("chat/uuid_photo_160.jpg", "chat/missing.jpg", "../outside"));
+
+        assertFalse(Files.exists(store.resolve("chat/uuid_photo_160.jpg")));
+    }
+}
@@ -0,0 +1,215 @@
+package com.java.chatting.services.serviceIpml;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TcpClusterBusTest {
+
+    private ClusterHarness cluster;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cluster = new ClusterHarness(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cluster.close();
+    }
+
+    @Test
+    void forwardsOnlyToNodesHoldingRecipients() throws Exception {
+        cluster.node(1).connect("s-1", 42);
+        awaitInterest(0, "node-1", 42);
+
+        cluster.node(0).bus.publish("/topic/private-chat-7-42", Map.of("text", "hi"), 7, 42);
+
+        verify(cluster.node(1).broker, timeout(2000)).send(eq("/topic/private-chat-7-42"), any(Message.class));
+        verify(cluster.node(0).broker, after(200).never()).send(any(String.class), any(Message.class));
+        verify(cluster.node(2).broker, never()).send(any(String.class), any(Message.class));
+    }
+
+    @Test
+    void deliversLocallyWhenRecipientIsOnThisNode() {
+        cluster.node(0).connect("s-1", 7);
+
+        cluster.node(0).bus.publish("/topic/typing-7-9", Map.of("typing", true), 7);
+
+        verify(cluster.node(0).broker, timeout(2000)).send(eq("/topic/typing-7-9"), any(Message.class));
+        verify(cluster.node(1).broker, after(200).never()).send(any(String.class), any(Message.class));
+    }
+
+    @Test
+    void sendsUserMessagesToEverySessionOfTheUser() throws Exception {
+        cluster.node(0).connect("s-1", 42);
+        cluster.node(1).connect("s-2", 42);
+        awaitInterest(2, "node-0", 42);
+        awaitInterest(2, "node-1", 42);
+
+        cluster.node(2).bus.sendToUser(42, "/queue/chat", Map.of("text", "hi"));
+
+        verify(cluster.node(0).broker, timeout(2000)).send(eq("/queue/chat-users-1"), any(Message.class));
+        verify(cluster.node(1).broker, timeout(2000)).send(eq("/queue/chat-users-2"), any(Message.class));
+        verify(cluster.node(2).broker, after(200).never()).send(any(String.class), any(Message.class));
+    }
+
+    @Test
+    void serializesOncePerEvent() {
+        cluster.node(0).connect("s-1", 42);
+        cluster.node(0).connect("s-2", 42);
+
+        cluster.node(0).bus.sendToUser(42, "/queue/chat", Map.of("text", "hi"));
+
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(cluster.node(0).broker, timeout(2000).times(2)).send(any(String.class), messages.capture());
+        assertNotSame(messages.getAllValues().get(0), messages.getAllValues().get(1));
+        assertSame(messages.getAllValues().get(0).getPayload(), messages.getAllValues().get(1).getPayload());
+    }
+
+    @Test
+    void publishWithoutRecipientsReachesEveryNode() throws Exception {
+        awaitInterest(2, "node-0", -1);
+
+        cluster.node(2).bus.publish("/topic/announcements", Map.of("text", "maintenance"));
+
+        for (ClusterHarness.Node node : cluster.nodes) {
+            verify(node.broker, timeout(2000)).send(eq("/topic/announcements"), any(Message.class));
+        }
+    }
+
+    @Test
+    void stopsForwardingAfterLastSessionCloses() throws Exception {
+        cluster.node(1).connect("s-1", 42);
+        awaitInterest(0, "node-1", 42);
+        cluster.node(1).disconnect("s-1");
+        awaitNoInterest(0, "node-1", 42);
+
+        cluster.node(0).bus.publish("/topic/presence-42", Map.of(), 42);
+
+        verify(cluster.node(1).broker, after(300).never()).send(any(String.class), any(Message.class));
+    }
+
+    @Test
+    void broadcastsEventsToSubscribersOnOtherNodes() throws Exception {
+        BlockingQueue<String> received = new ArrayBlockingQueue<>(4);
+        cluster.node(1).bus.subscribe("presence", String.class, received::add);
+        cluster.node(2).bus.subscribe("presence", String.class, received::add);
+        awaitInterest(0, "node-1", -1);
+
+        cluster.node(0).bus.broadcast("presence", "user-1-online");
+
+        assertEquals("user-1-online", received.poll(2, TimeUnit.SECONDS));
+        assertEquals("user-1-online", received.poll(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void dropsInterestWhenPeerGoesAway() throws Exception {
+        cluster.node(1).connect("s-1", 42);
+        awaitInterest(0, "node-1", 42);
+
+        cluster.node(1).bus.close();
+        awaitNoInterest(0, "node-1", 42);
+        assertFalse(cluster.node(0).bus.isPeerInterested("node-1", 42));
+    }
+
+    @Test
+    void dropsFramesSentBeforeHello() throws Exception {
+        cluster.node(0).connect("s-1", 42);
+
+        try (Socket socket = new Socket("127.0.0.1", cluster.node(0).properties.getPort())) {
+            socket.setSoTimeout(2000);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            in.readNBytes(32);
+            send(socket, TcpClusterBus.USER_PUBLISH, out -> {
+                out.writeInt(42);
+                out.writeUTF("/queue/chat");
+            });
+
+            assertEquals(-1, in.read(), "the connection should have been closed");
+        }
+        verify(cluster.node(0).broker, after(200).never()).send(any(String.class), any(Message.class));
+    }
+
+    @Test
+    void rejectsHelloWithoutTheSecret() throws Exception {
+        try (Socket socket = new Socket("127.0.0.1", cluster.node(0).properties.getPort())) {
+            socket.setSoTimeout(2000);
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            in.readNBytes(32);
+            send(socket, TcpClusterBus.HELLO, out -> {
+                out.writeUTF("node-1");
+                out.write(new byte[32]);
+            });
+
+            assertEquals(-1, in.read(), "the connection should have been closed");
+        }
+    }
+
+    private static void send(Socket socket, byte type, FrameWriter body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream frame = new DataOutputStream(bytes)) {
+            frame.writeByte(type);
+            body.write(frame);
+        }
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+        out.writeInt(bytes.size());
+        out.write(bytes.toByteArray());
+        out.flush();
+    }
+
+    private interface FrameWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Waits until {@code nodeId} has announced {@code userId} to node {@code index}; a negative user only waits for the connection.
+     */
+    private void awaitInterest(int index, String nodeId, int userId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(3).toNanos();
+        while (System.nanoTime() < deadline) {
+            if (userId < 0 ? connectedEverywhere() : cluster.node(index).bus.isPeerInterested(nodeId, userId)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("Node " + nodeId + " never announced user " + userId);
+    }
+
+    private void awaitNoInterest(int index, String nodeId, int userId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(3).toNanos();
+        while (cluster.node(index).bus.isPeerInterested(nodeId, userId)) {
+            assertTrue(System.nanoTime() < deadline, "Interest of " + nodeId + " in " + userId + " never went away");
+            Thread.sleep(10);
+        }
+    }
+
+    private boolean connectedEverywhere() {
+        for (ClusterHarness.Node node : cluster.nodes) {
+            for (ClusterHarness.Node peer : cluster.nodes) {
+                if (node != peer && !node.bus.isPeerConnected(peer.bus.nodeId())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
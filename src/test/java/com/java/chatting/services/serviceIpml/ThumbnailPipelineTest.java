@@ -0,0 +1,167 @@
+package com.java.chatting.services.serviceIpml;
+
+import com.google.cloud.storage.BlobId;
+import com.java.chatting.configurations.firebase.ThumbnailProperties;
+import com.java.chatting.configurations.firebase.UploadProperties;
+import com.java.chatting.constants.PreviewStatus;
+import com.java.chatting.entities.ImagePreview;
+import com.java.chatting.entities.ImageThumbnail;
+import com.java.chatting.repositories.ImagePreviewRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ThumbnailPipelineTest {
+
+    private static final String BUCKET = "test-bucket";
+
+    private final FakeStorage fake = new FakeStorage();
+    private final Map<Integer, ImagePreview> previews = new ConcurrentHashMap<>();
+    private final List<Runnable> queued = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ThumbnailProperties properties;
+    private ThumbnailPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ThumbnailProperties();
+        properties.setSizes(List.of(160, 480));
+        FirebaseStorageClient storageClient = new FirebaseStorageClient(fake::storage, new UploadProperties(),
+                Runnable::run, meterRegistry);
+        pipeline = new ThumbnailPipeline(properties, new FirebaseAttachmentStore(storageClient, BUCKET), repository(),
+                queued::add, meterRegistry);
+    }
+
+    @Test
+    void plansThumbnailsOnUploadAndRendersThemLater() throws IOException {
+        ImagePreview preview = pipeline.submit(image("photo.jpg", "image/jpeg", "jpeg", 2000, 1000), "chat/uuid_photo.jpg");
+
+        assertEquals(PreviewStatus.PENDING, preview.getStatus());
+        assertEquals(2000, preview.getWidth());
+        assertEquals(1000, preview.getHeight());
+        List<ImageThumbnail> thumbnails = preview.getThumbnails();
+        assertEquals(2, thumbnails.size());
+        assertEquals(List.of(480, 240, 160, 80), List.of(thumbnails.get(0).getWidth(), thumbnails.get(0).getHeight(),
+                thumbnails.get(1).getWidth(), thumbnails.get(1).getHeight()));
+        assertTrue(thumbnails.get(0).getUrl().endsWith("/o/chat%2Fuuid_photo_480.jpg?alt=media"));
+        assertTrue(fake.objects.isEmpty(), "nothing is rendered on the request thread");
+        assertEquals(1, meterRegistry.get("chatting.thumbnail.pending").gauge().value());
+
+        queued.forEach(Runnable::run);
+
+        assertEquals(PreviewStatus.READY, previews.get(preview.getId()).getStatus());
+        BufferedImage large = ImageIO.read(new ByteArrayInputStream(fake.objects.get(BlobId.of(BUCKET, "chat/uuid_photo_480.jpg"))));
+        BufferedImage small = ImageIO.read(new ByteArrayInputStream(fake.objects.get(BlobId.of(BUCKET, "chat/uuid_photo_160.jpg"))));
+        assertEquals(List.of(480, 240, 160, 80), List.of(large.getWidth(), large.getHeight(), small.getWidth(), small.getHeight()));
+        assertEquals("image/jpeg", fake.infos.get(BlobId.of(BUCKET, "chat/uuid_photo_480.jpg")).getContentType());
+        assertEquals(0, meterRegistry.get("chatting.thumbnail.pending").gauge().value());
+        assertEquals(1, meterRegistry.get("chatting.thumbnail").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void keepsTransparencyAsPngAndSkipsSizesLargerThanTheImage() throws IOException {
+        ImagePreview preview = pipeline.submit(image("sticker.png", "image/png", "png", 300, 300),
+                "chat/uuid_sticker.png");
+        queued.forEach(Runnable::run);
+
+        assertEquals(1, preview.getThumbnails().size());
+        BlobId thumbnail = BlobId.of(BUCKET, "chat/uuid_sticker_160.png");
+        assertTrue(ImageIO.read(new ByteArrayInputStream(fake.objects.get(thumbnail))).getColorModel().hasAlpha());
+        assertEquals(PreviewStatus.READY, previews.get(preview.getId()).getStatus());
+    }
+
+    @Test
+    void ignoresFilesThatAreNotImages() {
+        assertNull(pipeline.submit(new MockMultipartFile("file", "a.pdf", "application/pdf", new byte[100]),
+                "chat/uuid_a.pdf"));
+        assertNull(pipeline.submit(new MockMultipartFile("file", "fake.jpg", "image/jpeg", new byte[100]),
+                "chat/uuid_fake.jpg"));
+        assertTrue(previews.isEmpty());
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    void oversizedImagesAreNotDecoded() throws IOException {
+        properties.setMaxPixels(1000);
+
+        ImagePreview preview = pipeline.submit(image("photo.jpg", "image/jpeg", "jpeg", 2000, 1000),
+                "chat/uuid_photo.jpg");
+
+        assertEquals(PreviewStatus.FAILED, preview.getStatus());
+        assertTrue(preview.getThumbnails().isEmpty());
+        assertTrue(queued.isEmpty());
+    }
+
+    @Test
+    void failedRenderingRemovesTheThumbnailsFromThePreview() throws IOException {
+        fake.failingSuffix = "_160.jpg";
+        ImagePreview preview = pipeline.submit(image("photo.jpg", "image/jpeg", "jpeg", 2000, 1000),
+                "chat/uuid_photo.jpg");
+
+        queued.forEach(Runnable::run);
+
+        ImagePreview stored = previews.get(preview.getId());
+        assertEquals(PreviewStatus.FAILED, stored.getStatus());
+        assertTrue(stored.getThumbnails().isEmpty());
+        assertEquals(List.of(BlobId.of(BUCKET, "chat/uuid_photo_480.jpg")), fake.deleted);
+        assertTrue(fake.objects.isEmpty());
+        assertEquals(1, meterRegistry.get("chatting.thumbnail").tag("outcome", "failure").timer().count());
+    }
+
+    private static MockMultipartFile image(String name, String contentType, String format, int width, int height)
+            throws IOException {
+        BufferedImage image = new BufferedImage(width, height,
+                "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x += 7) {
+            for (int y = 0; y < height; y += 5) {
+                image.setRGB(x, y, 0x80ff0000 | (x * 31 + y));
+            }
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return new MockMultipartFile("file", name, contentType, output.toByteArray());
+    }
+
+    private ImagePreviewRepository repository() {
+        AtomicInteger ids = new AtomicInteger();
+        ImagePreviewRepository repository = mock(ImagePreviewRepository.class);
+        // Stores a copy, so that later changes to the returned entity are only seen once saved again
+        when(repository.save(any(ImagePreview.class))).thenAnswer(invocation -> {
+            ImagePreview preview = invocation.getArgument(0);
+            if (preview.getId() == 0) {
+                preview.setId(ids.incrementAndGet());
+            }
+            previews.put(preview.getId(), ImagePreview.builder()
+                    .id(preview.getId())
+                    .fileUrl(preview.getFileUrl())
+                    .width(preview.getWidth())
+                    .height(preview.getHeight())
+                    .status(preview.getStatus())
+                    .thumbnails(new ArrayList<>(preview.getThumbnails()))
+                    .build());
+            return preview;
+        });
+        when(repository.findById(anyInt()))
+                .thenAnswer(invocation -> Optional.ofNullable(previews.get(invocation.<Integer>getArgument(0))));
+        return repository;
+    }
+}
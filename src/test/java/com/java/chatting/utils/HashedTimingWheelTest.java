@@ -0,0 +1,91 @@
+package com.java.chatting.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    private final List<Integer> expired = new ArrayList<>();
+
+    @Test
+    void expiresOnceTheDeadlineHasPassed() {
+        HashedTimingWheel wheel = new HashedTimingWheel(8, 10, 50);
+        assertTrue(wheel.touch(1, 0));
+        assertTrue(wheel.touch(2, 20));
+
+        assertEquals(0, wheel.advance(49, expired::add));
+        assertEquals(1, wheel.advance(50, expired::add));
+        assertEquals(List.of(1), expired);
+        assertFalse(wheel.contains(1));
+
+        assertEquals(1, wheel.advance(70, expired::add));
+        assertEquals(List.of(1, 2), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void touchPushesTheDeadlineBack() {
+        HashedTimingWheel wheel = new HashedTimingWheel(8, 10, 50);
+        wheel.touch(1, 0);
+        assertFalse(wheel.touch(1, 30));
+
+        // The entry is drained from its old slot and re-inserted for the new deadline
+        assertEquals(0, wheel.advance(50, expired::add));
+        assertEquals(0, wheel.advance(79, expired::add));
+        assertEquals(1, wheel.advance(80, expired::add));
+        assertEquals(List.of(1), expired);
+    }
+
+    @Test
+    void expiredIdsAreTrackedAgainOnTheNextTouch() {
+        HashedTimingWheel wheel = new HashedTimingWheel(8, 10, 50);
+        wheel.touch(1, 0);
+        wheel.advance(50, expired::add);
+
+        assertTrue(wheel.touch(1, 60));
+        assertEquals(1, wheel.advance(110, expired::add));
+        assertEquals(List.of(1, 1), expired);
+    }
+
+    @Test
+    void deadlinesBeyondOneRevolutionWaitForTheirRound() {
+        // Four slots of 10 ms cover 40 ms; the deadline is more than six revolutions away
+        HashedTimingWheel wheel = new HashedTimingWheel(4, 10, 250);
+        wheel.touch(1, 0);
+
+        for (long now = 10; now < 250; now += 10) {
+            assertEquals(0, wheel.advance(now, expired::add), "expired early at " + now);
+        }
+        assertEquals(1, wheel.advance(250, expired::add));
+        assertEquals(List.of(1), expired);
+    }
+
+    @Test
+    void longPauseVisitsEverySlotOnce() {
+        HashedTimingWheel wheel = new HashedTimingWheel(4, 10, 50);
+        wheel.advance(0, expired::add);
+        wheel.touch(1, 0);
+        wheel.touch(2, 15);
+        wheel.touch(3, 1000);
+
+        assertEquals(2, wheel.advance(500, expired::add));
+        assertEquals(List.of(1, 2), expired.stream().sorted().toList());
+        assertTrue(wheel.contains(3));
+    }
+
+    @Test
+    void removedIdsAreNotReported() {
+        HashedTimingWheel wheel = new HashedTimingWheel(8, 10, 50);
+        wheel.touch(1, 0);
+
+        assertTrue(wheel.remove(1));
+        assertFalse(wheel.remove(1));
+        assertEquals(0, wheel.advance(100, expired::add));
+        assertTrue(expired.isEmpty());
+        assertEquals(0, wheel.size());
+    }
+}
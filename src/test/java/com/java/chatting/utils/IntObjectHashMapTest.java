@@ -0,0 +1,82 @@
+package com.java.chatting.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntObjectHashMapTest {
+
+    @Test
+    void putGetAndRemove() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(4);
+
+        assertNull(map.put(7, "seven"));
+        assertEquals("seven", map.put(7, "SEVEN"));
+        assertNull(map.put(0, "zero"));
+        assertNull(map.put(-1, "minus one"));
+
+        assertEquals("SEVEN", map.get(7));
+        assertEquals("zero", map.get(0));
+        assertTrue(map.containsKey(-1));
+        assertFalse(map.containsKey(8));
+        assertEquals(3, map.size());
+
+        assertEquals("SEVEN", map.remove(7));
+        assertNull(map.remove(7));
+        assertNull(map.get(7));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void rejectsNullValues() {
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(4);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    void growsAndKeepsEveryKey() {
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>(1);
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 16, i);
+        }
+
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get(i * 16));
+        }
+        Set<Integer> keys = new HashSet<>();
+        map.forEachKey(keys::add);
+        assertEquals(10_000, keys.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(16));
+    }
+
+    @Test
+    void behavesLikeHashMapUnderRandomOperations() {
+        // A small key range keeps probe chains long, so removals exercise the backward shift
+        Random random = new Random(42);
+        IntObjectHashMap<Integer> map = new IntObjectHashMap<>(8);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 100_000; step++) {
+            int key = random.nextInt(512) - 256;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key), "remove " + key + " at step " + step);
+            } else {
+                assertEquals(expected.put(key, step), map.put(key, step), "put " + key + " at step " + step);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -256; key < 256; key++) {
+            assertEquals(expected.get(key), map.get(key), "key " + key);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.java.chatting.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PairStateTableTest {
+
+    private static final long INTERVAL = 1000;
+
+    @Test
+    void forwardsOncePerInterval() {
+        PairStateTable table = new PairStateTable(4, 8);
+        long pair = PairStateTable.pack(7, 42);
+
+        assertEquals(PairStateTable.FORWARD, table.touch(pair, 0, INTERVAL));
+        assertEquals(PairStateTable.DROP, table.touch(pair, 999, INTERVAL));
+        assertEquals(PairStateTable.FORWARD, table.touch(pair, 1000, INTERVAL));
+        assertEquals(PairStateTable.FORWARD, table.touch(PairStateTable.pack(42, 7), 1000, INTERVAL));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    void packsBothHalves() {
+        long pair = PairStateTable.pack(-3, Integer.MAX_VALUE);
+
+        assertEquals(-3, PairStateTable.high(pair));
+        assertEquals(Integer.MAX_VALUE, PairStateTable.low(pair));
+    }
+
+    @Test
+    void collidingKeysSurviveResizesAndRemovals() {
+        // Two stripes of eight slots: a thousand pairs collide and grow every stripe several times
+        PairStateTable table = new PairStateTable(2, 8);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(PairStateTable.FORWARD, table.touch(PairStateTable.pack(i, i + 1), 0, INTERVAL));
+        }
+        assertEquals(1000, table.size());
+
+        for (int i = 0; i < 1000; i += 3) {
+            assertTrue(table.remove(PairStateTable.pack(i, i + 1)));
+        }
+        for (int i = 0; i < 1000; i++) {
+            int expected = i % 3 == 0 ? PairStateTable.FORWARD : PairStateTable.DROP;
+            assertEquals(expected, table.touch(PairStateTable.pack(i, i + 1), 1, INTERVAL), "pair " + i);
+        }
+        assertFalse(table.remove(PairStateTable.pack(5000, 5001)));
+    }
+
+    @Test
+    void expiresQuietPairsOnly() {
+        PairStateTable table = new PairStateTable(2, 8);
+        for (int i = 0; i < 200; i++) {
+            table.touch(PairStateTable.pack(i, 0), i % 2 == 0 ? 0 : 500, INTERVAL);
+        }
+
+        Set<Long> expired = new HashSet<>();
+        table.expire(1200, 1000, expired::add);
+
+        assertEquals(100, expired.size());
+        for (int i = 0; i < 200; i++) {
+            long pair = PairStateTable.pack(i, 0);
+            assertEquals(i % 2 == 0, expired.contains(pair), "pair " + i);
+            // Backward shifts during expiry must keep the other pairs reachable
+            assertEquals(i % 2 != 0, table.remove(pair), "pair " + i);
+        }
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void reportsExpiredPairsOutsideTheStripeLock() {
+        PairStateTable table = new PairStateTable(2, 8);
+        long pair = PairStateTable.pack(7, 42);
+        table.touch(pair, 0, INTERVAL);
+
+        List<Integer> touchedMeanwhile = new ArrayList<>();
+        table.expire(5000, 1000, expired -> touchedMeanwhile.add(CompletableFuture
+                .supplyAsync(() -> table.touch(expired, 5000, INTERVAL))
+                .orTimeout(5, TimeUnit.SECONDS)
+                .join()));
+
+        assertEquals(List.of(PairStateTable.FORWARD), touchedMeanwhile);
+    }
+}